@@ -0,0 +1,132 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import be.shad.tsqb.dao.TypeSafeQueryDao;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.domain.people.Relation;
+import be.shad.tsqb.dto.HasId;
+import be.shad.tsqb.dto.LoadTestDto;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.dto.TownDto;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeSubQuery;
+import be.shad.tsqb.selection.collection.IdentityFieldProvider;
+import be.shad.tsqb.selection.parallel.SelectValue;
+import be.shad.tsqb.selection.parallel.SelectionMerger1;
+
+/**
+ * The queries used by the benchmarks.
+ */
+public final class BenchmarkQueries {
+    private static final Collection<String> NAMES = new ArrayList<>();
+    static {
+        for(int i=0; i < 500; i++) {
+            NAMES.add("name" + i);
+        }
+    }
+
+    private static final IdentityFieldProvider<HasId> ID_PROVIDER = new IdentityFieldProvider<HasId>() {
+        @Override
+        protected Object getIdentifier(HasId resultProxy) {
+            return resultProxy.getId();
+        }
+    };
+
+    private static final SelectionMerger1<PersonDto, String> NAME_MERGER = new SelectionMerger1<PersonDto, String>() {
+        @Override
+        public void mergeValueIntoResult(PersonDto partialResult, String name) {
+            partialResult.setThePersonsName(name);
+        }
+    };
+
+    private BenchmarkQueries() {
+    }
+
+    /**
+     * The query of the LoadTest: joins, a subquery with a big in-restriction,
+     * grouping and functions selected into a dto.
+     */
+    public static TypeSafeRootQuery createLoadTestQuery(TypeSafeQueryDao dao) {
+        TypeSafeRootQuery query = dao.createQuery();
+        Town town = query.from(Town.class);
+        Person inhabitant = query.join(town.getInhabitants());
+        Relation childRelation = query.join(inhabitant.getChildRelations());
+
+        query.where(childRelation.getChild().getTown().getName()).eq(town.getName());
+        query.groupBy(town.getName());
+
+        TypeSafeSubQuery<Long> subquery = query.subquery(long.class);
+        Person personCnt = subquery.from(Person.class);
+        subquery.where(personCnt.getAge()).gte(50).
+                   and(personCnt.getName()).in(NAMES);
+        subquery.select(query.hqlFunction().count().select());
+
+        LoadTestDto dto = query.select(LoadTestDto.class);
+        dto.setTownName(town.getName());
+        dto.setMaxAge(query.hqlFunction().max(childRelation.getChild().getAge()).select());
+        dto.setFiftyPlusCount(subquery.select());
+        return query;
+    }
+
+    /**
+     * Selects person values into a flat dto, tuple: [id, age, name].
+     */
+    public static TypeSafeRootQuery createFlatQuery(TypeSafeQueryDao dao) {
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setId(person.getId());
+        dto.setPersonAge(person.getAge());
+        dto.setThePersonsName(person.getName());
+        return query;
+    }
+
+    /**
+     * Selects the towns with a nested collection of inhabitants, tuple: [townId, personId, name].
+     */
+    public static TypeSafeRootQuery createNestedQuery(TypeSafeQueryDao dao) {
+        TypeSafeRootQuery query = dao.createQuery();
+        Town town = query.from(Town.class);
+        Person inhabitant = query.join(town.getInhabitants());
+
+        TownDto townDto = query.select(TownDto.class, ID_PROVIDER);
+        PersonDto personDto = query.select(townDto.getInhabitants(), PersonDto.class, ID_PROVIDER);
+        townDto.setId(town.getId());
+        personDto.setId(inhabitant.getId());
+        personDto.setThePersonsName(inhabitant.getName());
+        query.orderBy().asc(town.getId());
+        return query;
+    }
+
+    /**
+     * Selects person values into a dto, merging the name using a merger, tuple: [id, age, name].
+     */
+    public static TypeSafeRootQuery createMergedQuery(TypeSafeQueryDao dao) {
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setId(person.getId());
+        dto.setPersonAge(person.getAge());
+        SelectValue<String> name = query.selectMergeValues(dto, NAME_MERGER);
+        name.setValue(person.getName());
+        return query;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.test.TestDataCreator;
+
+/**
+ * Querying end-to-end using the dao against the in-memory database:
+ * building the query, hql generation, hibernate and result transformation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DaoQueryBenchmark {
+    private static final int TOWNS = 10;
+    private static final int INHABITANTS_PER_TOWN = 100;
+
+    private HibernateState state;
+
+    @Setup
+    public void setup(HibernateState state) {
+        this.state = state;
+        Session session = state.getSessionFactory().getCurrentSession();
+        session.beginTransaction();
+        TestDataCreator creator = new TestDataCreator(state.getSessionFactory());
+        for(int i=0; i < TOWNS; i++) {
+            Town town = creator.createTestTown();
+            for(int j=0; j < INHABITANTS_PER_TOWN; j++) {
+                creator.createTestPerson(town, "name" + j);
+            }
+        }
+        session.getTransaction().commit();
+    }
+
+    @Benchmark
+    public List<?> queryFlatSelection() {
+        Session session = state.getSessionFactory().getCurrentSession();
+        session.beginTransaction();
+        try {
+            return state.getDao().doQueryResults(BenchmarkQueries.createFlatQuery(state.getDao()));
+        } finally {
+            session.getTransaction().commit();
+        }
+    }
+
+    @Benchmark
+    public List<?> queryNestedCollectionSelection() {
+        Session session = state.getSessionFactory().getCurrentSession();
+        session.beginTransaction();
+        try {
+            return state.getDao().doQueryResults(BenchmarkQueries.createNestedQuery(state.getDao()));
+        } finally {
+            session.getTransaction().commit();
+        }
+    }
+}
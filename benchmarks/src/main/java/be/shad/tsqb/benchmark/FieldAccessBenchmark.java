@@ -0,0 +1,104 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Setting the private fields of a dto the way a selection tree group does it,
+ * with the accessible fields it uses and with method handles as the alternative.
+ * <p>
+ * Like in the selection tree group, the accessors are held in instance fields,
+ * so the method handles are not constants the jit can inline through.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FieldAccessBenchmark {
+    private static final String[] FIELD_NAMES = { "id", "age", "name" };
+
+    private final Object[] values = { 1L, 42, "name" };
+    private Field[] fields;
+    private MethodHandle[] setters;
+    private Field collectionField;
+    private MethodHandle collectionGetter;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        fields = new Field[FIELD_NAMES.length];
+        setters = new MethodHandle[FIELD_NAMES.length];
+        for(int i=0; i < FIELD_NAMES.length; i++) {
+            fields[i] = BenchmarkDto.class.getDeclaredField(FIELD_NAMES[i]);
+        }
+        collectionField = BenchmarkDto.class.getDeclaredField("children");
+        AccessibleObject.setAccessible(fields, true);
+        collectionField.setAccessible(true);
+
+        MethodType setterType = MethodType.methodType(void.class, Object.class, Object.class);
+        for(int i=0; i < FIELD_NAMES.length; i++) {
+            setters[i] = MethodHandles.lookup().unreflectSetter(fields[i]).asType(setterType);
+        }
+        collectionGetter = MethodHandles.lookup().unreflectGetter(collectionField).
+                asType(MethodType.methodType(Object.class, Object.class));
+    }
+
+    @Benchmark
+    public Object setFields() throws IllegalAccessException {
+        BenchmarkDto dto = new BenchmarkDto();
+        for(int i=0; i < fields.length; i++) {
+            fields[i].set(dto, values[i]);
+        }
+        return collectionField.get(dto);
+    }
+
+    @Benchmark
+    public Object setFieldsWithMethodHandles() throws Throwable {
+        BenchmarkDto dto = new BenchmarkDto();
+        for(int i=0; i < setters.length; i++) {
+            setters[i].invokeExact((Object) dto, values[i]);
+        }
+        return (Object) collectionGetter.invokeExact((Object) dto);
+    }
+
+    /**
+     * A dto with private fields, like the dtos selected into.
+     */
+    public static class BenchmarkDto {
+        private Long id;
+        private Integer age;
+        private String name;
+        private Object children = new Object();
+    }
+}
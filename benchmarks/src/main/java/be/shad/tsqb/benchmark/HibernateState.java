@@ -0,0 +1,58 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.benchmark;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import be.shad.tsqb.dao.TypeSafeQueryDao;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.helper.TypeSafeQueryHelperImpl;
+
+/**
+ * Session factory on the in-memory database of the tests,
+ * shared by all threads of a benchmark.
+ */
+@State(Scope.Benchmark)
+public class HibernateState {
+    private SessionFactory sessionFactory;
+    private TypeSafeQueryDaoImpl dao;
+
+    @Setup
+    public void setup() {
+        Configuration config = new Configuration();
+        config.configure("be/shad/tsqb/tests/hibernate.cfg.xml");
+        sessionFactory = config.buildSessionFactory();
+        dao = new TypeSafeQueryDaoImpl(sessionFactory, new TypeSafeQueryHelperImpl(sessionFactory));
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    public SessionFactory getSessionFactory() {
+        return sessionFactory;
+    }
+
+    public TypeSafeQueryDao getDao() {
+        return dao;
+    }
+}
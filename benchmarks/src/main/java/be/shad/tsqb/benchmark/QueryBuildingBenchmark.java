@@ -0,0 +1,73 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+
+/**
+ * Building a query, converting it to hql and copying it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBuildingBenchmark {
+
+    @State(Scope.Thread)
+    public static class BuiltQuery {
+        private TypeSafeRootQuery query;
+
+        @Setup
+        public void setup(HibernateState state) {
+            query = BenchmarkQueries.createLoadTestQuery(state.getDao());
+        }
+    }
+
+    @Benchmark
+    public TypeSafeRootQuery buildQuery(HibernateState state) {
+        return BenchmarkQueries.createLoadTestQuery(state.getDao());
+    }
+
+    @Benchmark
+    public HqlQuery buildQueryAndConvertToHql(HibernateState state) {
+        return BenchmarkQueries.createLoadTestQuery(state.getDao()).toHqlQuery();
+    }
+
+    @Benchmark
+    public HqlQuery toHqlQuery(BuiltQuery builtQuery) {
+        return builtQuery.query.toHqlQuery();
+    }
+
+    @Benchmark
+    public TypeSafeRootQuery copyQuery(BuiltQuery builtQuery) {
+        return builtQuery.query.copy();
+    }
+}
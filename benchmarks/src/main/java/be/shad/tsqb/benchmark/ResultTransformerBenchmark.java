@@ -0,0 +1,88 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.transform.ResultTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeRootQueryInternal;
+
+/**
+ * Transforming synthetic tuples into dtos, without touching the database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultTransformerBenchmark {
+    private static final int ROWS = 1000;
+    private static final int INHABITANTS_PER_TOWN = 100;
+
+    private ResultTransformer flatTransformer;
+    private ResultTransformer nestedTransformer;
+    private ResultTransformer mergedTransformer;
+    private List<Object[]> personTuples;
+    private List<Object[]> townTuples;
+
+    @Setup
+    public void setup(HibernateState state) {
+        flatTransformer = createResultTransformer(BenchmarkQueries.createFlatQuery(state.getDao()));
+        nestedTransformer = createResultTransformer(BenchmarkQueries.createNestedQuery(state.getDao()));
+        mergedTransformer = createResultTransformer(BenchmarkQueries.createMergedQuery(state.getDao()));
+
+        personTuples = new ArrayList<>(ROWS);
+        townTuples = new ArrayList<>(ROWS);
+        for(long i=0; i < ROWS; i++) {
+            personTuples.add(new Object[] { i, (int) (i % 100), "name" + i });
+            townTuples.add(new Object[] { i / INHABITANTS_PER_TOWN, i, "name" + i });
+        }
+    }
+
+    private ResultTransformer createResultTransformer(TypeSafeRootQuery query) {
+        return ((TypeSafeRootQueryInternal) query).getProjections().createResultTransformer();
+    }
+
+    @Benchmark
+    public List<?> transformFlatSelection() {
+        return flatTransformer.transformList(personTuples);
+    }
+
+    @Benchmark
+    public List<?> transformNestedCollectionSelection() {
+        return nestedTransformer.transformList(townTuples);
+    }
+
+    @Benchmark
+    public List<?> transformMergedSelection() {
+        return mergedTransformer.transformList(personTuples);
+    }
+}
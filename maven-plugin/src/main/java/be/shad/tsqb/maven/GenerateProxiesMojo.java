@@ -0,0 +1,112 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import be.shad.tsqb.proxy.TypeSafeQueryProxyGenerator;
+import be.shad.tsqb.proxy.TypeSafeQueryProxyType;
+
+/**
+ * Generates the proxy classes of the entities and dtos once they are compiled,
+ * so the proxy factory loads them instead of creating them at startup.
+ * <pre>
+ * &lt;plugin&gt;
+ *     &lt;groupId&gt;com.github.gert-wijns&lt;/groupId&gt;
+ *     &lt;artifactId&gt;TypeSafeQueryBuilder-maven-plugin&lt;/artifactId&gt;
+ *     &lt;executions&gt;
+ *         &lt;execution&gt;
+ *             &lt;goals&gt;&lt;goal&gt;generate-proxies&lt;/goal&gt;&lt;/goals&gt;
+ *             &lt;configuration&gt;
+ *                 &lt;entities&gt;&lt;entity&gt;com.example.domain.*&lt;/entity&gt;&lt;/entities&gt;
+ *                 &lt;dtos&gt;&lt;dto&gt;com.example.dto.PersonDto&lt;/dto&gt;&lt;/dtos&gt;
+ *             &lt;/configuration&gt;
+ *         &lt;/execution&gt;
+ *     &lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ * The proxy classes are generated again on every build,
+ * so they are never out of date with the compiled classes.
+ */
+@Mojo(name = "generate-proxies", defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+        requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
+public class GenerateProxiesMojo extends AbstractMojo {
+
+    /**
+     * The directory containing the compiled classes, the proxy classes are written to it as well.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+    private File outputDirectory;
+
+    @Parameter(defaultValue = "${project.compileClasspathElements}", readonly = true, required = true)
+    private List<String> classpathElements;
+
+    /**
+     * The entity classes to generate proxies for, a name ending
+     * with <code>.*</code> includes all classes of a package.
+     */
+    @Parameter
+    private List<String> entities = new ArrayList<>();
+
+    /**
+     * The dto classes to generate selection proxies for, a name ending
+     * with <code>.*</code> includes all classes of a package.
+     */
+    @Parameter
+    private List<String> dtos = new ArrayList<>();
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        TypeSafeQueryProxyGenerator generator = new TypeSafeQueryProxyGenerator(outputDirectory);
+        try (URLClassLoader classLoader = new URLClassLoader(toUrls(classpathElements), getClass().getClassLoader())) {
+            int generated = generate(generator, classLoader, entities, TypeSafeQueryProxyType.EntityType)
+                    + generate(generator, classLoader, dtos, TypeSafeQueryProxyType.SelectionDtoType);
+            getLog().info(String.format("Generated %d proxy classes in [%s].", generated, outputDirectory));
+        } catch (ClassNotFoundException | IOException e) {
+            throw new MojoExecutionException("Failed to generate the proxy classes.", e);
+        }
+    }
+
+    private int generate(TypeSafeQueryProxyGenerator generator, ClassLoader classLoader,
+            List<String> classOrPackageNames, TypeSafeQueryProxyType type)
+            throws ClassNotFoundException, IOException {
+        int generated = 0;
+        for (String classOrPackageName: classOrPackageNames) {
+            generated += generator.generate(classLoader, classOrPackageName, type).size();
+        }
+        return generated;
+    }
+
+    private static URL[] toUrls(List<String> classpathElements) throws IOException {
+        URL[] urls = new URL[classpathElements.size()];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = new File(classpathElements.get(i)).toURI().toURL();
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Pads the values bound to collection params to a limited set of sizes by repeating the last value.
+ * <p>
+ * Each size of a bound collection expands to a different sql statement, so binding collections of
+ * many different sizes thrashes the query plan cache of hibernate and the statement cache of the driver.
+ * Padding the values lets a few statements cover all sizes. Repeating a value doesn't change
+ * the outcome of an in or not in restriction.
+ * <p>
+ * By default, the values are padded to the next power of two. When buckets are specified,
+ * the values are padded to the smallest bucket they fit in, or to a multiple of the largest
+ * bucket when they don't fit in any bucket. The chunks of a batched param are
+ * padded to the batch size, so all chunks use the same statement.
+ * <p>
+ * Values are never padded past the max padded size, which defaults to the
+ * 1000 values oracle allows in an in list, or past the batch size of a batched param.
+ * Collections which are already larger are bound as they are.
+ */
+public class InValuePadding {
+    public static final int DEFAULT_MAX_PADDED_SIZE = 1000;
+
+    private final int[] buckets;
+    private int maxPaddedSize = DEFAULT_MAX_PADDED_SIZE;
+
+    /**
+     * Pads to the next power of two.
+     */
+    public InValuePadding() {
+        this.buckets = null;
+    }
+
+    /**
+     * Pads to the smallest bucket which fits the values.
+     *
+     * @param buckets the sizes to pad to, in ascending order.
+     */
+    public InValuePadding(int... buckets) {
+        if (buckets == null || buckets.length == 0) {
+            throw new IllegalArgumentException("At least one bucket is required.");
+        }
+        for(int i = 0; i < buckets.length; i++) {
+            if (buckets[i] < 1 || (i > 0 && buckets[i] <= buckets[i - 1])) {
+                throw new IllegalArgumentException(String.format("The buckets must be positive "
+                        + "and in ascending order, bucket [%d] was [%d].", i, buckets[i]));
+            }
+        }
+        this.buckets = buckets.clone();
+    }
+
+    /**
+     * Sets the size values are never padded past, the amount of values
+     * the database allows in an in list for example.
+     */
+    public void setMaxPaddedSize(int maxPaddedSize) {
+        if (maxPaddedSize < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "The max padded size must be positive, was [%d].", maxPaddedSize));
+        }
+        this.maxPaddedSize = maxPaddedSize;
+    }
+
+    public int getMaxPaddedSize() {
+        return maxPaddedSize;
+    }
+
+    /**
+     * @return the size to pad a collection of <code>size</code> values to,
+     *         which is never smaller than the size or larger than the max padded size,
+     *         unless the size itself is larger.
+     */
+    public int getPaddedSize(int size) {
+        if (size <= 1) {
+            return size;
+        }
+        int paddedSize;
+        if (buckets == null) {
+            paddedSize = Integer.highestOneBit(size - 1) << 1;
+        } else {
+            paddedSize = getBucketSize(size);
+        }
+        // don't overflow for huge collections and don't pad past the max:
+        return Math.max(size, paddedSize < 0 ? size: Math.min(paddedSize, maxPaddedSize));
+    }
+
+    private int getBucketSize(int size) {
+        for(int bucket: buckets) {
+            if (size <= bucket) {
+                return bucket;
+            }
+        }
+        int largest = buckets[buckets.length - 1];
+        return (size + largest - 1) / largest * largest;
+    }
+
+    /**
+     * @return the values, or a list of the values padded with the last value if padding is required.
+     */
+    public Collection<?> pad(Collection<?> values) {
+        return pad(values, getPaddedSize(values.size()));
+    }
+
+    /**
+     * @return the values, or a list of the values padded with the last value
+     *         up to the padded size, but never past the max padded size.
+     */
+    public Collection<?> pad(Collection<?> values, int paddedSize) {
+        paddedSize = Math.min(paddedSize, maxPaddedSize);
+        if (paddedSize <= values.size() || values.isEmpty()) {
+            return values;
+        }
+        List<Object> padded = new ArrayList<>(paddedSize);
+        padded.addAll(values);
+        Object last = padded.get(padded.size() - 1);
+        while (padded.size() < paddedSize) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
+}
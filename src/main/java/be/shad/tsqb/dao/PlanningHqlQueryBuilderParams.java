@@ -0,0 +1,56 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import be.shad.tsqb.values.HqlQueryBuilderParamsImpl;
+import be.shad.tsqb.values.NamedValueEnabled;
+
+/**
+ * Builder params used to build the hql of a query plan.
+ * Keeps track of the named parameters which were created per named value enabled source,
+ * so the parameters can be mapped to the parameters of the query fingerprint.
+ */
+class PlanningHqlQueryBuilderParams extends HqlQueryBuilderParamsImpl {
+    private final Map<Object, List<String>> parameterNames = new IdentityHashMap<>();
+
+    PlanningHqlQueryBuilderParams() {
+        setCreatingResultTransformer(false);
+    }
+
+    @Override
+    public String createNamedParameter(NamedValueEnabled source) {
+        String name = super.createNamedParameter(source);
+        List<String> names = parameterNames.get(source);
+        if (names == null) {
+            names = new LinkedList<>();
+            parameterNames.put(source, names);
+        }
+        names.add(name);
+        return name;
+    }
+
+    /**
+     * The parameter names created for the source, null if none were created.
+     */
+    List<String> getParameterNames(Object source) {
+        return parameterNames.get(source);
+    }
+}
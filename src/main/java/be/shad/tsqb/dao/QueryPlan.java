@@ -0,0 +1,169 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import be.shad.tsqb.CollectionNamedParameter;
+import be.shad.tsqb.NamedParameter;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
+import be.shad.tsqb.selection.TypeSafeQueryProjections;
+import be.shad.tsqb.values.HqlQueryBuilderParamsImpl;
+import be.shad.tsqb.values.HqlQueryValue;
+import be.shad.tsqb.values.TypeSafeValue;
+
+/**
+ * The reusable part of an executed query: its hql and, for each of its named parameters,
+ * the position of the {@link QueryFingerprint#getParameters() fingerprint parameter}
+ * which provides the value.
+ * <p>
+ * Queries with the same fingerprint yield the same hql, so a query reusing the plan
+ * only binds the values of its own parameters instead of rendering the hql again.
+ * They also have the same selection shape, so the result transformer is kept in the plan
+ * when it is {@link TypeSafeQueryProjections#isResultTransformerShareable() shareable}.
+ * Other result transformers are created for each query.
+ * <p>
+ * A plan is immutable, so it can be shared between concurrent executions.
+ */
+public class QueryPlan {
+    private final HqlQuery hqlQuery;
+    private final int[] parameterIndexes;
+    private final int fingerprintParameterCount;
+    private final boolean resultTransformerShared;
+
+    private QueryPlan(HqlQuery hqlQuery, int[] parameterIndexes,
+            int fingerprintParameterCount, boolean resultTransformerShared) {
+        this.hqlQuery = hqlQuery;
+        this.parameterIndexes = parameterIndexes;
+        this.fingerprintParameterCount = fingerprintParameterCount;
+        this.resultTransformerShared = resultTransformerShared;
+    }
+
+    /**
+     * Creates the plan for the hql query, which was built using the planning params.
+     * The result transformer of the hql query is kept in the plan if it is shared.
+     *
+     * @return the plan, or null if a parameter isn't provided by a fingerprint parameter,
+     *         for example when it was added by a part of the query which isn't fingerprintable.
+     *         The hql of such queries can't be reused.
+     */
+    static QueryPlan create(HqlQuery hqlQuery, QueryFingerprint fingerprint,
+            PlanningHqlQueryBuilderParams params, boolean resultTransformerShared) {
+        List<TypeSafeValue<?>> sources = fingerprint.getParameters();
+        int[] parameterIndexes = new int[hqlQuery.getParams().size()];
+        int position = 0;
+        for(Object param: hqlQuery.getParams()) {
+            if (!(param instanceof NamedParameter)) {
+                return null;
+            }
+            int index = getSourceIndex(sources, params, (NamedParameter) param);
+            if (index < 0) {
+                return null;
+            }
+            parameterIndexes[position++] = index;
+        }
+        // copy the hql query, executing the query may replace its params:
+        HqlQuery planQuery = new HqlQuery(hqlQuery, hqlQuery.getParams());
+        if (!resultTransformerShared) {
+            planQuery.setResultTransformer(null);
+        }
+        return new QueryPlan(planQuery, parameterIndexes, sources.size(), resultTransformerShared);
+    }
+
+    /**
+     * The index of the fingerprint parameter for which the named parameter was
+     * created and which binds the same value, -1 if there is none.
+     */
+    private static int getSourceIndex(List<TypeSafeValue<?>> sources,
+            PlanningHqlQueryBuilderParams params, NamedParameter param) {
+        for(int i = 0; i < sources.size(); i++) {
+            List<String> names = params.getParameterNames(sources.get(i));
+            if (names != null && names.contains(param.getName())) {
+                Object value = toBoundParameter(sources.get(i)).getValue();
+                return Objects.equals(value, param.getValue()) ? i: -1;
+            }
+        }
+        return -1;
+    }
+
+    public String getHql() {
+        return hqlQuery.getHql();
+    }
+
+    /**
+     * Whether the result transformer is kept in the plan, the result transformer
+     * must be created for the query otherwise.
+     */
+    public boolean isResultTransformerShared() {
+        return resultTransformerShared;
+    }
+
+    /**
+     * Creates an hql query with the hql of this plan and the values of the parameters
+     * of the fingerprint bound to the named parameters. The result transformer is set
+     * when it is shared.
+     *
+     * @param fingerprint the fingerprint of a query with the same fingerprint content as the
+     *        query this plan was created for.
+     */
+    public HqlQuery toHqlQuery(QueryFingerprint fingerprint) {
+        List<TypeSafeValue<?>> sources = fingerprint.getParameters();
+        if (sources.size() != fingerprintParameterCount) {
+            throw new IllegalStateException(String.format("Fingerprint [%s] has [%d] parameters, "
+                    + "expected [%d] for query plan [%s].", fingerprint, sources.size(),
+                    fingerprintParameterCount, getHql()));
+        }
+        NamedParameter[] boundParameters = new NamedParameter[sources.size()];
+        List<Object> params = new ArrayList<>(parameterIndexes.length);
+        int position = 0;
+        for(Object param: hqlQuery.getParams()) {
+            int index = parameterIndexes[position++];
+            if (boundParameters[index] == null) {
+                boundParameters[index] = toBoundParameter(sources.get(index));
+            }
+            params.add(rename(boundParameters[index], ((NamedParameter) param).getName()));
+        }
+        return new HqlQuery(hqlQuery, params);
+    }
+
+    /**
+     * Converts the value on its own to get the named parameter it binds.
+     */
+    private static NamedParameter toBoundParameter(TypeSafeValue<?> source) {
+        HqlQueryValue value = source.toHqlQueryValue(new HqlQueryBuilderParamsImpl());
+        if (value.getParams().size() != 1 || !(value.getParams().iterator().next() instanceof NamedParameter)) {
+            throw new IllegalStateException(String.format(
+                    "Fingerprint parameter [%s] doesn't bind a single named parameter.", source));
+        }
+        return (NamedParameter) value.getParams().iterator().next();
+    }
+
+    private static NamedParameter rename(NamedParameter param, String name) {
+        if (param instanceof CollectionNamedParameter) {
+            CollectionNamedParameter collectionParam = (CollectionNamedParameter) param;
+            return new CollectionNamedParameter(name, collectionParam.getValue(), collectionParam.getBatchSize());
+        }
+        return new NamedParameter(name, param.getValue());
+    }
+
+    @Override
+    public String toString() {
+        return hqlQuery.toString();
+    }
+}
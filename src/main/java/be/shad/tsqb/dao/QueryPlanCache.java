@@ -0,0 +1,133 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
+
+/**
+ * Bounded cache of {@link QueryPlan}s, keyed by the {@link QueryFingerprint} of the query.
+ * The fingerprint is computed by walking the query, so a plan is found without rendering
+ * the hql, a query with a cached plan only binds its parameter values to the hql of the plan.
+ * <p>
+ * The plans are keyed on the {@link QueryFingerprint#getContent() content} of the fingerprint,
+ * its hash value is only used to find the bucket, so queries with colliding hash values
+ * never reuse each other's plan.
+ * <p>
+ * The least recently used plan is evicted when the cache is full.
+ * Hit and miss counters are kept to monitor the effectiveness of the cache.
+ */
+public class QueryPlanCache {
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private final Map<PlanKey, QueryPlan> plans;
+    private final int maxSize;
+    private long hitCount;
+    private long missCount;
+
+    public QueryPlanCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public QueryPlanCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The max size of the query plan cache "
+                    + "must be at least 1, was: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.plans = new LinkedHashMap<PlanKey, QueryPlan>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<PlanKey, QueryPlan> eldest) {
+                return size() > QueryPlanCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the cached plan, or null if no plan was cached for the fingerprint yet.
+     */
+    public synchronized QueryPlan get(QueryFingerprint fingerprint) {
+        QueryPlan plan = plans.get(new PlanKey(fingerprint));
+        if (plan == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return plan;
+    }
+
+    /**
+     * Caches the plan, possibly evicting the least recently used plan.
+     */
+    public synchronized void put(QueryFingerprint fingerprint, QueryPlan plan) {
+        plans.put(new PlanKey(fingerprint), plan);
+    }
+
+    public synchronized void clear() {
+        plans.clear();
+    }
+
+    public synchronized int size() {
+        return plans.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * The content of a fingerprint, hashed by the fingerprint value.
+     */
+    private static final class PlanKey {
+        private final long value;
+        private final String content;
+
+        PlanKey(QueryFingerprint fingerprint) {
+            this.value = fingerprint.getValue();
+            this.content = fingerprint.getContent();
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (value ^ (value >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PlanKey)) {
+                return false;
+            }
+            PlanKey other = (PlanKey) obj;
+            return value == other.value && content.equals(other.content);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.CollectionEntry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Bounded cache of transformed query results, keyed by the hql, the selection shape,
+ * the parameter values and the first/max results of the query.
+ * <p>
+ * The results are cached with the query spaces (tables) of the query,
+ * the entries using a table are invalidated when an entity stored in that table
+ * is inserted, updated or deleted, or when a collection stored in that table is changed,
+ * once the transaction is completed, see {@link #register(SessionFactory)},
+ * or when a bulk statement is executed by the dao.
+ * Changes made with plain sql or by other applications are not detected,
+ * the time to live limits how long such changes remain unseen.
+ * <p>
+ * The cached results are shared by everyone who executes the same query and are
+ * returned as unmodifiable lists, the results should not be modified either.
+ * It is meant for selections of dtos and values, cached entities would be detached.
+ */
+public class QueryResultCache {
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final Map<QueryResultKey, CachedResult> results;
+    private final Map<String, Long> invalidations = new HashMap<>();
+    private final int maxSize;
+    private final long timeToLiveNanos;
+    private long generation;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Creates a cache with the default max size, of which the entries are only
+     * removed when they are invalidated or when the cache is full.
+     */
+    public QueryResultCache() {
+        this(DEFAULT_MAX_SIZE, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    public QueryResultCache(int maxSize, long timeToLive, TimeUnit unit) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The max size of the query result cache "
+                    + "must be at least 1, was: " + maxSize);
+        }
+        if (timeToLive < 1) {
+            throw new IllegalArgumentException("The time to live of the query result cache "
+                    + "must be positive, was: " + timeToLive);
+        }
+        this.maxSize = maxSize;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        this.results = new LinkedHashMap<QueryResultKey, CachedResult>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<QueryResultKey, CachedResult> eldest) {
+                return size() > QueryResultCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Registers listeners on the session factory to invalidate the cached results
+     * using the tables of an entity when the entity is inserted, updated or deleted,
+     * and using the tables of a collection when the collection is recreated, updated
+     * or removed, after the transaction was completed.
+     * <p>
+     * The results are invalidated when the transaction is rolled back as well, results
+     * may have been cached by a query which saw the flushed changes of the transaction.
+     */
+    public void register(SessionFactory sessionFactory) {
+        EventListenerRegistry registry = ((SessionFactoryImplementor) sessionFactory).
+                getServiceRegistry().getService(EventListenerRegistry.class);
+        InvalidatingListener listener = new InvalidatingListener(this);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+    }
+
+    /**
+     * The generation to pass when putting the results of a query which is executed
+     * after calling this method, so results which were queried while a table they use
+     * was invalidated are not cached.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return the cached results, or null when the results were not cached or expired.
+     */
+    public synchronized <T> List<T> get(String hql, List<Object> selectionShape, List<Object> params,
+            int firstResult, int maxResults) {
+        QueryResultKey key = new QueryResultKey(hql, selectionShape, params, firstResult, maxResults);
+        CachedResult cached = results.get(key);
+        if (cached != null && System.nanoTime() - cached.cachedAt > timeToLiveNanos) {
+            results.remove(key);
+            cached = null;
+        }
+        if (cached == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        @SuppressWarnings("unchecked")
+        List<T> cachedResults = (List<T>) cached.results;
+        return cachedResults;
+    }
+
+    /**
+     * Caches the results, possibly evicting the least recently used results, unless
+     * one of the query spaces was invalidated since the generation.
+     *
+     * @return the unmodifiable results.
+     */
+    public synchronized <T> List<T> put(String hql, List<Object> selectionShape, List<Object> params,
+            int firstResult, int maxResults, Set<String> querySpaces, long generation, List<T> queriedResults) {
+        List<T> cachedResults = Collections.unmodifiableList(queriedResults);
+        for(String querySpace: querySpaces) {
+            Long invalidated = invalidations.get(querySpace);
+            if (invalidated != null && invalidated > generation) {
+                return cachedResults;
+            }
+        }
+        results.put(new QueryResultKey(hql, selectionShape, copyParams(params), firstResult, maxResults),
+                new CachedResult(cachedResults, querySpaces, System.nanoTime()));
+        return cachedResults;
+    }
+
+    /**
+     * Copies the collection params, the key must not change when
+     * the caller modifies a collection after executing the query.
+     */
+    private List<Object> copyParams(List<Object> params) {
+        List<Object> copy = new ArrayList<>(params.size());
+        for(Object param: params) {
+            if (param instanceof Set) {
+                copy.add(new LinkedHashSet<>((Set<?>) param));
+            } else if (param instanceof Collection) {
+                copy.add(new ArrayList<>((Collection<?>) param));
+            } else {
+                copy.add(param);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Removes the results of the queries using one of the query spaces.
+     */
+    public synchronized void invalidate(Collection<? extends Serializable> querySpaces) {
+        generation++;
+        for(Serializable querySpace: querySpaces) {
+            invalidations.put(querySpace.toString(), generation);
+        }
+        Iterator<CachedResult> it = results.values().iterator();
+        while (it.hasNext()) {
+            CachedResult cached = it.next();
+            for(Serializable querySpace: querySpaces) {
+                if (cached.querySpaces.contains(querySpace.toString())) {
+                    it.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private static final class CachedResult {
+        private final List<?> results;
+        private final Set<String> querySpaces;
+        private final long cachedAt;
+
+        CachedResult(List<?> results, Set<String> querySpaces, long cachedAt) {
+            this.results = results;
+            this.querySpaces = querySpaces;
+            this.cachedAt = cachedAt;
+        }
+    }
+
+    private static final class QueryResultKey {
+        private final String hql;
+        private final List<Object> selectionShape;
+        private final List<Object> params;
+        private final int firstResult;
+        private final int maxResults;
+        private final int hashCode;
+
+        QueryResultKey(String hql, List<Object> selectionShape, List<Object> params,
+                int firstResult, int maxResults) {
+            this.hql = hql;
+            this.selectionShape = selectionShape;
+            this.params = params;
+            this.firstResult = firstResult;
+            this.maxResults = maxResults;
+            this.hashCode = 31 * (31 * (31 * (31 * hql.hashCode() + selectionShape.hashCode())
+                    + params.hashCode()) + firstResult) + maxResults;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof QueryResultKey)) {
+                return false;
+            }
+            QueryResultKey other = (QueryResultKey) obj;
+            return hashCode == other.hashCode
+                    && firstResult == other.firstResult
+                    && maxResults == other.maxResults
+                    && hql.equals(other.hql)
+                    && selectionShape.equals(other.selectionShape)
+                    && params.equals(other.params);
+        }
+    }
+
+    /**
+     * Invalidates the tables of the changed entities after the transaction was committed
+     * or rolled back. The tables of changed collections are invalidated when the collection
+     * is flushed and again once the transaction is completed, collections don't have
+     * post commit events.
+     */
+    private static final class InvalidatingListener implements PostCommitInsertEventListener,
+            PostCommitUpdateEventListener, PostCommitDeleteEventListener,
+            PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+            PostCollectionRemoveEventListener {
+        private static final long serialVersionUID = 1L;
+
+        private final transient QueryResultCache cache;
+
+        InvalidatingListener(QueryResultCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return true;
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            cache.invalidate(Arrays.asList(event.getPersister().getQuerySpaces()));
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            cache.invalidate(Arrays.asList(event.getPersister().getQuerySpaces()));
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            cache.invalidate(Arrays.asList(event.getPersister().getQuerySpaces()));
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+            cache.invalidate(Arrays.asList(event.getPersister().getQuerySpaces()));
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+            cache.invalidate(Arrays.asList(event.getPersister().getQuerySpaces()));
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+            cache.invalidate(Arrays.asList(event.getPersister().getQuerySpaces()));
+        }
+
+        @Override
+        public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+            invalidateCollection(event);
+        }
+
+        @Override
+        public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+            invalidateCollection(event);
+        }
+
+        @Override
+        public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+            invalidateCollection(event);
+        }
+
+        /**
+         * The role of a new collection is not set yet during the event,
+         * the persister is taken from its entry in the persistence context.
+         */
+        private void invalidateCollection(AbstractCollectionEvent event) {
+            CollectionEntry entry = event.getSession().getPersistenceContext().getCollectionEntry(event.getCollection());
+            CollectionPersister persister = entry.getCurrentPersister();
+            if (persister == null) {
+                persister = entry.getLoadedPersister();
+            }
+            final List<Serializable> querySpaces = Arrays.asList(persister.getCollectionSpaces());
+            cache.invalidate(querySpaces);
+            event.getSession().getActionQueue().registerProcess(new AfterTransactionCompletionProcess() {
+                @Override
+                public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+                    cache.invalidate(querySpaces);
+                }
+            });
+        }
+    }
+}
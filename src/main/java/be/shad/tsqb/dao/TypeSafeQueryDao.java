@@ -17,8 +17,17 @@ package be.shad.tsqb.dao;
 
 import java.util.List;
 
+import be.shad.tsqb.dao.result.CountedQueryResult;
+import be.shad.tsqb.dao.result.KeysetPage;
+import be.shad.tsqb.dao.result.QueryBatchResult;
 import be.shad.tsqb.dao.result.QueryResult;
+import be.shad.tsqb.dao.result.QueryResultCursor;
+import be.shad.tsqb.query.PreparedQueryParameters;
+import be.shad.tsqb.query.PreparedTypeSafeQuery;
+import be.shad.tsqb.query.TypeSafeDeleteQuery;
+import be.shad.tsqb.query.TypeSafeDmlQuery;
 import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeUpdateQuery;
 
 public interface TypeSafeQueryDao {
 
@@ -27,6 +36,16 @@ public interface TypeSafeQueryDao {
      */
     TypeSafeRootQuery createQuery();
 
+    /**
+     * Creates a fresh bulk update query, executed using {@link #executeUpdate(TypeSafeDmlQuery)}.
+     */
+    TypeSafeUpdateQuery createUpdateQuery();
+
+    /**
+     * Creates a fresh bulk delete query, executed using {@link #executeUpdate(TypeSafeDmlQuery)}.
+     */
+    TypeSafeDeleteQuery createDeleteQuery();
+
     /**
      * Delegates to {@link #doQuery(TypeSafeRootQuery, HibernateQueryConfigurer)} without configurer.
      */
@@ -60,4 +79,108 @@ public interface TypeSafeQueryDao {
      * Delegates to {@link #doQuery(TypeSafeRootQuery)} and returns the results.
      */
     <T> List<T> doQueryResults(TypeSafeRootQuery query, HibernateQueryConfigurer configurer);
+
+    /**
+     * Delegates to {@link #doQueries(List, HibernateQueryConfigurer)} without configurer.
+     */
+    QueryBatchResult doQueries(List<TypeSafeRootQuery> queries);
+
+    /**
+     * Executes a batch of independent queries and returns their results in the order of the queries.
+     * A failing query doesn't stop the other queries, its exception is kept in the batch result instead.
+     * <p>
+     * Each query is executed on a new read only session, so a failing query doesn't
+     * affect the transaction of the others. These sessions don't see changes which
+     * were not committed yet. The configurer hooks are called for each of them.
+     * Batched collection params are listed one chunk after the other on the session of the query.
+     * <p>
+     * The queries are executed at the same time when a chunk executor is available,
+     * otherwise they are executed one after the other.
+     */
+    QueryBatchResult doQueries(List<TypeSafeRootQuery> queries, HibernateQueryConfigurer configurer);
+
+    /**
+     * Delegates to {@link #doQueryScroll(TypeSafeRootQuery, HibernateQueryConfigurer)} without configurer.
+     */
+    <T> QueryResultCursor<T> doQueryScroll(TypeSafeRootQuery query);
+
+    /**
+     * Same as {@link #doQuery(TypeSafeRootQuery, HibernateQueryConfigurer)}, but scrolls
+     * the results forward only and transforms them while they are iterated,
+     * so large results don't need to be kept in memory.
+     * <p>
+     * The configurer's afterQuery is called when the cursor is closed.
+     * Batched collection parameters are not supported.
+     *
+     * @see QueryResultCursor
+     */
+    <T> QueryResultCursor<T> doQueryScroll(TypeSafeRootQuery query, HibernateQueryConfigurer configurer);
+
+    /**
+     * Delegates to {@link #doQueryCounted(TypeSafeRootQuery, HibernateQueryConfigurer)} without configurer.
+     */
+    <T> CountedQueryResult<T> doQueryCounted(TypeSafeRootQuery query);
+
+    /**
+     * Same as {@link #doQuery(TypeSafeRootQuery, HibernateQueryConfigurer)}, but also counts
+     * the total amount of results, ignoring the first/max results of the query.
+     * <p>
+     * The count query is derived from the query: the projections are replaced by count(*),
+     * the ordering is left out and fetch joins become plain joins. Grouped or aggregated
+     * queries and queries which are distinct over multiple values are counted by
+     * scrolling to the last selected row instead.
+     * <p>
+     * By default, the count query is executed after the query on the same session, so the
+     * total count includes the changes of the session, the same as the results do.
+     * An implementation may offer to execute the count query at the same time as the query,
+     * on a separate session, in which case the total count is taken from a separate snapshot.
+     * Batched collection parameters are not supported.
+     */
+    <T> CountedQueryResult<T> doQueryCounted(TypeSafeRootQuery query, HibernateQueryConfigurer configurer);
+
+    /**
+     * Delegates to {@link #doQueryPage(TypeSafeRootQuery, int, HibernateQueryConfigurer)} without configurer.
+     */
+    <T> KeysetPage<T> doQueryPage(TypeSafeRootQuery query, int pageSize);
+
+    /**
+     * Fetches a page of at most pageSize results using keyset paging, starting after
+     * the {@link TypeSafeRootQuery#setKeysetAfter(Object...) keyset} of the query.
+     * The ordered values are selected as well, to return the key of the last row
+     * as continuation token for the next page.
+     * <p>
+     * Each row must represent one result, collection subselects can't be paged
+     * this way. The first/max results of the query and batched collection
+     * parameters are not supported.
+     */
+    <T> KeysetPage<T> doQueryPage(TypeSafeRootQuery query, int pageSize, HibernateQueryConfigurer configurer);
+
+    /**
+     * Delegates to {@link #doQuery(PreparedTypeSafeQuery, PreparedQueryParameters, HibernateQueryConfigurer)} without configurer.
+     */
+    <T> QueryResult<T> doQuery(PreparedTypeSafeQuery query, PreparedQueryParameters parameters);
+
+    /**
+     * Same as {@link #doQuery(TypeSafeRootQuery, HibernateQueryConfigurer)}, but uses the hql
+     * and result transformer of the prepared query, only the parameters are bound.
+     *
+     * @see TypeSafeRootQuery#prepare()
+     */
+    <T> QueryResult<T> doQuery(PreparedTypeSafeQuery query, PreparedQueryParameters parameters,
+            HibernateQueryConfigurer configurer);
+
+    /**
+     * Delegates to {@link #executeUpdate(TypeSafeDmlQuery, HibernateQueryConfigurer)} without configurer.
+     */
+    int executeUpdate(TypeSafeDmlQuery query);
+
+    /**
+     * Executes the bulk update or delete statement on the current session.
+     * <p>
+     * When a batched param is used, the statement is executed once per chunk,
+     * sequentially on the current session, to remain in the same transaction.
+     *
+     * @return the amount of updated or deleted entities.
+     */
+    int executeUpdate(TypeSafeDmlQuery query, HibernateQueryConfigurer configurer);
 }
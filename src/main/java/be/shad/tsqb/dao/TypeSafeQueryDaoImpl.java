@@ -16,27 +16,78 @@
 package be.shad.tsqb.dao;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
-import org.hibernate.query.Query;
+import javax.transaction.Synchronization;
+
+import org.hibernate.Filter;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.engine.query.spi.HQLQueryPlan;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.Query;
+import org.hibernate.transform.ResultTransformer;
 
 import be.shad.tsqb.CollectionNamedParameter;
 import be.shad.tsqb.NamedParameter;
+import be.shad.tsqb.dao.metrics.QueryExecutionMetrics;
+import be.shad.tsqb.dao.metrics.QueryMetricsHistogram;
+import be.shad.tsqb.dao.metrics.QueryMetricsListener;
+import be.shad.tsqb.dao.metrics.QueryPhase;
+import be.shad.tsqb.dao.result.CountedQueryResult;
+import be.shad.tsqb.dao.result.KeysetPage;
+import be.shad.tsqb.dao.result.QueryBatchResult;
 import be.shad.tsqb.dao.result.QueryResult;
+import be.shad.tsqb.dao.result.QueryResultCursor;
+import be.shad.tsqb.dao.staging.InValueStaging;
 import be.shad.tsqb.helper.TypeSafeQueryHelper;
 import be.shad.tsqb.helper.TypeSafeQueryHelperImpl;
 import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.PreparedQueryParameters;
+import be.shad.tsqb.query.PreparedTypeSafeQuery;
+import be.shad.tsqb.query.TypeSafeDeleteQuery;
+import be.shad.tsqb.query.TypeSafeDeleteQueryImpl;
+import be.shad.tsqb.query.TypeSafeDmlQuery;
 import be.shad.tsqb.query.TypeSafeRootQuery;
 import be.shad.tsqb.query.TypeSafeRootQueryImpl;
+import be.shad.tsqb.query.TypeSafeRootQueryInternal;
+import be.shad.tsqb.query.TypeSafeUpdateQuery;
+import be.shad.tsqb.query.TypeSafeUpdateQueryImpl;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
+import be.shad.tsqb.selection.ParallelTransformable;
+import be.shad.tsqb.selection.TypeSafeQueryProjections;
+import be.shad.tsqb.selection.TypeSafeQueryResultTransformer;
+import be.shad.tsqb.values.HqlQueryBuilderParams;
+import be.shad.tsqb.values.HqlQueryBuilderParamsImpl;
 
 public class TypeSafeQueryDaoImpl implements TypeSafeQueryDao {
+    private static final int MIN_TRANSFORM_CHUNK_SIZE = 1024;
+
     private final SessionFactory sessionFactory;
     private final TypeSafeQueryHelper typeSafeQueryHelper;
+    private QueryPlanCache queryPlanCache;
+    private QueryResultCache queryResultCache;
+    private InValueStaging inValueStaging;
+    private InValuePadding inValuePadding;
+    private ExecutorService chunkExecutor;
+    private QueryMetricsListener metricsListener;
+    private ForkJoinPool transformPool;
+    private int parallelTransformThreshold = 10000;
+    private boolean countingConcurrently;
 
     public TypeSafeQueryDaoImpl(SessionFactory sessionFactory,
             TypeSafeQueryHelper typeSafeQueryHelper) {
@@ -48,6 +99,159 @@ public class TypeSafeQueryDaoImpl implements TypeSafeQueryDao {
         this(sessionFactory, new TypeSafeQueryHelperImpl(sessionFactory));
     }
 
+    /**
+     * Sets the cache to reuse query plans of previously executed queries with.
+     * No plans are cached when it is null, which is the default.
+     */
+    public void setQueryPlanCache(QueryPlanCache queryPlanCache) {
+        this.queryPlanCache = queryPlanCache;
+    }
+
+    public QueryPlanCache getQueryPlanCache() {
+        return queryPlanCache;
+    }
+
+    /**
+     * Sets the cache for the results of queries which are {@link TypeSafeRootQuery#setCacheable(boolean) cacheable}.
+     * Cached results are returned without calling the configurer. No results are cached
+     * when it is null, which is the default.
+     * <p>
+     * The cache should be {@link QueryResultCache#register(SessionFactory) registered}
+     * to the session factory, to invalidate results when entities are changed.
+     */
+    public void setQueryResultCache(QueryResultCache queryResultCache) {
+        this.queryResultCache = queryResultCache;
+    }
+
+    public QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
+    /**
+     * Sets the staging to use for collection params with more values than its threshold.
+     * The values are inserted in the staging table and the param is replaced by a subquery,
+     * instead of binding all values or listing the query per chunk of a batched param.
+     * No values are staged when it is null, which is the default.
+     * <p>
+     * The values of scrolled queries are never staged.
+     *
+     * @see InValueStaging
+     */
+    public void setInValueStaging(InValueStaging inValueStaging) {
+        this.inValueStaging = inValueStaging;
+    }
+
+    public InValueStaging getInValueStaging() {
+        return inValueStaging;
+    }
+
+    /**
+     * Sets the padding to apply to the values bound to collection params, including
+     * the chunks of a batched param, to limit the amount of distinct statements.
+     * No values are padded when it is null, which is the default.
+     *
+     * @see InValuePadding
+     */
+    public void setInValuePadding(InValuePadding inValuePadding) {
+        this.inValuePadding = inValuePadding;
+    }
+
+    public InValuePadding getInValuePadding() {
+        return inValuePadding;
+    }
+
+    /**
+     * Sets the executor to list the chunks of a batched collection param in parallel.
+     * When it is null, which is the default, the chunks are listed one after the other
+     * on the current session.
+     * <p>
+     * Each chunk is listed on a new read only session, which means
+     * changes which were not committed yet are not visible to the query
+     * and selected entities are detached once the results are returned.
+     * The configurer hooks are called for each of these sessions.
+     * The executor is also used to execute query batches and, when
+     * {@link #setCountingConcurrently(boolean) enabled}, the count queries.
+     * <p>
+     * The pool size of the executor limits the amount of connections used at the same time,
+     * on a jvm which supports it an executor using virtual threads can be used.
+     */
+    public void setChunkExecutor(ExecutorService chunkExecutor) {
+        this.chunkExecutor = chunkExecutor;
+    }
+
+    public ExecutorService getChunkExecutor() {
+        return chunkExecutor;
+    }
+
+    /**
+     * Sets the listener to notify with the timings and counts of each executed query,
+     * including paged queries, bulk statements, scrolled queries and the count queries
+     * of counted results. A scrolled query is passed to the listener when its cursor was
+     * iterated to the end or closed, with the time spent reading and transforming the rows.
+     * The count query of a counted result is passed separately, with a row count of 1,
+     * or the amount of scrolled rows when it is counted by rows.
+     * No metrics are collected when it is null, which is the default.
+     *
+     * @see QueryMetricsHistogram
+     */
+    public void setMetricsListener(QueryMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    public QueryMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Sets the pool to transform large results with in parallel. Only flat selections,
+     * where each row is a result on its own, are transformed in parallel, the order
+     * of the results is kept. When it is null, which is the default, results
+     * are transformed on the thread which executed the query.
+     * <p>
+     * The selection value transformers must be thread safe when a pool is used.
+     *
+     * @see #setParallelTransformThreshold(int)
+     */
+    public void setTransformPool(ForkJoinPool transformPool) {
+        this.transformPool = transformPool;
+    }
+
+    public ForkJoinPool getTransformPool() {
+        return transformPool;
+    }
+
+    /**
+     * Sets the minimum amount of rows to transform in parallel, 10000 by default.
+     * Smaller results are transformed faster on the current thread.
+     */
+    public void setParallelTransformThreshold(int parallelTransformThreshold) {
+        this.parallelTransformThreshold = parallelTransformThreshold;
+    }
+
+    public int getParallelTransformThreshold() {
+        return parallelTransformThreshold;
+    }
+
+    /**
+     * Sets whether the count query of a counted result is executed at the same time as
+     * the query, using the chunk executor. False by default, the count query is executed
+     * after the query on the current session then, and it is also executed that way when
+     * no chunk executor is set.
+     * <p>
+     * The concurrent count query is executed on a new read only session, so the total count
+     * is taken from a separate snapshot: it doesn't include the changes which were not
+     * committed yet and it may include changes committed while the query was executed.
+     *
+     * @see #setChunkExecutor(ExecutorService)
+     */
+    public void setCountingConcurrently(boolean countingConcurrently) {
+        this.countingConcurrently = countingConcurrently;
+    }
+
+    public boolean isCountingConcurrently() {
+        return countingConcurrently;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -56,6 +260,22 @@ public class TypeSafeQueryDaoImpl implements TypeSafeQueryDao {
         return new TypeSafeRootQueryImpl(typeSafeQueryHelper);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeUpdateQuery createUpdateQuery() {
+        return new TypeSafeUpdateQueryImpl(typeSafeQueryHelper);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeDeleteQuery createDeleteQuery() {
+        return new TypeSafeDeleteQueryImpl(typeSafeQueryHelper);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -85,10 +305,286 @@ public class TypeSafeQueryDaoImpl implements TypeSafeQueryDao {
      */
     @Override
     public <T> QueryResult<T> doQuery(TypeSafeRootQuery tsqbQuery, HibernateQueryConfigurer configurer) {
-        HqlQuery hqlQuery = tsqbQuery.toHqlQuery();
+        return doQuery(sessionFactory.getCurrentSession(), true, tsqbQuery, configurer);
+    }
 
-        Session currentSession = sessionFactory.getCurrentSession();
-        Query<Object[]> query = currentSession.createQuery(hqlQuery.getHql(), Object[].class);
+    /**
+     * Lists the results of the query on the session, using the result cache if applicable.
+     * The chunks of a batched param are only listed in parallel when allowed,
+     * the sessions of a query batch already run on the chunk executor.
+     */
+    private <T> QueryResult<T> doQuery(Session session, boolean chunksInParallel,
+            TypeSafeRootQuery tsqbQuery, HibernateQueryConfigurer configurer) {
+        QueryExecutionMetrics metrics = startMetrics();
+        HqlQuery hqlQuery = toHqlQuery(tsqbQuery, metrics);
+        phaseCompleted(metrics, QueryPhase.HqlGeneration);
+        if (queryResultCache != null && tsqbQuery.isCacheable()) {
+            return doQueryCached(session, chunksInParallel, tsqbQuery, hqlQuery, configurer, metrics);
+        }
+        return doQuery(session, chunksInParallel, hqlQuery, tsqbQuery.getFirstResult(),
+                tsqbQuery.getMaxResults(), configurer, metrics);
+    }
+
+    /**
+     * Returns the cached results if any, otherwise lists the results and caches them.
+     * Cache hits are not executions, the metrics are not passed to the listener for them.
+     */
+    private <T> QueryResult<T> doQueryCached(Session session, boolean chunksInParallel,
+            TypeSafeRootQuery tsqbQuery, HqlQuery hqlQuery,
+            HibernateQueryConfigurer configurer, QueryExecutionMetrics metrics) {
+        String hql = hqlQuery.getHql();
+        List<Object> selectionShape = ((TypeSafeRootQueryInternal) tsqbQuery).getProjections().getSelectionShape();
+        List<Object> params = new ArrayList<>(hqlQuery.getParams().size());
+        for(Object param: hqlQuery.getParams()) {
+            params.add(param instanceof NamedParameter ? ((NamedParameter) param).getValue(): param);
+        }
+        int firstResult = tsqbQuery.getFirstResult();
+        int maxResults = tsqbQuery.getMaxResults();
+        List<T> results = queryResultCache.get(hql, selectionShape, params, firstResult, maxResults);
+        if (results != null) {
+            return new QueryResult<>(results);
+        }
+        long generation = queryResultCache.getGeneration();
+        QueryResult<T> result = doQuery(session, chunksInParallel, hqlQuery,
+                firstResult, maxResults, configurer, metrics);
+        return new QueryResult<>(queryResultCache.put(hql, selectionShape, params, firstResult,
+                maxResults, getQuerySpaces(hql), generation, result.getResults()));
+    }
+
+    /**
+     * The tables used by the hql, according to the hibernate query plan.
+     */
+    private Set<String> getQuerySpaces(String hql) {
+        HQLQueryPlan plan = ((SessionFactoryImplementor) sessionFactory).getQueryPlanCache().
+                getHQLQueryPlan(hql, false, Collections.<String, Filter>emptyMap());
+        Set<String> querySpaces = new HashSet<>();
+        for(Object querySpace: plan.getQuerySpaces()) {
+            querySpaces.add(querySpace.toString());
+        }
+        return querySpaces;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> QueryResult<T> doQuery(PreparedTypeSafeQuery query, PreparedQueryParameters parameters) {
+        return doQuery(query, parameters, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> QueryResult<T> doQuery(PreparedTypeSafeQuery query, PreparedQueryParameters parameters,
+            HibernateQueryConfigurer configurer) {
+        int firstResult = parameters.getFirstResult() >= 0 ? parameters.getFirstResult(): query.getFirstResult();
+        int maxResults = parameters.getMaxResults() > 0 ? parameters.getMaxResults(): query.getMaxResults();
+        QueryExecutionMetrics metrics = startMetrics();
+        HqlQuery hqlQuery = query.toHqlQuery(parameters);
+        if (metrics != null) {
+            metrics.setQueryFingerprint(query.getFingerprint());
+        }
+        phaseCompleted(metrics, QueryPhase.HqlGeneration);
+        return doQuery(hqlQuery, firstResult, maxResults, configurer, metrics);
+    }
+
+    /**
+     * Lists the results of the hql query on the current session.
+     */
+    private <T> QueryResult<T> doQuery(HqlQuery hqlQuery, int firstResult, int maxResults,
+            HibernateQueryConfigurer configurer, QueryExecutionMetrics metrics) {
+        return doQuery(sessionFactory.getCurrentSession(), true, hqlQuery,
+                firstResult, maxResults, configurer, metrics);
+    }
+
+    /**
+     * Lists the results of the hql query on the session and transforms them.
+     * The metrics are passed to the listener afterwards, when they are not null.
+     */
+    private <T> QueryResult<T> doQuery(Session session, boolean chunksInParallel, HqlQuery hqlQuery,
+            int firstResult, int maxResults, HibernateQueryConfigurer configurer,
+            QueryExecutionMetrics metrics) {
+        if (metrics != null) {
+            metrics.setHqlQuery(hqlQuery);
+            metrics.setSession(session);
+        }
+        try {
+            return doQueryStaged(session, chunksInParallel, hqlQuery,
+                    firstResult, maxResults, configurer, metrics);
+        } catch (RuntimeException e) {
+            if (metrics != null) {
+                metrics.setFailed(true);
+            }
+            throw e;
+        } finally {
+            queryExecuted(metrics);
+        }
+    }
+
+    /**
+     * Stages the large collection params if applicable and lists the results,
+     * the staged values are removed afterwards.
+     */
+    private <T> QueryResult<T> doQueryStaged(Session session, boolean chunksInParallel, HqlQuery hqlQuery,
+            int firstResult, int maxResults, HibernateQueryConfigurer configurer,
+            QueryExecutionMetrics metrics) {
+        List<String> stageIds = stageInValues(session, hqlQuery);
+        RuntimeException failure = null;
+        try {
+            Query<Object[]> query = session.createQuery(hqlQuery.getHql(), Object[].class);
+            CollectionNamedParameter chunkedParam = bindParameters(query, hqlQuery);
+            applyResultsRange(query, firstResult, maxResults);
+            phaseCompleted(metrics, QueryPhase.ParameterBinding);
+
+            // other sessions don't see the staged values, list the chunks on this session then:
+            if (chunkedParam != null && chunkExecutor != null && chunksInParallel && stageIds.isEmpty()) {
+                return new QueryResult<>(this.<T>listAllInParallel(hqlQuery, firstResult,
+                        maxResults, chunkedParam, configurer, metrics));
+            }
+            List<T> results = null;
+            if (configurer != null) {
+                configurer.beforeQuery(session);
+                configurer.configureQuery(query);
+                try {
+                    results = listAll(query, hqlQuery, chunkedParam, metrics);
+                } finally {
+                    configurer.afterQuery(session);
+                }
+            } else {
+                results = listAll(query, hqlQuery, chunkedParam, metrics);
+            }
+            return new QueryResult<>(results);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            unstageInValues(session, stageIds, failure);
+        }
+    }
+
+    /**
+     * Stages the large collection params of the hql query when staging is enabled.
+     */
+    private List<String> stageInValues(Session session, HqlQuery hqlQuery) {
+        if (inValueStaging == null) {
+            return Collections.emptyList();
+        }
+        return inValueStaging.stage(session, hqlQuery);
+    }
+
+    /**
+     * Deletes the staged values. When the query failed, a failure to delete them
+     * is added as suppressed exception, so it doesn't hide the failure of the query,
+     * for example when the failed query aborted the transaction.
+     */
+    private void unstageInValues(Session session, List<String> stageIds, RuntimeException failure) {
+        if (stageIds.isEmpty()) {
+            return;
+        }
+        try {
+            inValueStaging.unstage(session, stageIds);
+        } catch (RuntimeException e) {
+            if (failure == null) {
+                throw e;
+            }
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Invalidates the cached results using the query spaces now, and again after the
+     * transaction completed, to drop results which were queried in the mean time.
+     */
+    private void invalidateCachedResults(Session session, final Set<String> querySpaces) {
+        final QueryResultCache cache = queryResultCache;
+        cache.invalidate(querySpaces);
+        session.getTransaction().registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                cache.invalidate(querySpaces);
+            }
+        });
+    }
+
+    /**
+     * Creates the metrics of an execution when a listener is set, null otherwise.
+     */
+    private QueryExecutionMetrics startMetrics() {
+        return metricsListener == null ? null: new QueryExecutionMetrics();
+    }
+
+    private void phaseCompleted(QueryExecutionMetrics metrics, QueryPhase phase) {
+        if (metrics != null) {
+            metrics.phaseCompleted(phase);
+        }
+    }
+
+    private void queryExecuted(QueryExecutionMetrics metrics) {
+        if (metrics != null) {
+            metricsListener.queryExecuted(metrics);
+        }
+    }
+
+    /**
+     * Sets the first/max results when they were set.
+     */
+    private void applyResultsRange(Query<?> query, int firstResult, int maxResults) {
+        if (firstResult >= 0) {
+            query.setFirstResult(firstResult);
+        }
+        if (maxResults > 0) {
+            query.setMaxResults(maxResults);
+        }
+    }
+
+    /**
+     * Converts the query to an hql query. When a plan cache is available, the plan is looked
+     * up using the fingerprint of the query, the hql isn't rendered when a plan was cached
+     * and the result transformer of the plan is reused when it is shared.
+     * The fingerprint is also used as the query shape id of the metrics.
+     */
+    private HqlQuery toHqlQuery(TypeSafeRootQuery tsqbQuery, QueryExecutionMetrics metrics) {
+        if (queryPlanCache == null && metrics == null) {
+            return tsqbQuery.toHqlQuery();
+        }
+        QueryFingerprint fingerprint = tsqbQuery.getFingerprint();
+        if (metrics != null) {
+            metrics.setQueryFingerprint(fingerprint);
+        }
+        if (queryPlanCache == null) {
+            return tsqbQuery.toHqlQuery();
+        }
+        TypeSafeQueryProjections projections = ((TypeSafeRootQueryInternal) tsqbQuery).getProjections();
+        QueryPlan plan = queryPlanCache.get(fingerprint);
+        if (plan != null) {
+            HqlQuery hqlQuery = plan.toHqlQuery(fingerprint);
+            if (!plan.isResultTransformerShared()) {
+                hqlQuery.setResultTransformer(projections.getResultTransformer());
+            }
+            return hqlQuery;
+        }
+        PlanningHqlQueryBuilderParams params = new PlanningHqlQueryBuilderParams();
+        HqlQuery hqlQuery = ((TypeSafeRootQueryInternal) tsqbQuery).toHqlQuery(params);
+        hqlQuery.setResultTransformer(projections.getResultTransformer());
+        plan = QueryPlan.create(hqlQuery, fingerprint, params, projections.isResultTransformerShareable());
+        if (plan != null) {
+            queryPlanCache.put(fingerprint, plan);
+        }
+        return hqlQuery;
+    }
+
+    /**
+     * Binds the params of the hql query to the hibernate query,
+     * except for the batched param which is bound per chunk.
+     *
+     * @return the batched param if one was used, null otherwise.
+     */
+    private CollectionNamedParameter bindParameters(Query<?> query, HqlQuery hqlQuery) {
         int position = 0;
         CollectionNamedParameter chunkedParam = null;
         for(Object param: hqlQuery.getParams()) {
@@ -97,13 +593,14 @@ public class TypeSafeQueryDaoImpl implements TypeSafeQueryDao {
                 if (isChunkedParam(named)) {
                     if (chunkedParam != null) {
                         throw new IllegalStateException(String.format(
-                                "More than one batched param [%s, %s] was used in query [%s].",
+                                "More than one batched param [%s, %s] was used in query [%s], "
+                                + "stage the values using an InValueStaging instead.",
                                 chunkedParam.getName(), named.getName(), query.getQueryString()));
                     }
                     // remember batched param to bind iterate and bind chunks later:
                     chunkedParam = (CollectionNamedParameter) named;
                 } else if (named.getValue() instanceof Collection) {
-                    query.setParameterList(named.getName(), (Collection<?>) named.getValue());
+                    bindParameterList(query, named, (Collection<?>) named.getValue());
                 } else {
                     query.setParameter(named.getName(), named.getValue());
                 }
@@ -111,26 +608,35 @@ public class TypeSafeQueryDaoImpl implements TypeSafeQueryDao {
                 query.setParameter(position++, param);
             }
         }
-        if (tsqbQuery.getFirstResult() >= 0) {
-            query.setFirstResult(tsqbQuery.getFirstResult());
+        return chunkedParam;
+    }
+
+    /**
+     * Binds the values of a collection param, padded if an in value padding is set.
+     * The values of a param with a batch size are not padded past the batch size,
+     * the param would be batched otherwise.
+     */
+    private void bindParameterList(Query<?> query, NamedParameter named, Collection<?> values) {
+        if (inValuePadding == null) {
+            query.setParameterList(named.getName(), values);
+            return;
         }
-        if (tsqbQuery.getMaxResults() > 0) {
-            query.setMaxResults(tsqbQuery.getMaxResults());
+        int paddedSize = inValuePadding.getPaddedSize(values.size());
+        if (named instanceof CollectionNamedParameter && ((CollectionNamedParameter) named).hasBatchSize()) {
+            paddedSize = Math.min(paddedSize, ((CollectionNamedParameter) named).getBatchSize());
         }
+        query.setParameterList(named.getName(), inValuePadding.pad(values, paddedSize));
+    }
 
-        List<T> results = null;
-        if (configurer != null) {
-            configurer.beforeQuery(currentSession);
-            configurer.configureQuery(query);
-            try {
-                results = listAll(query, hqlQuery, chunkedParam);
-            } finally {
-                configurer.afterQuery(currentSession);
-            }
+    /**
+     * Binds a chunk of the batched param, padded to the batch size if an in value padding is set.
+     */
+    private void bindChunk(Query<?> query, CollectionNamedParameter chunkedParam, List<Object> chunk) {
+        if (inValuePadding == null) {
+            query.setParameterList(chunkedParam.getName(), chunk);
         } else {
-            results = listAll(query, hqlQuery, chunkedParam);
+            query.setParameterList(chunkedParam.getName(), inValuePadding.pad(chunk, chunkedParam.getBatchSize()));
         }
-        return new QueryResult<>(results);
     }
 
     /**
@@ -149,31 +655,145 @@ public class TypeSafeQueryDaoImpl implements TypeSafeQueryDao {
     /**
      * Lists the same query with an updated collection in the named param for the batched named param.
      */
-    @SuppressWarnings("unchecked")
-    private <T> List<T> listAll(Query<Object[]> query, HqlQuery hqlQuery, CollectionNamedParameter chunkedParam) {
+    private <T> List<T> listAll(Query<Object[]> query, HqlQuery hqlQuery,
+            CollectionNamedParameter chunkedParam, QueryExecutionMetrics metrics) {
         List<Object[]> results;
+        int chunkCount = 1;
         if (chunkedParam == null) {
-        	results = query.getResultList();
+            results = query.getResultList();
         } else {
-        	results = new LinkedList<>();
-	        int p = chunkedParam.getBatchSize();
-            List<Object> values = new ArrayList<>(p);
-            Iterator<?> it = chunkedParam.getValue().iterator();
-            while (it.hasNext()) {
-                values.add(it.next());
-                if (values.size() == p || !it.hasNext()) {
-                    query.setParameterList(chunkedParam.getName(), values);
-                    results.addAll(query.getResultList());
-                    values.clear();
-                }
+            results = new LinkedList<>();
+            List<List<Object>> chunks = splitInChunks(chunkedParam);
+            for(List<Object> chunk: chunks) {
+                bindChunk(query, chunkedParam, chunk);
+                results.addAll(query.getResultList());
             }
+            chunkCount = chunks.size();
         }
+        return transformResults(hqlQuery, results, chunkCount, metrics);
+    }
 
-        if (hqlQuery.getResultTransformer() != null) {
-            return (List<T>) hqlQuery.getResultTransformer().transformList(results);
-        } else {
+    /**
+     * Lists each chunk of the batched named param on its own session using the chunk executor.
+     * The results are merged in the order of the chunks before they are transformed.
+     */
+    private <T> List<T> listAllInParallel(final HqlQuery hqlQuery, final int firstResult, final int maxResults,
+            final CollectionNamedParameter chunkedParam, final HibernateQueryConfigurer configurer,
+            QueryExecutionMetrics metrics) {
+        List<Future<List<Object[]>>> futures = new ArrayList<>();
+        try {
+            for(final List<Object> chunk: splitInChunks(chunkedParam)) {
+                futures.add(chunkExecutor.submit(new Callable<List<Object[]>>() {
+                    @Override
+                    public List<Object[]> call() throws Exception {
+                        return listChunk(hqlQuery, firstResult, maxResults, chunkedParam, chunk, configurer);
+                    }
+                }));
+            }
+            List<Object[]> results = new ArrayList<>();
+            for(Future<List<Object[]>> future: futures) {
+                results.addAll(future.get());
+            }
+            return transformResults(hqlQuery, results, futures.size(), metrics);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format(
+                    "Interrupted while listing the batches of query [%s].", hqlQuery.getHql()), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(String.format(
+                    "Failed to list a batch of query [%s].", hqlQuery.getHql()), e.getCause());
+        } finally {
+            // stop the remaining batches when one of them failed:
+            for(Future<List<Object[]>> future: futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Lists one chunk of the batched named param using a new read only session.
+     */
+    private List<Object[]> listChunk(HqlQuery hqlQuery, int firstResult, int maxResults,
+            CollectionNamedParameter chunkedParam, List<Object> chunk,
+            HibernateQueryConfigurer configurer) {
+        Session session = sessionFactory.openSession();
+        try {
+            session.setDefaultReadOnly(true);
+            Query<Object[]> query = session.createQuery(hqlQuery.getHql(), Object[].class);
+            bindParameters(query, hqlQuery);
+            bindChunk(query, chunkedParam, chunk);
+            applyResultsRange(query, firstResult, maxResults);
+            if (configurer == null) {
+                return query.getResultList();
+            }
+            configurer.beforeQuery(session);
+            configurer.configureQuery(query);
+            try {
+                return query.getResultList();
+            } finally {
+                configurer.afterQuery(session);
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Splits the values of the batched param in chunks of at most the batch size.
+     */
+    private List<List<Object>> splitInChunks(CollectionNamedParameter chunkedParam) {
+        int p = chunkedParam.getBatchSize();
+        List<List<Object>> chunks = new ArrayList<>();
+        List<Object> values = new ArrayList<>(p);
+        Iterator<?> it = chunkedParam.getValue().iterator();
+        while (it.hasNext()) {
+            values.add(it.next());
+            if (values.size() == p || !it.hasNext()) {
+                chunks.add(values);
+                values = new ArrayList<>(p);
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Records the execution of the listed rows and the
+     * transformation of the rows in the metrics, if any.
+     */
+    private <T> List<T> transformResults(HqlQuery hqlQuery, List<?> rows,
+            int chunkCount, QueryExecutionMetrics metrics) {
+        if (metrics == null) {
+            return transformResults(hqlQuery, rows);
+        }
+        metrics.phaseCompleted(QueryPhase.Execution);
+        metrics.setChunkCount(chunkCount);
+        metrics.setRowCount(rows.size());
+        List<T> results = transformResults(hqlQuery, rows);
+        metrics.phaseCompleted(QueryPhase.Transformation);
+        metrics.setResultSize(results.size());
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> transformResults(HqlQuery hqlQuery, List<?> results) {
+        ResultTransformer resultTransformer = hqlQuery.getResultTransformer();
+        if (resultTransformer == null) {
             return (List<T>) results;
         }
+        if (transformPool != null && results.size() >= parallelTransformThreshold
+                && resultTransformer instanceof ParallelTransformable) {
+            ParallelTransformable parallelTransformer = (ParallelTransformable) resultTransformer;
+            if (parallelTransformer.isTransformableInParallel()) {
+                // a few chunks per worker, so workers which finish early can steal work:
+                int chunkSize = Math.max(MIN_TRANSFORM_CHUNK_SIZE,
+                        results.size() / (transformPool.getParallelism() * 4));
+                return (List<T>) parallelTransformer.transformListInParallel(results, transformPool, chunkSize);
+            }
+        }
+        return (List<T>) resultTransformer.transformList(results);
     }
 
     /**
@@ -194,4 +814,493 @@ public class TypeSafeQueryDaoImpl implements TypeSafeQueryDao {
         QueryResult<T> queryResult = doQuery(query, configurer);
         return queryResult.getResults();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public QueryBatchResult doQueries(List<TypeSafeRootQuery> queries) {
+        return doQueries(queries, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public QueryBatchResult doQueries(List<TypeSafeRootQuery> queries, final HibernateQueryConfigurer configurer) {
+        List<QueryResult<?>> results = new ArrayList<>(queries.size());
+        List<RuntimeException> failures = new ArrayList<>(queries.size());
+        if (chunkExecutor == null) {
+            for(TypeSafeRootQuery query: queries) {
+                try {
+                    results.add(doQueryOnNewSession(query, configurer));
+                    failures.add(null);
+                } catch (RuntimeException e) {
+                    results.add(null);
+                    failures.add(e);
+                }
+            }
+            return new QueryBatchResult(results, failures);
+        }
+
+        List<Future<QueryResult<Object>>> futures = new ArrayList<>(queries.size());
+        try {
+            for(final TypeSafeRootQuery query: queries) {
+                futures.add(chunkExecutor.submit(new Callable<QueryResult<Object>>() {
+                    @Override
+                    public QueryResult<Object> call() throws Exception {
+                        return doQueryOnNewSession(query, configurer);
+                    }
+                }));
+            }
+            for(Future<QueryResult<Object>> future: futures) {
+                try {
+                    results.add(future.get());
+                    failures.add(null);
+                } catch (ExecutionException e) {
+                    results.add(null);
+                    if (e.getCause() instanceof RuntimeException) {
+                        failures.add((RuntimeException) e.getCause());
+                    } else {
+                        failures.add(new IllegalStateException(String.format(
+                                "Failed to list query [%d] of the batch.", futures.indexOf(future)), e.getCause()));
+                    }
+                }
+            }
+            return new QueryBatchResult(results, failures);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for(Future<QueryResult<Object>> future: futures) {
+                future.cancel(true);
+            }
+            throw new IllegalStateException("Interrupted while listing a batch of queries.", e);
+        }
+    }
+
+    /**
+     * Lists the results of the query using a new read only session.
+     */
+    private <T> QueryResult<T> doQueryOnNewSession(TypeSafeRootQuery query, HibernateQueryConfigurer configurer) {
+        Session session = sessionFactory.openSession();
+        try {
+            session.setDefaultReadOnly(true);
+            return doQuery(session, false, query, configurer);
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> CountedQueryResult<T> doQueryCounted(TypeSafeRootQuery query) {
+        return doQueryCounted(query, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> CountedQueryResult<T> doQueryCounted(TypeSafeRootQuery tsqbQuery, final HibernateQueryConfigurer configurer) {
+        final TypeSafeRootQueryInternal internalQuery = (TypeSafeRootQueryInternal) tsqbQuery;
+        if (!countingConcurrently || chunkExecutor == null) {
+            QueryExecutionMetrics metrics = startMetrics();
+            HqlQuery hqlQuery = toHqlQuery(tsqbQuery, metrics);
+            phaseCompleted(metrics, QueryPhase.HqlGeneration);
+            QueryResult<T> result = doQuery(hqlQuery, tsqbQuery.getFirstResult(),
+                    tsqbQuery.getMaxResults(), configurer, metrics);
+
+            // counted on the same session, so the count agrees with the results:
+            QueryExecutionMetrics countMetrics = startMetrics();
+            HqlQuery countQuery = toCountQuery(internalQuery, countMetrics);
+            long count = count(sessionFactory.getCurrentSession(), countQuery,
+                    internalQuery.isCountedByRows(), configurer, countMetrics);
+            return new CountedQueryResult<>(result.getResults(), count);
+        }
+
+        final QueryExecutionMetrics countMetrics = startMetrics();
+        final HqlQuery countQuery = toCountQuery(internalQuery, countMetrics);
+        Future<Long> countFuture = chunkExecutor.submit(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                Session session = sessionFactory.openSession();
+                try {
+                    session.setDefaultReadOnly(true);
+                    return count(session, countQuery, internalQuery.isCountedByRows(),
+                            configurer, countMetrics);
+                } finally {
+                    session.close();
+                }
+            }
+        });
+        try {
+            QueryExecutionMetrics metrics = startMetrics();
+            HqlQuery hqlQuery = toHqlQuery(tsqbQuery, metrics);
+            phaseCompleted(metrics, QueryPhase.HqlGeneration);
+            QueryResult<T> result = doQuery(hqlQuery, tsqbQuery.getFirstResult(),
+                    tsqbQuery.getMaxResults(), configurer, metrics);
+            return new CountedQueryResult<>(result.getResults(), countFuture.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format(
+                    "Interrupted while counting the results of query [%s].", countQuery.getHql()), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(String.format(
+                    "Failed to count the results of query [%s].", countQuery.getHql()), e.getCause());
+        } finally {
+            countFuture.cancel(true);
+        }
+    }
+
+    /**
+     * Converts the query to its count query, ignoring the first/max results and the keyset.
+     */
+    private HqlQuery toCountQuery(TypeSafeRootQueryInternal query, QueryExecutionMetrics metrics) {
+        HqlQueryBuilderParams params = new HqlQueryBuilderParamsImpl();
+        params.setCountingRows(true);
+        HqlQuery countQuery = query.toHqlQuery(params);
+        if (metrics != null) {
+            metrics.setQueryFingerprint(query.getFingerprint().append("count"));
+        }
+        phaseCompleted(metrics, QueryPhase.HqlGeneration);
+        return countQuery;
+    }
+
+    /**
+     * Executes the count query on the session and passes the metrics to the listener,
+     * when they are not null. When counting by rows, the rows are scrolled to the last one,
+     * to avoid loading all of them, the scrolled rows are recorded as row count then.
+     */
+    private long count(Session session, HqlQuery countQuery, boolean countedByRows,
+            HibernateQueryConfigurer configurer, QueryExecutionMetrics metrics) {
+        if (metrics != null) {
+            metrics.setHqlQuery(countQuery);
+            metrics.setSession(session);
+            metrics.setChunkCount(1);
+        }
+        try {
+            long count = countStaged(session, countQuery, countedByRows, configurer, metrics);
+            if (metrics != null) {
+                metrics.setRowCount(countedByRows ? (int) count: 1);
+                metrics.setResultSize(1);
+            }
+            return count;
+        } catch (RuntimeException e) {
+            if (metrics != null) {
+                metrics.setFailed(true);
+            }
+            throw e;
+        } finally {
+            queryExecuted(metrics);
+        }
+    }
+
+    private long countStaged(Session session, HqlQuery countQuery, boolean countedByRows,
+            HibernateQueryConfigurer configurer, QueryExecutionMetrics metrics) {
+        List<String> stageIds = stageInValues(session, countQuery);
+        RuntimeException failure = null;
+        try {
+            Query<?> query = session.createQuery(countQuery.getHql());
+            CollectionNamedParameter chunkedParam = bindParameters(query, countQuery);
+            if (chunkedParam != null) {
+                throw new IllegalStateException(String.format(
+                        "Batched param [%s] can't be used when counting query [%s].",
+                        chunkedParam.getName(), query.getQueryString()));
+            }
+            phaseCompleted(metrics, QueryPhase.ParameterBinding);
+            if (configurer != null) {
+                configurer.beforeQuery(session);
+                configurer.configureQuery(query);
+            }
+            try {
+                long count;
+                if (!countedByRows) {
+                    count = ((Number) query.getSingleResult()).longValue();
+                } else {
+                    ScrollableResults rows = query.scroll(ScrollMode.SCROLL_INSENSITIVE);
+                    try {
+                        count = rows.last() ? rows.getRowNumber() + 1: 0;
+                    } finally {
+                        rows.close();
+                    }
+                }
+                phaseCompleted(metrics, QueryPhase.Execution);
+                return count;
+            } finally {
+                if (configurer != null) {
+                    configurer.afterQuery(session);
+                }
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            unstageInValues(session, stageIds, failure);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> KeysetPage<T> doQueryPage(TypeSafeRootQuery query, int pageSize) {
+        return doQueryPage(query, pageSize, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> KeysetPage<T> doQueryPage(TypeSafeRootQuery tsqbQuery, int pageSize, HibernateQueryConfigurer configurer) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Page size [%d] must be at least 1.", pageSize));
+        }
+        if (tsqbQuery.getFirstResult() > 0 || tsqbQuery.getMaxResults() > 0) {
+            throw new IllegalStateException("First/max results can't be used when keyset paging.");
+        }
+        QueryExecutionMetrics metrics = startMetrics();
+        TypeSafeRootQueryInternal internalQuery = (TypeSafeRootQueryInternal) tsqbQuery;
+        HqlQueryBuilderParams params = new HqlQueryBuilderParamsImpl();
+        params.setSelectingKeyset(true);
+        HqlQuery hqlQuery = internalQuery.toHqlQuery(params);
+        int keyLength = internalQuery.getOrderBys().getOrderedValues().size();
+        if (keyLength == 0) {
+            throw new IllegalStateException("Keyset paging requires the query to be ordered.");
+        }
+        if (metrics != null) {
+            metrics.setQueryFingerprint(tsqbQuery.getFingerprint().append("keyset"));
+        }
+        phaseCompleted(metrics, QueryPhase.HqlGeneration);
+        if (metrics != null) {
+            metrics.setHqlQuery(hqlQuery);
+            metrics.setSession(sessionFactory.getCurrentSession());
+        }
+        try {
+            return doQueryPage(hqlQuery, keyLength, pageSize, configurer, metrics);
+        } catch (RuntimeException e) {
+            if (metrics != null) {
+                metrics.setFailed(true);
+            }
+            throw e;
+        } finally {
+            queryExecuted(metrics);
+        }
+    }
+
+    /**
+     * Lists the page with one more row than the page size and
+     * strips the key values from the rows before transforming them.
+     */
+    private <T> KeysetPage<T> doQueryPage(HqlQuery hqlQuery, int keyLength, int pageSize,
+            HibernateQueryConfigurer configurer, QueryExecutionMetrics metrics) {
+        Session currentSession = sessionFactory.getCurrentSession();
+        List<String> stageIds = stageInValues(currentSession, hqlQuery);
+        RuntimeException failure = null;
+        try {
+            Query<Object[]> query = currentSession.createQuery(hqlQuery.getHql(), Object[].class);
+            CollectionNamedParameter chunkedParam = bindParameters(query, hqlQuery);
+            if (chunkedParam != null) {
+                throw new IllegalStateException(String.format(
+                        "Batched param [%s] can't be used when keyset paging query [%s].",
+                        chunkedParam.getName(), query.getQueryString()));
+            }
+            // fetch one more row to know whether there is a next page:
+            applyResultsRange(query, -1, pageSize + 1);
+            phaseCompleted(metrics, QueryPhase.ParameterBinding);
+
+            List<Object[]> rows;
+            if (configurer != null) {
+                configurer.beforeQuery(currentSession);
+                configurer.configureQuery(query);
+                try {
+                    rows = query.getResultList();
+                } finally {
+                    configurer.afterQuery(currentSession);
+                }
+            } else {
+                rows = query.getResultList();
+            }
+
+            Object[] nextKey = null;
+            if (rows.size() > pageSize) {
+                rows = rows.subList(0, pageSize);
+                Object[] lastRow = rows.get(pageSize - 1);
+                nextKey = Arrays.copyOfRange(lastRow, lastRow.length - keyLength, lastRow.length);
+            }
+
+            // strip the key values before transforming the rows:
+            List<Object> results = new ArrayList<>(rows.size());
+            for(Object[] row: rows) {
+                int length = row.length - keyLength;
+                if (length == 1 && hqlQuery.getResultTransformer() == null) {
+                    results.add(row[0]);
+                } else {
+                    results.add(Arrays.copyOf(row, length));
+                }
+            }
+            return new KeysetPage<>(this.<T>transformResults(hqlQuery, results, 1, metrics), nextKey);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            unstageInValues(currentSession, stageIds, failure);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> QueryResultCursor<T> doQueryScroll(TypeSafeRootQuery query) {
+        return doQueryScroll(query, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> QueryResultCursor<T> doQueryScroll(TypeSafeRootQuery tsqbQuery, HibernateQueryConfigurer configurer) {
+        QueryExecutionMetrics metrics = startMetrics();
+        HqlQuery hqlQuery = toHqlQuery(tsqbQuery, metrics);
+        phaseCompleted(metrics, QueryPhase.HqlGeneration);
+
+        Session currentSession = sessionFactory.getCurrentSession();
+        if (metrics != null) {
+            metrics.setHqlQuery(hqlQuery);
+            metrics.setSession(currentSession);
+            metrics.setChunkCount(1);
+        }
+        try {
+            Query<Object[]> query = currentSession.createQuery(hqlQuery.getHql(), Object[].class);
+            CollectionNamedParameter chunkedParam = bindParameters(query, hqlQuery);
+            if (chunkedParam != null) {
+                throw new IllegalStateException(String.format(
+                        "Batched param [%s] can't be used when scrolling query [%s].",
+                        chunkedParam.getName(), query.getQueryString()));
+            }
+            applyResultsRange(query, tsqbQuery.getFirstResult(), tsqbQuery.getMaxResults());
+            phaseCompleted(metrics, QueryPhase.ParameterBinding);
+
+            ResultTransformer resultTransformer = hqlQuery.getResultTransformer();
+            int[] resultIdentityIndexes = null;
+            if (resultTransformer instanceof TypeSafeQueryResultTransformer) {
+                resultIdentityIndexes = ((TypeSafeQueryResultTransformer) resultTransformer).
+                        getResultIdentityTupleIndexes();
+            }
+
+            ScrollableResults scrollableResults;
+            if (configurer != null) {
+                configurer.beforeQuery(currentSession);
+                configurer.configureQuery(query);
+                try {
+                    scrollableResults = query.scroll(ScrollMode.FORWARD_ONLY);
+                } catch (RuntimeException e) {
+                    configurer.afterQuery(currentSession);
+                    throw e;
+                }
+            } else {
+                scrollableResults = query.scroll(ScrollMode.FORWARD_ONLY);
+            }
+            // the rows are read and transformed while the cursor is iterated:
+            phaseCompleted(metrics, QueryPhase.Execution);
+            return new QueryResultCursor<>(scrollableResults, resultTransformer,
+                    resultIdentityIndexes, currentSession, configurer, metrics, metricsListener);
+        } catch (RuntimeException e) {
+            if (metrics != null) {
+                metrics.setFailed(true);
+                queryExecuted(metrics);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int executeUpdate(TypeSafeDmlQuery query) {
+        return executeUpdate(query, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int executeUpdate(TypeSafeDmlQuery tsqbQuery, HibernateQueryConfigurer configurer) {
+        QueryExecutionMetrics metrics = startMetrics();
+        HqlQuery hqlQuery = tsqbQuery.toHqlQuery();
+        phaseCompleted(metrics, QueryPhase.HqlGeneration);
+        if (metrics != null) {
+            metrics.setHqlQuery(hqlQuery);
+            metrics.setSession(sessionFactory.getCurrentSession());
+        }
+        try {
+            return executeUpdate(hqlQuery, configurer, metrics);
+        } catch (RuntimeException e) {
+            if (metrics != null) {
+                metrics.setFailed(true);
+            }
+            throw e;
+        } finally {
+            queryExecuted(metrics);
+        }
+    }
+
+    /**
+     * Executes the statement once, or once per chunk of the batched param,
+     * the updated row counts are recorded as row count in the metrics.
+     */
+    private int executeUpdate(HqlQuery hqlQuery, HibernateQueryConfigurer configurer,
+            QueryExecutionMetrics metrics) {
+        Session currentSession = sessionFactory.getCurrentSession();
+        List<String> stageIds = stageInValues(currentSession, hqlQuery);
+        RuntimeException failure = null;
+        try {
+            Query<?> query = currentSession.createQuery(hqlQuery.getHql());
+            CollectionNamedParameter chunkedParam = bindParameters(query, hqlQuery);
+            phaseCompleted(metrics, QueryPhase.ParameterBinding);
+            if (configurer != null) {
+                configurer.beforeQuery(currentSession);
+                configurer.configureQuery(query);
+            }
+            try {
+                int updated = 0;
+                int chunkCount = 1;
+                if (chunkedParam == null) {
+                    updated = query.executeUpdate();
+                } else {
+                    List<List<Object>> chunks = splitInChunks(chunkedParam);
+                    for(List<Object> chunk: chunks) {
+                        bindChunk(query, chunkedParam, chunk);
+                        updated += query.executeUpdate();
+                    }
+                    chunkCount = chunks.size();
+                }
+                if (metrics != null) {
+                    metrics.phaseCompleted(QueryPhase.Execution);
+                    metrics.setChunkCount(chunkCount);
+                    metrics.setRowCount(updated);
+                    metrics.setResultSize(updated);
+                }
+                if (queryResultCache != null) {
+                    invalidateCachedResults(currentSession, getQuerySpaces(hqlQuery.getHql()));
+                }
+                return updated;
+            } finally {
+                if (configurer != null) {
+                    configurer.afterQuery(currentSession);
+                }
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            unstageInValues(currentSession, stageIds, failure);
+        }
+    }
 }
@@ -0,0 +1,205 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.metrics;
+
+import org.hibernate.Session;
+
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
+
+/**
+ * The timings and counts of a single query execution.
+ * <p>
+ * The phases are timed as laps: completing a phase adds the nanos since the
+ * previous phase was completed, or since the metrics were created, to the phase.
+ */
+public class QueryExecutionMetrics {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] phaseNanos = new long[QueryPhase.values().length];
+    private long lapStart;
+    private HqlQuery hqlQuery;
+    private String hql;
+    private String queryShapeId;
+    private Session session;
+    private int chunkCount;
+    private int rowCount;
+    private int resultSize;
+    private boolean failed;
+
+    public QueryExecutionMetrics() {
+        lapStart = System.nanoTime();
+    }
+
+    /**
+     * Adds the nanos since the previous lap to the phase.
+     */
+    public void phaseCompleted(QueryPhase phase) {
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] += now - lapStart;
+        lapStart = now;
+    }
+
+    /**
+     * Adds nanos to the phase without completing a lap, for phases which are
+     * interleaved with work which isn't part of the execution, such as iterating
+     * the results of a scrolled query.
+     */
+    public void addPhaseNanos(QueryPhase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    public long getPhaseNanos(QueryPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * The sum of the nanos of all phases.
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for(long nanos: phaseNanos) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    public HqlQuery getHqlQuery() {
+        return hqlQuery;
+    }
+
+    public String getHql() {
+        return hql;
+    }
+
+    /**
+     * Sets the executed query, the query shape id is derived from its hql
+     * unless it was set using the fingerprint of the query.
+     */
+    public void setHqlQuery(HqlQuery hqlQuery) {
+        this.hqlQuery = hqlQuery;
+        this.hql = hqlQuery.getHql();
+    }
+
+    /**
+     * Sets the query shape id to the fingerprint of the executed query,
+     * which is known without rendering the hql.
+     */
+    public void setQueryFingerprint(QueryFingerprint fingerprint) {
+        this.queryShapeId = fingerprint.toString();
+    }
+
+    /**
+     * The session the query was executed on, batches listed
+     * in parallel use their own sessions, which are not kept.
+     */
+    public Session getSession() {
+        return session;
+    }
+
+    public void setSession(Session session) {
+        this.session = session;
+    }
+
+    /**
+     * Identifies the shape of the query, queries which only differ
+     * in their parameter values have the same shape id.
+     * The id is stable between runs, so it can be used to compare
+     * the shapes of different applications or versions.
+     * <p>
+     * It is the {@link QueryFingerprint} of the query if it was set,
+     * or the hash of the hql for queries without a fingerprint.
+     */
+    public String getQueryShapeId() {
+        if (queryShapeId == null && hql != null) {
+            queryShapeId = toQueryShapeId(hql);
+        }
+        return queryShapeId;
+    }
+
+    /**
+     * The amount of times the query was executed, more than one when using a batched param.
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    /**
+     * The amount of rows returned by the database, or the amount of updated rows.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * The amount of results after transforming the rows,
+     * less than the row count when rows were merged into the same result.
+     */
+    public int getResultSize() {
+        return resultSize;
+    }
+
+    public void setResultSize(int resultSize) {
+        this.resultSize = resultSize;
+    }
+
+    /**
+     * Whether the execution failed with an exception, the
+     * timings only include the phases which were completed.
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * Hashes the hql with the 64 bit FNV-1a hash, which doesn't depend on the jvm,
+     * and formats it as hexadecimal string, the same way as a {@link QueryFingerprint}.
+     */
+    public static String toQueryShapeId(String hql) {
+        long hash = FNV_OFFSET_BASIS;
+        for(int i = 0; i < hql.length(); i++) {
+            hash ^= hql.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        String hex = Long.toHexString(hash);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getQueryShapeId()).append(failed ? " failed": "").append(" [");
+        for(QueryPhase phase: QueryPhase.values()) {
+            sb.append(phase).append('=').append(phaseNanos[phase.ordinal()]).append("ns, ");
+        }
+        sb.append("chunks=").append(chunkCount).append(", rows=").append(rowCount)
+          .append(", results=").append(resultSize).append("] ").append(hql);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps a histogram per query shape in memory, to find the
+ * shapes which take the most time, or report them to a dashboard.
+ * <p>
+ * The amount of shapes is not limited, queries with inlined
+ * literal values create a new shape per distinct value.
+ */
+public class QueryMetricsHistogram implements QueryMetricsListener {
+    private final ConcurrentMap<String, QueryShapeHistogram> shapes = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void queryExecuted(QueryExecutionMetrics metrics) {
+        QueryShapeHistogram shape = shapes.get(metrics.getQueryShapeId());
+        if (shape == null) {
+            shape = new QueryShapeHistogram(metrics.getQueryShapeId(), metrics.getHql());
+            QueryShapeHistogram existing = shapes.putIfAbsent(metrics.getQueryShapeId(), shape);
+            if (existing != null) {
+                shape = existing;
+            }
+        }
+        shape.record(metrics);
+    }
+
+    /**
+     * The histogram of the shape, or null if no query with the shape was executed.
+     */
+    public QueryShapeHistogram getShape(String queryShapeId) {
+        return shapes.get(queryShapeId);
+    }
+
+    /**
+     * The histograms of all shapes, the shapes taking the most time in total first.
+     */
+    public List<QueryShapeHistogram> getShapesByTotalNanos() {
+        List<QueryShapeHistogram> sorted = new ArrayList<>(shapes.values());
+        // take the totals once, they may change while sorting:
+        final Map<QueryShapeHistogram, Long> totals = new IdentityHashMap<>();
+        for(QueryShapeHistogram shape: sorted) {
+            totals.put(shape, shape.getTotalNanos());
+        }
+        Collections.sort(sorted, new Comparator<QueryShapeHistogram>() {
+            @Override
+            public int compare(QueryShapeHistogram o1, QueryShapeHistogram o2) {
+                return Long.compare(totals.get(o2), totals.get(o1));
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * Removes all histograms.
+     */
+    public void reset() {
+        shapes.clear();
+    }
+}
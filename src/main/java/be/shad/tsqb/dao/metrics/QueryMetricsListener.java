@@ -0,0 +1,33 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.metrics;
+
+/**
+ * Receives the metrics of each query executed by the dao.
+ * <p>
+ * The listener is called on the thread which executed the query, after the
+ * results were transformed or the query failed, so it should return quickly.
+ *
+ * @see QueryMetricsHistogram
+ */
+public interface QueryMetricsListener {
+
+    /**
+     * Called once per execution, the metrics are not modified afterwards.
+     */
+    void queryExecuted(QueryExecutionMetrics metrics);
+
+}
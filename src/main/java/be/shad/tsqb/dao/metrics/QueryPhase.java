@@ -0,0 +1,38 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.metrics;
+
+/**
+ * The phases of a query execution which are timed separately.
+ */
+public enum QueryPhase {
+    /**
+     * Converting the type safe query to hql, including the result transformer.
+     */
+    HqlGeneration,
+    /**
+     * Creating the hibernate query and binding the parameters.
+     */
+    ParameterBinding,
+    /**
+     * Executing the query in the database and listing the rows, for all chunks of a batched param.
+     */
+    Execution,
+    /**
+     * Transforming the rows to the results.
+     */
+    Transformation
+}
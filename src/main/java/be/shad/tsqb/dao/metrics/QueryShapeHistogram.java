@@ -0,0 +1,140 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.metrics;
+
+/**
+ * Aggregates the executions of a single query shape.
+ * <p>
+ * The total durations are kept in buckets per power of two nanos,
+ * percentiles are approximated by the upper bound of their bucket.
+ */
+public class QueryShapeHistogram {
+    private static final int BUCKETS = 64;
+
+    private final String queryShapeId;
+    private final String hql;
+    private final long[] buckets = new long[BUCKETS];
+    private final long[] phaseNanos = new long[QueryPhase.values().length];
+    private long count;
+    private long failureCount;
+    private long totalNanos;
+    private long maxNanos;
+    private long chunkCount;
+    private long rowCount;
+    private long resultCount;
+
+    public QueryShapeHistogram(String queryShapeId, String hql) {
+        this.queryShapeId = queryShapeId;
+        this.hql = hql;
+    }
+
+    /**
+     * Adds the execution to the histogram.
+     */
+    public synchronized void record(QueryExecutionMetrics metrics) {
+        long nanos = metrics.getTotalNanos();
+        buckets[BUCKETS - 1 - Long.numberOfLeadingZeros(Math.max(nanos, 1))]++;
+        for(QueryPhase phase: QueryPhase.values()) {
+            phaseNanos[phase.ordinal()] += metrics.getPhaseNanos(phase);
+        }
+        count++;
+        if (metrics.isFailed()) {
+            failureCount++;
+        }
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        chunkCount += metrics.getChunkCount();
+        rowCount += metrics.getRowCount();
+        resultCount += metrics.getResultSize();
+    }
+
+    public String getQueryShapeId() {
+        return queryShapeId;
+    }
+
+    public String getHql() {
+        return hql;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getFailureCount() {
+        return failureCount;
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public synchronized long getTotalNanos(QueryPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public synchronized long getMeanNanos() {
+        return count == 0 ? 0: totalNanos / count;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public synchronized long getChunkCount() {
+        return chunkCount;
+    }
+
+    public synchronized long getRowCount() {
+        return rowCount;
+    }
+
+    public synchronized long getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * The upper bound in nanos of the bucket containing the percentile,
+     * limited to the max nanos of the recorded executions.
+     *
+     * @param percentile between 0 and 100.
+     */
+    public synchronized long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException(String.format(
+                    "Percentile [%s] must be between 0 and 100.", percentile));
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                long upperBound = i == BUCKETS - 2 ? Long.MAX_VALUE: (2L << i) - 1;
+                return Math.min(upperBound, maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: count=%d, failures=%d, mean=%dns, p95=%dns, max=%dns, rows=%d, results=%d, %s",
+                queryShapeId, count, failureCount, getMeanNanos(), getPercentileNanos(95),
+                maxNanos, rowCount, resultCount, hql);
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.hibernate.Session;
+
+/**
+ * Detects executions which are slow or return many rows, and query shapes
+ * which are executed many times on the same session with other parameter values,
+ * which usually means the query is executed in a loop and could be a single
+ * query using a (batched) in restriction instead.
+ * <p>
+ * Each detection is reported once per query shape, with the formatted hql
+ * and the first frame of the stack outside of the ignored packages as call site.
+ * The detections are logged as warnings by default,
+ * override {@link #queryDetected} to report them differently.
+ */
+public class SlowQueryDetector implements QueryMetricsListener {
+    private static final Logger LOGGER = Logger.getLogger(SlowQueryDetector.class.getName());
+
+    public enum Detection {
+        /**
+         * The execution took longer than the latency threshold.
+         */
+        Slow,
+        /**
+         * The execution returned more rows than the row threshold.
+         */
+        ManyRows,
+        /**
+         * The query shape was executed as many times as the
+         * repeated execution threshold on the same session.
+         */
+        RepeatedExecution
+    }
+
+    private final Map<Session, Map<String, Integer>> executionsPerSession =
+            Collections.synchronizedMap(new WeakHashMap<Session, Map<String, Integer>>());
+    private final Set<String> reportedShapes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final List<String> ignoredCallSitePackages = new CopyOnWriteArrayList<>();
+    private long latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(500);
+    private int rowThreshold = 10000;
+    private int repeatedExecutionThreshold = 10;
+
+    public SlowQueryDetector() {
+        ignoredCallSitePackages.add("be.shad.tsqb.dao.");
+        ignoredCallSitePackages.add("java.");
+        ignoredCallSitePackages.add("javax.");
+        ignoredCallSitePackages.add("sun.");
+        ignoredCallSitePackages.add("jdk.");
+    }
+
+    /**
+     * Sets the duration of an execution above which it is reported as slow.
+     */
+    public void setLatencyThreshold(long duration, TimeUnit unit) {
+        this.latencyThresholdNanos = unit.toNanos(duration);
+    }
+
+    public long getLatencyThresholdNanos() {
+        return latencyThresholdNanos;
+    }
+
+    /**
+     * Sets the amount of rows of an execution above which it is reported.
+     */
+    public void setRowThreshold(int rowThreshold) {
+        this.rowThreshold = rowThreshold;
+    }
+
+    public int getRowThreshold() {
+        return rowThreshold;
+    }
+
+    /**
+     * Sets the amount of executions of the same shape on one
+     * session at which the shape is reported, 0 to disable it.
+     */
+    public void setRepeatedExecutionThreshold(int repeatedExecutionThreshold) {
+        this.repeatedExecutionThreshold = repeatedExecutionThreshold;
+    }
+
+    public int getRepeatedExecutionThreshold() {
+        return repeatedExecutionThreshold;
+    }
+
+    /**
+     * Adds a package (or class name prefix) to skip when looking for the call site,
+     * for example the package of a generic repository delegating to the dao.
+     */
+    public void addIgnoredCallSitePackage(String packagePrefix) {
+        ignoredCallSitePackages.add(packagePrefix);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void queryExecuted(QueryExecutionMetrics metrics) {
+        if (metrics.getTotalNanos() > latencyThresholdNanos) {
+            report(Detection.Slow, metrics);
+        }
+        if (metrics.getRowCount() > rowThreshold) {
+            report(Detection.ManyRows, metrics);
+        }
+        if (repeatedExecutionThreshold > 0 && metrics.getSession() != null
+                && countExecution(metrics) == repeatedExecutionThreshold) {
+            report(Detection.RepeatedExecution, metrics);
+        }
+    }
+
+    /**
+     * Increments the amount of executions of the shape on the session of the metrics.
+     *
+     * @return the amount of executions including this one.
+     */
+    private int countExecution(QueryExecutionMetrics metrics) {
+        Map<String, Integer> executions;
+        synchronized (executionsPerSession) {
+            executions = executionsPerSession.get(metrics.getSession());
+            if (executions == null) {
+                executions = new HashMap<>();
+                executionsPerSession.put(metrics.getSession(), executions);
+            }
+        }
+        synchronized (executions) {
+            Integer count = executions.get(metrics.getQueryShapeId());
+            count = count == null ? 1: count + 1;
+            executions.put(metrics.getQueryShapeId(), count);
+            return count;
+        }
+    }
+
+    private void report(Detection detection, QueryExecutionMetrics metrics) {
+        if (reportedShapes.add(detection.name() + ":" + metrics.getQueryShapeId())) {
+            queryDetected(detection, metrics, findCallSite());
+        }
+    }
+
+    /**
+     * The first frame of the current stack which is not in one of the ignored packages.
+     */
+    protected StackTraceElement findCallSite() {
+        for(StackTraceElement element: new Throwable().getStackTrace()) {
+            if (!isIgnoredCallSite(element.getClassName())) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private boolean isIgnoredCallSite(String className) {
+        for(String ignoredPackage: ignoredCallSitePackages) {
+            if (className.startsWith(ignoredPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Logs the detection as a warning, called once per detection and query shape.
+     */
+    protected void queryDetected(Detection detection, QueryExecutionMetrics metrics, StackTraceElement callSite) {
+        if (!LOGGER.isLoggable(Level.WARNING)) {
+            return;
+        }
+        String reason;
+        switch (detection) {
+            case Slow: reason = String.format("took %d ms",
+                    TimeUnit.NANOSECONDS.toMillis(metrics.getTotalNanos())); break;
+            case ManyRows: reason = String.format("returned %d rows", metrics.getRowCount()); break;
+            default: reason = String.format("was executed %d times on the same session, "
+                    + "consider using a single query with an in restriction", repeatedExecutionThreshold);
+        }
+        LOGGER.warning(String.format("Query shape [%s] %s, called from [%s]:\n%s",
+                metrics.getQueryShapeId(), reason, callSite,
+                metrics.getHqlQuery() == null ? metrics.getHql(): metrics.getHqlQuery().toFormattedString()));
+    }
+
+    /**
+     * Forgets the reported shapes and the execution counts.
+     */
+    public void reset() {
+        reportedShapes.clear();
+        executionsPerSession.clear();
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.result;
+
+import java.util.List;
+
+/**
+ * A page of results fetched using keyset paging.
+ * <p>
+ * The next key is the continuation token for the next page, pass it to
+ * {@link be.shad.tsqb.query.TypeSafeRootQuery#setKeysetAfter(Object...)}
+ * to fetch the next page.
+ */
+public class KeysetPage<T> extends QueryResult<T> {
+    private final Object[] nextKey;
+
+    public KeysetPage(List<T> results, Object[] nextKey) {
+        super(results);
+        this.nextKey = nextKey;
+    }
+
+    /**
+     * The ordered values of the last row of this page,
+     * null if there are no more pages.
+     */
+    public Object[] getNextKey() {
+        return nextKey == null ? null: nextKey.clone();
+    }
+
+    /**
+     * Whether more rows are ordered after this page.
+     */
+    public boolean hasNextPage() {
+        return nextKey != null;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.result;
+
+import java.util.List;
+
+/**
+ * The results of a batch of queries, in the order of the queries.
+ * Each query either has a result or the exception it failed with,
+ * a failing query doesn't affect the results of the other queries.
+ */
+public class QueryBatchResult {
+    private final List<QueryResult<?>> results;
+    private final List<RuntimeException> failures;
+
+    public QueryBatchResult(List<QueryResult<?>> results, List<RuntimeException> failures) {
+        if (results.size() != failures.size()) {
+            throw new IllegalArgumentException(String.format(
+                    "The amount of results [%d] doesn't match the amount of failures [%d].",
+                    results.size(), failures.size()));
+        }
+        this.results = results;
+        this.failures = failures;
+    }
+
+    /**
+     * The amount of queries in the batch.
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * The result of the query at the index.
+     *
+     * @throws RuntimeException the exception the query failed with, if it failed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> QueryResult<T> getResult(int index) {
+        RuntimeException failure = failures.get(index);
+        if (failure != null) {
+            throw failure;
+        }
+        return (QueryResult<T>) results.get(index);
+    }
+
+    /**
+     * Delegates to {@link #getResult(int)} and returns the results.
+     */
+    public <T> List<T> getResults(int index) {
+        return this.<T>getResult(index).getResults();
+    }
+
+    /**
+     * The exception the query at the index failed with, or null if it succeeded.
+     */
+    public RuntimeException getFailure(int index) {
+        return failures.get(index);
+    }
+
+    /**
+     * The query at the index failed.
+     */
+    public boolean isFailed(int index) {
+        return failures.get(index) != null;
+    }
+
+    /**
+     * At least one of the queries failed.
+     */
+    public boolean hasFailures() {
+        for(RuntimeException failure: failures) {
+            if (failure != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
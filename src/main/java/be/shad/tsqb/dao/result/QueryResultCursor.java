@@ -0,0 +1,215 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.result;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.transform.ResultTransformer;
+
+import be.shad.tsqb.dao.HibernateQueryConfigurer;
+import be.shad.tsqb.dao.metrics.QueryExecutionMetrics;
+import be.shad.tsqb.dao.metrics.QueryMetricsListener;
+import be.shad.tsqb.dao.metrics.QueryPhase;
+
+/**
+ * Iterates the results of a scrolled query, transforming the rows
+ * while iterating instead of loading all results in memory at once.
+ * <p>
+ * Consecutive rows with the same result identity are transformed together,
+ * a result is available as soon as a row with another identity is read.
+ * When selecting collections into a result dto, the query must be ordered
+ * by the identity paths of the result dto, otherwise the same result dto
+ * may be returned more than once, each time with part of its collection.
+ * <p>
+ * The cursor must be closed when it is not iterated until the end.
+ * <p>
+ * When metrics are collected, the time spent scrolling to the next rows is added
+ * to the execution phase and the time spent transforming them to the transformation
+ * phase, the time spent by the caller in between is not included. The listener is
+ * notified once the last row was read or the cursor was closed.
+ */
+@SuppressWarnings("unchecked")
+public class QueryResultCursor<T> implements Iterator<T>, Closeable {
+    private final ScrollableResults scrollableResults;
+    private final ResultTransformer resultTransformer;
+    private final int[] resultIdentityIndexes;
+    private final Session session;
+    private final HibernateQueryConfigurer configurer;
+    private final QueryExecutionMetrics metrics;
+    private final QueryMetricsListener metricsListener;
+    private final LinkedList<T> pendingResults = new LinkedList<>();
+    private final List<Object> resultRows = new ArrayList<>();
+    private Object[] previousRow;
+    private boolean exhausted;
+    private boolean closed;
+    private int rowCount;
+    private int resultSize;
+
+    /**
+     * @param resultIdentityIndexes the row indexes of the values identifying a result,
+     *        null or empty when each row is transformed into a separate result.
+     * @param configurer notified after the query when the cursor is closed, may be null.
+     */
+    public QueryResultCursor(ScrollableResults scrollableResults,
+            ResultTransformer resultTransformer, int[] resultIdentityIndexes,
+            Session session, HibernateQueryConfigurer configurer) {
+        this(scrollableResults, resultTransformer, resultIdentityIndexes, session, configurer, null, null);
+    }
+
+    /**
+     * @param metrics the metrics of the execution, completed while iterating, may be null.
+     * @param metricsListener notified with the metrics when the cursor is released,
+     *        must not be null when the metrics are not null.
+     */
+    public QueryResultCursor(ScrollableResults scrollableResults,
+            ResultTransformer resultTransformer, int[] resultIdentityIndexes,
+            Session session, HibernateQueryConfigurer configurer,
+            QueryExecutionMetrics metrics, QueryMetricsListener metricsListener) {
+        this.scrollableResults = scrollableResults;
+        this.resultTransformer = resultTransformer;
+        this.resultIdentityIndexes = resultIdentityIndexes == null
+                || resultIdentityIndexes.length == 0 ? null: resultIdentityIndexes;
+        this.session = session;
+        this.configurer = configurer;
+        this.metrics = metrics;
+        this.metricsListener = metricsListener;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (pendingResults.isEmpty() && !exhausted) {
+                readRow();
+            }
+        } catch (RuntimeException e) {
+            if (metrics != null) {
+                metrics.setFailed(true);
+            }
+            throw e;
+        }
+        return !pendingResults.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return pendingResults.removeFirst();
+    }
+
+    /**
+     * Reads the next row, transforms the rows read so far when
+     * the identity of the result changes or the last row was read.
+     */
+    private void readRow() {
+        long start = metrics == null ? 0: System.nanoTime();
+        boolean hasRow = scrollableResults.next();
+        if (metrics != null) {
+            metrics.addPhaseNanos(QueryPhase.Execution, System.nanoTime() - start);
+        }
+        if (!hasRow) {
+            exhausted = true;
+            transformRows();
+            release();
+            return;
+        }
+        rowCount++;
+        Object[] row = scrollableResults.get();
+        if (resultIdentityIndexes != null && previousRow != null
+                && !isSameResultIdentity(previousRow, row)) {
+            transformRows();
+        }
+        previousRow = row;
+        if (resultTransformer == null && row.length == 1) {
+            // same as listing the query, a single value is not wrapped in an array
+            resultRows.add(row[0]);
+        } else {
+            resultRows.add(row);
+        }
+        if (resultIdentityIndexes == null) {
+            transformRows();
+        }
+    }
+
+    private boolean isSameResultIdentity(Object[] previous, Object[] row) {
+        for(int idx: resultIdentityIndexes) {
+            Object previousValue = previous[idx];
+            if (previousValue == null ? row[idx] != null: !previousValue.equals(row[idx])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void transformRows() {
+        if (resultRows.isEmpty()) {
+            return;
+        }
+        long start = metrics == null ? 0: System.nanoTime();
+        int pending = pendingResults.size();
+        if (resultTransformer == null) {
+            pendingResults.addAll((List<T>) resultRows);
+        } else {
+            pendingResults.addAll(resultTransformer.transformList(new ArrayList<>(resultRows)));
+        }
+        resultSize += pendingResults.size() - pending;
+        resultRows.clear();
+        if (metrics != null) {
+            metrics.addPhaseNanos(QueryPhase.Transformation, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Closes the scrollable results, the results which were not iterated yet are discarded.
+     */
+    @Override
+    public void close() {
+        exhausted = true;
+        pendingResults.clear();
+        resultRows.clear();
+        release();
+    }
+
+    private void release() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            scrollableResults.close();
+        } finally {
+            try {
+                if (configurer != null) {
+                    configurer.afterQuery(session);
+                }
+            } finally {
+                if (metrics != null) {
+                    metrics.setRowCount(rowCount);
+                    metrics.setResultSize(resultSize);
+                    metricsListener.queryExecuted(metrics);
+                }
+            }
+        }
+    }
+}
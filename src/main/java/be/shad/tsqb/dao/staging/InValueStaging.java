@@ -0,0 +1,272 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.staging;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.hibernate.Hibernate;
+import org.hibernate.MappingException;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.persister.entity.Queryable;
+
+import be.shad.tsqb.CollectionNamedParameter;
+import be.shad.tsqb.NamedParameter;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.values.HqlQueryValueImpl;
+
+/**
+ * Stages the values of large collection params in the {@link StagedInValue} table
+ * instead of binding them to the query. The values are inserted using jdbc batches
+ * on the connection of the session and the param is replaced by a subquery selecting
+ * the staged values, so the restriction becomes an in (select ...) restriction.
+ * <p>
+ * Unlike batched params, which are listed chunk by chunk, any number of staged params
+ * can be used in a single query, and ordering, paging and grouping remain correct.
+ * <p>
+ * The staged values are only visible to the transaction of the session,
+ * they are deleted once the query was executed. Collections of integral numbers,
+ * strings and entities with such an identifier can be staged, other collections
+ * are bound to the query as before.
+ * <p>
+ * The table and column names used to insert and delete the values are resolved
+ * from the mapping of the {@link StagedInValue} entity, so naming strategies apply.
+ */
+public class InValueStaging {
+    public static final int DEFAULT_THRESHOLD = 1000;
+    public static final int DEFAULT_JDBC_BATCH_SIZE = 500;
+
+    private final int threshold;
+    private final int jdbcBatchSize;
+
+    public InValueStaging() {
+        this(DEFAULT_THRESHOLD, DEFAULT_JDBC_BATCH_SIZE);
+    }
+
+    /**
+     * @param threshold collection params with more values than the threshold are staged.
+     * @param jdbcBatchSize the amount of values to insert per jdbc batch.
+     */
+    public InValueStaging(int threshold, int jdbcBatchSize) {
+        if (threshold < 1 || jdbcBatchSize < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "The threshold [%d] and jdbc batch size [%d] must be positive.",
+                    threshold, jdbcBatchSize));
+        }
+        this.threshold = threshold;
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public int getJdbcBatchSize() {
+        return jdbcBatchSize;
+    }
+
+    /**
+     * Stages the values of the collection params with more values than the threshold
+     * and replaces these params in the hql query with a subquery selecting the values.
+     *
+     * @return the ids of the stages, to {@link #unstage(Session, List)} once the query was executed.
+     */
+    public List<String> stage(Session session, HqlQuery hqlQuery) {
+        List<String> stageIds = null;
+        for(Object param: new ArrayList<>(hqlQuery.getParams())) {
+            if (!(param instanceof CollectionNamedParameter)) {
+                continue;
+            }
+            CollectionNamedParameter collectionParam = (CollectionNamedParameter) param;
+            if (collectionParam.getValue().size() <= threshold) {
+                continue;
+            }
+            List<Object> values = toStagedValues(session, collectionParam.getValue());
+            if (values == null) {
+                continue;
+            }
+            if (stageIds == null) {
+                stageIds = new ArrayList<>();
+            }
+            String stageId = UUID.randomUUID().toString();
+            stageIds.add(stageId);
+            try {
+                insert(session, stageId, values);
+                hqlQuery.replaceNamedParam(collectionParam, toSubquery(collectionParam.getName(),
+                        stageId, values.get(0) instanceof Long));
+            } catch (RuntimeException e) {
+                try {
+                    unstage(session, stageIds);
+                } catch (RuntimeException unstageFailure) {
+                    e.addSuppressed(unstageFailure);
+                }
+                throw e;
+            }
+        }
+        if (stageIds == null) {
+            return Collections.emptyList();
+        }
+        return stageIds;
+    }
+
+    /**
+     * Deletes the staged values of the stages.
+     */
+    public void unstage(Session session, final List<String> stageIds) {
+        if (stageIds.isEmpty()) {
+            return;
+        }
+        Queryable persister = getPersister(session);
+        final String deleteSql = String.format("delete from %s where %s = ?",
+                persister.getTableName(), getColumnName(persister, "stageId"));
+        session.doWork(new Work() {
+            @Override
+            public void execute(Connection connection) throws SQLException {
+                try (PreparedStatement statement = connection.prepareStatement(deleteSql)) {
+                    for(String stageId: stageIds) {
+                        statement.setString(1, stageId);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+        });
+    }
+
+    /**
+     * Selects the staged values of the stage, the stage id is bound using the name of the collection param.
+     */
+    private HqlQueryValueImpl toSubquery(String name, String stageId, boolean longValues) {
+        String alias = "staged_" + name;
+        return new HqlQueryValueImpl(String.format("select %s.%s from %s %s where %s.stageId = :%s",
+                alias, longValues ? "longValue": "stringValue", StagedInValue.class.getName(),
+                alias, alias, name), new NamedParameter(name, stageId));
+    }
+
+    /**
+     * Inserts the values using jdbc batches of at most the jdbc batch size.
+     */
+    private void insert(Session session, final String stageId, final List<Object> values) {
+        Queryable persister = getPersister(session);
+        final String insertSql = String.format("insert into %s (%s, %s, %s, %s) values (?, ?, ?, ?)",
+                persister.getTableName(), getColumnName(persister, "stageId"),
+                getColumnName(persister, "position"), getColumnName(persister, "longValue"),
+                getColumnName(persister, "stringValue"));
+        session.doWork(new Work() {
+            @Override
+            public void execute(Connection connection) throws SQLException {
+                try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
+                    int position = 0;
+                    for(Object value: values) {
+                        statement.setString(1, stageId);
+                        statement.setInt(2, position);
+                        if (value instanceof Long) {
+                            statement.setLong(3, (Long) value);
+                            statement.setNull(4, Types.VARCHAR);
+                        } else {
+                            statement.setNull(3, Types.BIGINT);
+                            statement.setString(4, (String) value);
+                        }
+                        statement.addBatch();
+                        if (++position % jdbcBatchSize == 0) {
+                            statement.executeBatch();
+                        }
+                    }
+                    if (position % jdbcBatchSize != 0) {
+                        statement.executeBatch();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * The persister of the staged values, to resolve the physical table and column names.
+     */
+    private Queryable getPersister(Session session) {
+        try {
+            return (Queryable) ((SessionFactoryImplementor) session.getSessionFactory()).
+                    getMetamodel().entityPersister(StagedInValue.class);
+        } catch (MappingException e) {
+            throw new IllegalStateException(String.format("Entity [%s] must be mapped "
+                    + "to stage in values.", StagedInValue.class.getName()), e);
+        }
+    }
+
+    private String getColumnName(Queryable persister, String propertyName) {
+        String[] columnNames = persister.toColumns(propertyName);
+        if (columnNames.length != 1) {
+            throw new IllegalStateException(String.format("Property [%s] of [%s] must be "
+                    + "mapped to a single column.", propertyName, StagedInValue.class.getName()));
+        }
+        return columnNames[0];
+    }
+
+    /**
+     * Converts the values to longs or strings, or returns null
+     * if one of the values can't be staged or the types are mixed.
+     */
+    private List<Object> toStagedValues(Session session, Collection<?> values) {
+        List<Object> stagedValues = new ArrayList<>(values.size());
+        for(Object value: values) {
+            Object stagedValue = toStagedValue(session, value);
+            if (stagedValue == null) {
+                return null;
+            }
+            if (!stagedValues.isEmpty() && stagedValues.get(0).getClass() != stagedValue.getClass()) {
+                return null;
+            }
+            stagedValues.add(stagedValue);
+        }
+        return stagedValues;
+    }
+
+    /**
+     * Converts integral numbers to a long, entities to their identifier.
+     */
+    private Object toStagedValue(Session session, Object value) {
+        if (value instanceof Long || value instanceof Integer
+                || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String) {
+            return value;
+        }
+        EntityPersister persister;
+        try {
+            persister = ((SessionFactoryImplementor) session.getSessionFactory()).
+                    getMetamodel().entityPersister(Hibernate.getClass(value));
+        } catch (MappingException e) {
+            return null;
+        }
+        Object identifier = persister.getIdentifier(value, (SharedSessionContractImplementor) session);
+        if (identifier == null || identifier == value) {
+            return null;
+        }
+        return toStagedValue(session, identifier);
+    }
+}
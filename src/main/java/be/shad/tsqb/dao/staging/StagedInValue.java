@@ -0,0 +1,135 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.staging;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+/**
+ * A value of a collection param which was staged by {@link InValueStaging}.
+ * The entity must be mapped in the session factory to be able to select
+ * it in the subquery which replaces the collection param.
+ * <p>
+ * The rows are inserted and deleted using jdbc, with the table and column
+ * names resolved from the mapping, so they may be changed by a naming strategy.
+ */
+@Entity
+@Table(name = StagedInValue.TABLE)
+@IdClass(StagedInValue.Key.class)
+public class StagedInValue implements Serializable {
+    private static final long serialVersionUID = -3542263358126431702L;
+
+    public static final String TABLE = "TSQB_STAGED_IN_VALUE";
+    public static final String STAGE_ID = "STAGE_ID";
+    public static final String POSITION = "POSITION";
+    public static final String LONG_VALUE = "LONG_VALUE";
+    public static final String STRING_VALUE = "STRING_VALUE";
+
+    @Id
+    @Column(name = STAGE_ID, length = 36)
+    private String stageId;
+
+    @Id
+    @Column(name = POSITION)
+    private int position;
+
+    @Column(name = LONG_VALUE)
+    private Long longValue;
+
+    @Column(name = STRING_VALUE)
+    private String stringValue;
+
+    public String getStageId() {
+        return stageId;
+    }
+
+    public void setStageId(String stageId) {
+        this.stageId = stageId;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public Long getLongValue() {
+        return longValue;
+    }
+
+    public void setLongValue(Long longValue) {
+        this.longValue = longValue;
+    }
+
+    public String getStringValue() {
+        return stringValue;
+    }
+
+    public void setStringValue(String stringValue) {
+        this.stringValue = stringValue;
+    }
+
+    /**
+     * The identifier of a staged value, the stage and the position of the value in it.
+     */
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 6112095325513218633L;
+
+        private String stageId;
+        private int position;
+
+        public String getStageId() {
+            return stageId;
+        }
+
+        public void setStageId(String stageId) {
+            this.stageId = stageId;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public void setPosition(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (stageId == null ? 0: stageId.hashCode()) + position;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return position == other.position && (stageId == null
+                    ? other.stageId == null: stageId.equals(other.stageId));
+        }
+    }
+}
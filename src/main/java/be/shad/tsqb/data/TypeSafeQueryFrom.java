@@ -25,11 +25,13 @@ import be.shad.tsqb.hql.HqlQuery;
 import be.shad.tsqb.hql.HqlQueryBuilder;
 import be.shad.tsqb.joins.TypeSafeQueryJoin;
 import be.shad.tsqb.query.JoinType;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.values.HqlQueryBuilderParams;
 import be.shad.tsqb.values.HqlQueryValue;
 import be.shad.tsqb.values.HqlQueryValueImpl;
 
-public class TypeSafeQueryFrom implements HqlQueryBuilder {
+public class TypeSafeQueryFrom implements HqlQueryBuilder, Fingerprintable {
 
     private final TypeSafeQueryHelper helper;
     private final TypeSafeQueryProxyData root;
@@ -113,7 +115,7 @@ public class TypeSafeQueryFrom implements HqlQueryBuilder {
         // example: 'left join Product hobj1 on ...'
         TypeSafeQueryProxyData data = join.getData();
         from.appendHql(new StringBuilder(" ")
-            .append(getJoinTypeString(data.getEffectiveJoinType()))
+            .append(getJoinTypeString(data.getEffectiveJoinType(), params))
             .append(" ").append(helper.getEntityName(data.getPropertyType()))
             .append(" ").append(data.getAlias()).toString());
 
@@ -139,7 +141,7 @@ public class TypeSafeQueryFrom implements HqlQueryBuilder {
         TypeSafeQueryProxyData data = join.getData();
         String alias = data.getAlias();
         StringBuilder joinSB = new StringBuilder(" ")
-            .append(getJoinTypeString(data.getEffectiveJoinType()))
+            .append(getJoinTypeString(data.getEffectiveJoinType(), params))
             .append(" ").append(helper.getEntityName(data.getPropertyType()))
             .append(" ").append(alias).append(" on ");
         if (data.getProxyType().isCollection()) {
@@ -186,7 +188,7 @@ public class TypeSafeQueryFrom implements HqlQueryBuilder {
         TypeSafeQueryProxyData data = join.getData();
         // example: 'left join fetch' 'hobj1'.'propertyPath' 'hobj2'
         from.appendHql(new StringBuilder(" ")
-            .append(getJoinTypeString(data.getEffectiveJoinType()))
+            .append(getJoinTypeString(data.getEffectiveJoinType(), params))
             .append(" ").append(data.getParent().getAlias())
             .append(".").append(data.getPropertyPath())
             .append(" ").append(data.getAlias()).toString());
@@ -197,8 +199,16 @@ public class TypeSafeQueryFrom implements HqlQueryBuilder {
 
     /**
      * Convert the join type to a string.
+     * Fetch joins are plain joins when counting rows, there is nothing to fetch.
      */
-    private String getJoinTypeString(JoinType joinType) {
+    private String getJoinTypeString(JoinType joinType, HqlQueryBuilderParams params) {
+        if (params.isCountingRows()) {
+            if (joinType == JoinType.Fetch) {
+                joinType = JoinType.Inner;
+            } else if (joinType == JoinType.LeftFetch) {
+                joinType = JoinType.Left;
+            }
+        }
         switch (joinType) {
             case Fetch: return "join fetch";
             case Inner: return "join";
@@ -210,4 +220,19 @@ public class TypeSafeQueryFrom implements HqlQueryBuilder {
         throw new IllegalArgumentException("JoinType " + joinType + " is no allowed.");
     }
 
+    /**
+     * Appends the root and the joins with their effective join types and restrictions.
+     */
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(root.getPropertyType()).append(root.getAlias());
+        for(TypeSafeQueryJoin<?> join: joins) {
+            TypeSafeQueryProxyData data = join.getData();
+            fingerprint.append(data.getEffectiveJoinType());
+            fingerprint.append(data.getParent().getAlias()).append(data.getPropertyPath());
+            fingerprint.append(data.getPropertyType()).append(data.getAlias());
+            join.appendFingerprint(fingerprint);
+        }
+    }
+
 }
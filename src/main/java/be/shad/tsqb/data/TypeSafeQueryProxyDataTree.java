@@ -33,6 +33,8 @@ import be.shad.tsqb.proxy.TypeSafeQuerySelectionProxy;
 import be.shad.tsqb.query.JoinType;
 import be.shad.tsqb.query.TypeSafeQueryInternal;
 import be.shad.tsqb.query.copy.CopyContext;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.restrictions.WhereRestrictions;
 import be.shad.tsqb.selection.group.TypeSafeQuerySelectionGroup;
 import be.shad.tsqb.values.HqlQueryBuilderParams;
@@ -40,7 +42,7 @@ import be.shad.tsqb.values.HqlQueryBuilderParams;
 /**
  * Contains the proxy data, the from and the joined entities data known in the query.
  */
-public class TypeSafeQueryProxyDataTree implements HqlQueryBuilder {
+public class TypeSafeQueryProxyDataTree implements HqlQueryBuilder, Fingerprintable {
     private final List<TypeSafeQueryFrom> froms = new ArrayList<>();
     private final Map<TypeSafeQueryProxyData, TypeSafeQueryJoin<?>> joins = new HashMap<>();
     private final Set<TypeSafeQueryProxyData> queryData = new LinkedHashSet<>();
@@ -230,4 +232,11 @@ public class TypeSafeQueryProxyDataTree implements HqlQueryBuilder {
         }
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        for(TypeSafeQueryFrom from: froms) {
+            from.appendFingerprint(fingerprint);
+        }
+    }
+
 }
@@ -22,11 +22,13 @@ import be.shad.tsqb.hql.HqlQuery;
 import be.shad.tsqb.hql.HqlQueryBuilder;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.values.HqlQueryBuilderParams;
 import be.shad.tsqb.values.HqlQueryValue;
 import be.shad.tsqb.values.TypeSafeValue;
 
-public class TypeSafeQueryGroupBys implements HqlQueryBuilder, Copyable {
+public class TypeSafeQueryGroupBys implements HqlQueryBuilder, Copyable, Fingerprintable {
     private final List<TypeSafeValue<?>> values = new LinkedList<>();
 
     /**
@@ -51,11 +53,22 @@ public class TypeSafeQueryGroupBys implements HqlQueryBuilder, Copyable {
         }
     }
 
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
     public <T> TypeSafeValue<T> add(TypeSafeValue<T> val) {
         values.add(val);
         return val;
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        for(TypeSafeValue<?> value: values) {
+            fingerprint.append(value);
+        }
+    }
+
     /**
      * Delegates to copy constructor
      */
@@ -0,0 +1,72 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.helper;
+
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.type.Type;
+
+import be.shad.tsqb.proxy.TypeSafeQueryProxyType;
+
+/**
+ * The hibernate metadata of a property of an entity, resolved once
+ * so traversing the property on a proxy doesn't need to query hibernate.
+ */
+final class PropertyMetadata {
+    private final Type propertyType;
+    private final Class<?> targetClass;
+    private final ClassMetadata targetMetadata;
+    private final TypeSafeQueryProxyType proxyType;
+
+    PropertyMetadata(Type propertyType, Class<?> targetClass,
+            ClassMetadata targetMetadata, TypeSafeQueryProxyType proxyType) {
+        this.propertyType = propertyType;
+        this.targetClass = targetClass;
+        this.targetMetadata = targetMetadata;
+        this.proxyType = proxyType;
+    }
+
+    public Type getPropertyType() {
+        return propertyType;
+    }
+
+    /**
+     * The property class, or the element class for collections.
+     */
+    public Class<?> getTargetClass() {
+        return targetClass;
+    }
+
+    /**
+     * The metadata of the target class, null if it isn't an entity.
+     */
+    public ClassMetadata getTargetMetadata() {
+        return targetMetadata;
+    }
+
+    /**
+     * The type of proxy to create for the property, null if no proxy is required.
+     */
+    public TypeSafeQueryProxyType getProxyType() {
+        return proxyType;
+    }
+
+    /**
+     * The identifier property of the target entity, null if it isn't an entity.
+     */
+    public String getIdentifierPropertyName() {
+        return targetMetadata == null ? null: targetMetadata.getIdentifierPropertyName();
+    }
+}
@@ -19,6 +19,7 @@ import be.shad.tsqb.data.TypeSafeQueryProxyData;
 import be.shad.tsqb.data.TypeSafeQuerySelectionProxyData;
 import be.shad.tsqb.query.TypeSafeQueryInternal;
 import be.shad.tsqb.query.TypeSafeRootQueryInternal;
+import be.shad.tsqb.selection.SelectionPlanCache;
 import be.shad.tsqb.selection.group.TypeSafeQuerySelectionGroup;
 
 public interface TypeSafeQueryHelper {
@@ -71,6 +72,12 @@ public interface TypeSafeQueryHelper {
      */
     ConcreteDtoClassResolver getConcreteDtoClassResolver();
 
+    /**
+     * The cache to share the result transformers of queries with the same selection shape,
+     * null if the transformers are created for each query.
+     */
+    SelectionPlanCache getSelectionPlanCache();
+
     /**
      * Convert a value to a string. This is only used when hibernate would fail if params are used.
      * <p>
@@ -22,6 +22,20 @@ import static be.shad.tsqb.proxy.TypeSafeQueryProxyType.EntityType;
 import static be.shad.tsqb.proxy.TypeSafeQueryProxyType.SelectionDtoType;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.persistence.EntityManagerFactory;
 
@@ -32,9 +46,11 @@ import org.hibernate.metadata.ClassMetadata;
 import org.hibernate.metadata.CollectionMetadata;
 import org.hibernate.metamodel.spi.MetamodelImplementor;
 import org.hibernate.persister.collection.OneToManyPersister;
+import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.type.BasicType;
 import org.hibernate.type.CollectionType;
 import org.hibernate.type.ComponentType;
+import org.hibernate.type.CompositeType;
 import org.hibernate.type.StringRepresentableType;
 import org.hibernate.type.Type;
 
@@ -46,6 +62,7 @@ import be.shad.tsqb.proxy.TypeSafeQueryProxyType;
 import be.shad.tsqb.proxy.TypeSafeQuerySelectionProxy;
 import be.shad.tsqb.query.TypeSafeQueryInternal;
 import be.shad.tsqb.query.TypeSafeRootQueryInternal;
+import be.shad.tsqb.selection.SelectionPlanCache;
 import be.shad.tsqb.selection.group.TypeSafeQuerySelectionGroup;
 import javassist.util.proxy.ProxyObject;
 
@@ -57,11 +74,17 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
     private static final Short DEFAULT_SHORT = DEFAULT_INTEGER.shortValue();
     private static final Float DEFAULT_FLOAT = DEFAULT_INTEGER.floatValue();
     private static final Character DEFAULT_CHAR = 'g';
+    private static final Object NOT_MAPPED = new Object();
 
     private final SessionFactory sessionFactory;
     private final MetamodelImplementor metaModel;
     private final TypeSafeQueryProxyFactory proxyFactory;
     private final ConcreteDtoClassResolver classResolver;
+    private SelectionPlanCache selectionPlanCache;
+    private final Set<Class<?>> warmUpDtoClasses = new LinkedHashSet<>();
+    private final ConcurrentMap<Class<?>, Object> classMetadata = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, PropertyMetadata>> propertyMetadata = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, Boolean> basicTypes = new ConcurrentHashMap<>();
 
     public TypeSafeQueryHelperImpl(SessionFactory sessionFactory) {
         this(sessionFactory, new ConcreteDtoClassResolverImpl());
@@ -72,6 +95,12 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
         this.metaModel = (MetamodelImplementor) ((EntityManagerFactory) sessionFactory).getMetamodel();
         this.classResolver = classResolver;
         this.proxyFactory = new TypeSafeQueryProxyFactory(classResolver);
+        for(EntityPersister persister: metaModel.entityPersisters().values()) {
+            Class<?> mappedClass = persister.getMappedClass();
+            if (mappedClass != null && mappedClass.getName().equals(persister.getEntityName())) {
+                classMetadata.put(mappedClass, persister);
+            }
+        }
     }
 
     /**
@@ -82,12 +111,191 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
         return classResolver;
     }
 
-    private Type getTargetType(TypeSafeQueryProxyData data, String property) {
+    /**
+     * Sets the cache to share result transformers with.
+     * Sharing is opt-in, no cache is used by default.
+     */
+    public void setSelectionPlanCache(SelectionPlanCache selectionPlanCache) {
+        this.selectionPlanCache = selectionPlanCache;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SelectionPlanCache getSelectionPlanCache() {
+        return selectionPlanCache;
+    }
+
+    /**
+     * Registers dto classes to generate the selection proxy classes for when warming up.
+     */
+    public void registerWarmUpDtoClasses(Class<?>... dtoClasses) {
+        synchronized (warmUpDtoClasses) {
+            warmUpDtoClasses.addAll(Arrays.asList(dtoClasses));
+        }
+    }
+
+    /**
+     * Delegates to {@link #warmUp(ExecutorService)} without executor.
+     */
+    public int warmUp() {
+        return warmUp(null);
+    }
+
+    /**
+     * Generates the proxy classes for all mapped entities, for their composite, component
+     * and entity collection properties and for the registered dto classes.
+     * The metadata of the entity properties is cached as well.
+     * Generating a proxy class is expensive, warming up at startup
+     * prevents the first queries using a class from paying for it.
+     *
+     * @param executor generates the proxy classes of different classes in parallel when not null.
+     * @return the amount of proxy classes, including those which were already generated.
+     * @throws IllegalArgumentException when one of the classes can't be proxied.
+     */
+    public int warmUp(ExecutorService executor) {
+        Map<Class<?>, Set<TypeSafeQueryProxyType>> proxyTypes = new LinkedHashMap<>();
+        for(EntityPersister persister: metaModel.entityPersisters().values()) {
+            if (isProxyable(persister.getMappedClass())) {
+                addProxyType(proxyTypes, persister.getMappedClass(), EntityType);
+                if (getMetaData(persister.getMappedClass()) == persister) {
+                    for(String propertyName: persister.getPropertyNames()) {
+                        getPropertyMetadata(persister.getMappedClass(), propertyName);
+                    }
+                }
+                collectProxyTypes(proxyTypes, persister.getIdentifierType());
+                for(Type propertyType: persister.getPropertyTypes()) {
+                    collectProxyTypes(proxyTypes, propertyType);
+                }
+            }
+        }
+        synchronized (warmUpDtoClasses) {
+            for(Class<?> dtoClass: warmUpDtoClasses) {
+                addProxyType(proxyTypes, dtoClass, SelectionDtoType);
+            }
+        }
+
+        int count = 0;
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for(final Entry<Class<?>, Set<TypeSafeQueryProxyType>> entry: proxyTypes.entrySet()) {
+                count += entry.getValue().size();
+                Runnable createProxyClasses = new Runnable() {
+                    @Override
+                    public void run() {
+                        for(TypeSafeQueryProxyType proxyType: entry.getValue()) {
+                            proxyFactory.createProxyClass(entry.getKey(), proxyType);
+                        }
+                    }
+                };
+                if (executor == null) {
+                    createProxyClasses.run();
+                } else {
+                    futures.add(executor.submit(createProxyClasses));
+                }
+            }
+            for(Future<?> future: futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating the proxy classes.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to generate a proxy class.", e.getCause());
+        } finally {
+            for(Future<?> future: futures) {
+                future.cancel(true);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the proxy types for the property type, the same way as they
+     * are resolved in {@link #createChildData(TypeSafeQueryInternal, TypeSafeQueryProxyData, String)}.
+     * The properties of composite types are added as well.
+     */
+    private void collectProxyTypes(Map<Class<?>, Set<TypeSafeQueryProxyType>> proxyTypes, Type propertyType) {
+        Class<?> targetClass = getTargetEntityClass(propertyType);
+        if (!isProxyable(targetClass)) {
+            return;
+        }
+        if (getMetaData(targetClass) != null) {
+            addProxyType(proxyTypes, targetClass, propertyType.isCollectionType() ? EntityCollectionType: EntityType);
+        } else if (propertyType.isComponentType()) {
+            TypeSafeQueryProxyType proxyType = propertyType instanceof ComponentType ? ComponentType: CompositeType;
+            if (addProxyType(proxyTypes, targetClass, proxyType)) {
+                for(Type subtype: ((CompositeType) propertyType).getSubtypes()) {
+                    collectProxyTypes(proxyTypes, subtype);
+                }
+            }
+        }
+    }
+
+    /**
+     * Dynamic entities and components are mapped to maps, they don't have a class to proxy.
+     */
+    private boolean isProxyable(Class<?> mappedClass) {
+        return mappedClass != null && !mappedClass.isInterface() && !mappedClass.isPrimitive();
+    }
+
+    /**
+     * @return whether the proxy type was not added for the class yet.
+     */
+    private boolean addProxyType(Map<Class<?>, Set<TypeSafeQueryProxyType>> proxyTypes,
+            Class<?> targetClass, TypeSafeQueryProxyType proxyType) {
+        Set<TypeSafeQueryProxyType> types = proxyTypes.get(targetClass);
+        if (types == null) {
+            types = EnumSet.noneOf(TypeSafeQueryProxyType.class);
+            proxyTypes.put(targetClass, types);
+        }
+        return types.add(proxyType);
+    }
+
+    private PropertyMetadata getPropertyMetadata(TypeSafeQueryProxyData data, String property) {
         if (data.getProxyType().isComposite()) {
-            return getMetaData(data.getCompositeTypeEntityParent().getPropertyType()).
-                    getPropertyType(data.getCompositePropertyPath() + "." + property);
+            return getPropertyMetadata(data.getCompositeTypeEntityParent().getPropertyType(),
+                    data.getCompositePropertyPath() + "." + property);
         }
-        return getMetaData(data.getPropertyType()).getPropertyType(property);
+        return getPropertyMetadata(data.getPropertyType(), property);
+    }
+
+    /**
+     * Retrieves the cached metadata of an entity property,
+     * resolves it using hibernate the first time it is requested.
+     */
+    private PropertyMetadata getPropertyMetadata(Class<?> entityClass, String propertyPath) {
+        ConcurrentMap<String, PropertyMetadata> properties = propertyMetadata.get(entityClass);
+        if (properties == null) {
+            properties = new ConcurrentHashMap<>();
+            ConcurrentMap<String, PropertyMetadata> existing = propertyMetadata.putIfAbsent(entityClass, properties);
+            if (existing != null) {
+                properties = existing;
+            }
+        }
+        PropertyMetadata metadata = properties.get(propertyPath);
+        if (metadata == null) {
+            metadata = createPropertyMetadata(entityClass, propertyPath);
+            properties.putIfAbsent(propertyPath, metadata);
+        }
+        return metadata;
+    }
+
+    private PropertyMetadata createPropertyMetadata(Class<?> entityClass, String propertyPath) {
+        Type propertyType = getMetaData(entityClass).getPropertyType(propertyPath);
+        Class<?> targetClass = getTargetEntityClass(propertyType);
+        ClassMetadata targetMetadata = getMetaData(targetClass);
+        TypeSafeQueryProxyType proxyType = null;
+        if (targetMetadata != null) {
+            proxyType = propertyType.isCollectionType() ? EntityCollectionType: EntityType;
+        } else if (propertyType.isComponentType()) {
+            proxyType = propertyType instanceof ComponentType ? ComponentType: CompositeType;
+        }
+        return new PropertyMetadata(propertyType, targetClass, targetMetadata, proxyType);
     }
 
     /**
@@ -162,7 +370,12 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
     }
 
     boolean isBasicType(Class<?> returnType) {
-        return sessionFactory.getTypeHelper().basic(returnType) != null;
+        Boolean basicType = basicTypes.get(returnType);
+        if (basicType == null) {
+            basicType = sessionFactory.getTypeHelper().basic(returnType) != null;
+            basicTypes.putIfAbsent(returnType, basicType);
+        }
+        return basicType;
     }
 
     /**
@@ -211,31 +424,37 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
      * Creates data based on the hibernate metadata for the given <code>property</code>.
      */
     TypeSafeQueryProxyData createChildData(TypeSafeQueryInternal query, TypeSafeQueryProxyData parent, String property) {
-        Type propertyType = getTargetType(parent, property);
-        Class<?> targetClass = getTargetEntityClass(propertyType);
-        ClassMetadata metadata = getMetaData(targetClass);
-        if (metadata == null && !propertyType.isComponentType()) {
+        PropertyMetadata metadata = getPropertyMetadata(parent, property);
+        Class<?> targetClass = metadata.getTargetClass();
+        TypeSafeQueryProxyType proxyType = metadata.getProxyType();
+        if (proxyType == null) {
             return query.getDataTree().createData(parent, property, targetClass);
         }
-        TypeSafeQueryProxyType proxyType = null;
-        if (metadata != null) {
-            proxyType = propertyType.isCollectionType() ? EntityCollectionType: EntityType;
-        } else {
-            proxyType = propertyType instanceof ComponentType ? ComponentType: CompositeType;
-        }
         TypeSafeQueryProxy proxy = (TypeSafeQueryProxy) proxyFactory.getProxy(targetClass, proxyType);
         TypeSafeQueryProxyData data = query.getDataTree().createData(parent, property, targetClass,
-                proxyType, metadata == null ? null: metadata.getIdentifierPropertyName(), proxy);
+                proxyType, metadata.getIdentifierPropertyName(), proxy);
         setEntityProxyMethodListener(query, proxy, data);
         return data;
     }
 
+    /**
+     * Retrieves the cached metadata of a class, the mapped entity classes are cached
+     * when the helper is created, other classes are resolved the first time they are
+     * requested, hibernate throws an exception for classes which aren't mapped.
+     *
+     * @return the metadata or null if the class isn't an entity.
+     */
     private ClassMetadata getMetaData(Class<?> targetClass) {
-        try {
-            return (ClassMetadata) metaModel.entityPersister(targetClass);
-        } catch (MappingException ex) {
-            return null;
+        Object metadata = classMetadata.get(targetClass);
+        if (metadata == null) {
+            try {
+                metadata = metaModel.entityPersister(targetClass);
+            } catch (MappingException ex) {
+                metadata = NOT_MAPPED;
+            }
+            classMetadata.putIfAbsent(targetClass, metadata);
         }
+        return metadata == NOT_MAPPED ? null: (ClassMetadata) metadata;
     }
 
     /**
@@ -292,7 +511,7 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
      */
     @Override
     public String getMappedByProperty(TypeSafeQueryProxyData child) {
-        Type propertyType = getTargetType(child.getParent(), child.getPropertyPath());
+        Type propertyType = getPropertyMetadata(child.getParent(), child.getPropertyPath()).getPropertyType();
         if (!propertyType.isCollectionType()) {
             throw new IllegalArgumentException("Method not designed to fetch MappedByProperty "
                     + "for a non-collection type. PropertyType was: " + propertyType);
@@ -0,0 +1,90 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.hql;
+
+import be.shad.tsqb.NamedParameter;
+import be.shad.tsqb.values.HqlQueryValue;
+
+/**
+ * Renders a bulk update or delete statement instead of a select query.
+ * <p>
+ * Bulk statements only support a single entity without joins and
+ * a where clause, the other parts of the query must remain empty.
+ */
+public class HqlDmlQuery extends HqlQuery {
+    private final boolean delete;
+    private StringBuilder set = new StringBuilder();
+
+    /**
+     * @param delete whether to render a delete statement, an update statement is rendered otherwise.
+     */
+    public HqlDmlQuery(boolean delete) {
+        this.delete = delete;
+    }
+
+    public boolean isDelete() {
+        return delete;
+    }
+
+    public String getSet() {
+        if (set.length() > 0) {
+            return " set " + set.toString();
+        }
+        return "";
+    }
+
+    public void appendSet(String setPart) {
+        if (set.length() > 0) {
+            set.append(", ");
+        }
+        set.append(setPart);
+    }
+
+    /**
+     * Replaces the references in the set part as well.
+     */
+    @Override
+    public void replaceNamedParam(NamedParameter param, HqlQueryValue value) {
+        replaceAll(set, "(:" + param.getName() + ")", "(" + value.getHql() + ")");
+        super.replaceNamedParam(param, value);
+    }
+
+    /**
+     * Renders the bulk statement, validates only the supported parts of the query were used.
+     */
+    @Override
+    public String getHql() {
+        String entities = getFromEntities();
+        String statement = delete ? "delete": "update";
+        if (getSelect().length() > 0 || getGroupBy().length() > 0
+                || getHaving().length() > 0 || getOrderBy().length() > 0) {
+            throw new IllegalStateException(String.format("Only restrictions can be added "
+                    + "to a bulk %s statement, selections, group bys and order bys are not allowed.", statement));
+        }
+        if (entities.contains(",") || entities.contains(" join ")) {
+            throw new IllegalStateException(String.format("A bulk %s statement can't "
+                    + "use joins or more than one entity: [%s].", statement, entities));
+        }
+        if (delete) {
+            return "delete from " + entities + getWhere();
+        }
+        if (set.length() == 0) {
+            throw new IllegalStateException("A bulk update statement must set at least one property.");
+        }
+        return "update " + entities + getSet() + getWhere();
+    }
+
+}
@@ -15,13 +15,15 @@
  */
 package be.shad.tsqb.hql;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.hibernate.engine.jdbc.internal.BasicFormatterImpl;
 import org.hibernate.transform.ResultTransformer;
 
+import be.shad.tsqb.NamedParameter;
 import be.shad.tsqb.values.HqlQueryValue;
 
 public class HqlQuery implements HqlQueryValue {
@@ -31,9 +33,27 @@ public class HqlQuery implements HqlQueryValue {
     private StringBuilder groupBy = new StringBuilder();
     private StringBuilder having = new StringBuilder();
     private StringBuilder orderBy = new StringBuilder();
-    private List<Object> params = new LinkedList<Object>();
+    private List<Object> params = new ArrayList<Object>();
     private ResultTransformer resultTransformer;
 
+    public HqlQuery() {
+    }
+
+    /**
+     * Creates a copy of the hql and the result transformer of the
+     * original query, with other params than the original query.
+     */
+    public HqlQuery(HqlQuery original, Collection<Object> params) {
+        select.append(original.select);
+        from.append(original.from);
+        where.append(original.where);
+        groupBy.append(original.groupBy);
+        having.append(original.having);
+        orderBy.append(original.orderBy);
+        this.params.addAll(params);
+        resultTransformer = original.resultTransformer;
+    }
+
     public ResultTransformer getResultTransformer() {
         return resultTransformer;
     }
@@ -65,6 +85,14 @@ public class HqlQuery implements HqlQueryValue {
         return " from " + from.toString();
     }
 
+    /**
+     * The from part without the from keyword, for statements
+     * which don't start with a select, like bulk updates.
+     */
+    protected String getFromEntities() {
+        return from.toString();
+    }
+
     public void appendFrom(String fromPart) {
         if (from.length() > 0) {
             from.append(", ");
@@ -129,11 +157,98 @@ public class HqlQuery implements HqlQueryValue {
     }
 
     public void addParams(Collection<Object> params) {
-        this.params.addAll(params);
+        if (!params.isEmpty()) {
+            this.params.addAll(params);
+        }
     }
 
+    /**
+     * Replaces the (:name) references to the named param with the hql of the value,
+     * in all parts of the query, and the named param with the params of the value.
+     *
+     * @throws IllegalArgumentException when the param is not a param of the query,
+     *         or when it is referenced in another way than (:name), in which case the query
+     *         is left unchanged.
+     */
+    public void replaceNamedParam(NamedParameter param, HqlQueryValue value) {
+        int index = -1;
+        for(int i = 0; i < params.size() && index < 0; i++) {
+            if (params.get(i) == param) {
+                index = i;
+            }
+        }
+        if (index < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Param [%s] is not a param of query [%s].", param.getName(), getHql()));
+        }
+        List<StringBuilder> parts = Arrays.asList(select, from, where, groupBy, having, orderBy);
+        String reference = "(:" + param.getName() + ")";
+        int references = 0;
+        int enclosedReferences = 0;
+        for(StringBuilder part: parts) {
+            references += countReferences(part, ":" + param.getName());
+            enclosedReferences += countReferences(part, reference);
+        }
+        if (enclosedReferences == 0 || references != enclosedReferences) {
+            throw new IllegalArgumentException(String.format(
+                    "Param [%s] can only be replaced when all its references are enclosed "
+                    + "in parentheses, query [%s].", param.getName(), getHql()));
+        }
+        String replacement = "(" + value.getHql() + ")";
+        for(StringBuilder part: parts) {
+            replaceAll(part, reference, replacement);
+        }
+        params.remove(index);
+        params.addAll(index, value.getParams());
+    }
+
+    /**
+     * Counts the references to the target, a reference to a param name
+     * must not be followed by another character of a name.
+     */
+    private int countReferences(StringBuilder part, String target) {
+        int count = 0;
+        int index = part.indexOf(target);
+        while (index >= 0) {
+            int end = index + target.length();
+            if (end == part.length() || !Character.isJavaIdentifierPart(part.charAt(end))) {
+                count++;
+            }
+            index = part.indexOf(target, end);
+        }
+        return count;
+    }
+
+    protected void replaceAll(StringBuilder part, String target, String replacement) {
+        int index = part.indexOf(target);
+        while (index >= 0) {
+            part.replace(index, index + target.length(), replacement);
+            index = part.indexOf(target, index + replacement.length());
+        }
+    }
+
+    /**
+     * Appends all parts into a single builder, sized upfront,
+     * instead of concatenating the separate parts.
+     */
     public String getHql() {
-        return getSelect() + getFrom() + getWhere() + getGroupBy() + getHaving() + getOrderBy();
+        StringBuilder hql = new StringBuilder(select.length() + from.length() + where.length()
+                + groupBy.length() + having.length() + orderBy.length() + 64);
+        if (select.length() > 0) {
+            hql.append("select ").append(select);
+        }
+        hql.append(" from ").append(from);
+        appendPart(hql, " where ", where);
+        appendPart(hql, " group by ", groupBy);
+        appendPart(hql, " having ", having);
+        appendPart(hql, " order by ", orderBy);
+        return hql.toString();
+    }
+
+    private void appendPart(StringBuilder hql, String keyword, StringBuilder part) {
+        if (part.length() > 0) {
+            hql.append(keyword).append(part);
+        }
     }
 
     /**
@@ -18,11 +18,13 @@ package be.shad.tsqb.ordering;
 import be.shad.tsqb.hql.HqlQuery;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.values.HqlQueryBuilderParams;
 import be.shad.tsqb.values.HqlQueryValue;
 import be.shad.tsqb.values.TypeSafeValue;
 
-public class OrderByImpl implements OrderBy {
+public class OrderByImpl implements OrderBy, Fingerprintable {
     private TypeSafeValue<?> value;
     private boolean descending;
 
@@ -39,15 +41,31 @@ public class OrderByImpl implements OrderBy {
         this.descending = original.descending;
     }
 
+    public TypeSafeValue<?> getValue() {
+        return value;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
     @Override
     public void appendTo(HqlQuery query, HqlQueryBuilderParams params) {
         //ascending is the default
         String order = descending ? " desc": "";
+        if (params.isOrderingNullsLast()) {
+            order += " nulls last";
+        }
         HqlQueryValue hqlValue = value.toHqlQueryValue(params);
 		query.appendOrderBy(hqlValue.getHql() + order);
 		query.addParams(hqlValue.getParams());
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(descending).append(value);
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new OrderByImpl(context, this);
@@ -21,6 +21,8 @@ import be.shad.tsqb.query.TypeSafeRootQueryInternal;
 import be.shad.tsqb.query.TypeSafeSubQuery;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.selection.TypeSafeValueProjection;
 import be.shad.tsqb.values.HqlQueryBuilderParams;
 import be.shad.tsqb.values.HqlQueryValue;
@@ -29,7 +31,7 @@ import be.shad.tsqb.values.TypeSafeValue;
 /**
  * Allows ordering by an alias which should also be part of the select string.
  */
-public class OrderByProjection implements OrderBy {
+public class OrderByProjection implements OrderBy, Fingerprintable {
     private final TypeSafeQuery query;
     private final String propertyPath;
     private boolean descending;
@@ -49,6 +51,21 @@ public class OrderByProjection implements OrderBy {
         this.descending = original.descending;
     }
 
+    public String getPropertyPath() {
+        return propertyPath;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * The value which is projected into the property path.
+     */
+    public TypeSafeValue<?> getProjectedValue() {
+        return ((TypeSafeRootQueryInternal) query).getProjections().getTypeSafeValue(propertyPath, false);
+    }
+
     /**
      * Orders by the projection with the same alias using the index of the alias.
      * The order by uses the column index because ordering by the alias
@@ -59,6 +76,9 @@ public class OrderByProjection implements OrderBy {
     public void appendTo(HqlQuery hqlQuery, HqlQueryBuilderParams params) {
         //ascending is the default
         String order = descending ? " desc": "";
+        if (params.isOrderingNullsLast()) {
+            order += " nulls last";
+        }
 
         // look for the projection with the correct alias and append it as order by:
         TypeSafeRootQueryInternal query = (TypeSafeRootQueryInternal) this.query;
@@ -84,6 +104,11 @@ public class OrderByProjection implements OrderBy {
         hqlQuery.appendOrderBy(hqlString + order);
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(descending).append(propertyPath);
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new OrderByProjection(context, this);
@@ -15,10 +15,13 @@
  */
 package be.shad.tsqb.ordering;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 
+import be.shad.tsqb.NamedParameter;
 import be.shad.tsqb.hql.HqlQuery;
 import be.shad.tsqb.hql.HqlQueryBuilder;
 import be.shad.tsqb.proxy.TypeSafeQuerySelectionProxy;
@@ -26,12 +29,16 @@ import be.shad.tsqb.query.TypeSafeQueryInternal;
 import be.shad.tsqb.query.TypeSafeRootQueryInternal;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.restrictions.DirectValueProvider;
 import be.shad.tsqb.values.HqlQueryBuilderParams;
+import be.shad.tsqb.values.HqlQueryValue;
+import be.shad.tsqb.values.HqlQueryValueImpl;
 import be.shad.tsqb.values.ProjectionTypeSafeValue;
 import be.shad.tsqb.values.TypeSafeValue;
 
-public class TypeSafeQueryOrderBys implements OnGoingOrderBy, HqlQueryBuilder, Copyable {
+public class TypeSafeQueryOrderBys implements OnGoingOrderBy, HqlQueryBuilder, Copyable, Fingerprintable {
     private static final DirectValueProvider<String> PROJECTION_VALUE_PROVIDER = new DirectValueProvider<String>() {
         @Override
         public TypeSafeValue<String> createEmptyDirectValue(TypeSafeQueryInternal query) {
@@ -207,6 +214,114 @@ public class TypeSafeQueryOrderBys implements OnGoingOrderBy, HqlQueryBuilder, C
         return orderBy(val, false);
     }
 
+    /**
+     * The ordered values, in the order of the order bys.
+     *
+     * @throws IllegalStateException when an order by isn't ordering by a value.
+     */
+    public List<TypeSafeValue<?>> getOrderedValues() {
+        List<TypeSafeValue<?>> values = new ArrayList<>(orderBys.size());
+        for(OrderBy orderBy: orderBys) {
+            if (orderBy instanceof OrderByImpl) {
+                values.add(((OrderByImpl) orderBy).getValue());
+            } else if (orderBy instanceof OrderByProjection) {
+                values.add(((OrderByProjection) orderBy).getProjectedValue());
+            } else {
+                throw new IllegalStateException(String.format(
+                        "Order by [%s] doesn't provide the value it orders by.", orderBy));
+            }
+        }
+        return values;
+    }
+
+    private boolean isDescending(OrderBy orderBy) {
+        if (orderBy instanceof OrderByProjection) {
+            return ((OrderByProjection) orderBy).isDescending();
+        }
+        return ((OrderByImpl) orderBy).isDescending();
+    }
+
+    /**
+     * Creates the restriction to only include rows which are ordered after the key.
+     * The key contains a value for each ordered value, for example, when ordering
+     * by a asc, b desc, the restriction is:
+     * <code>((a &gt; :k1 or a is null) or (a = :k1 and (b &lt; :k2 or b is null)))</code>.
+     * <p>
+     * The restriction expects null values to be ordered last, see
+     * {@link HqlQueryBuilderParams#isOrderingNullsLast()}. A null key value is
+     * compared using <code>is null</code>, no rows are ordered after it for that value.
+     * The ordered values should identify a row, otherwise rows with
+     * the same ordered values as the key are skipped.
+     * <p>
+     * Each ordered value is only converted to hql once and its params are only
+     * added once, the hql is repeated for each comparison.
+     */
+    public HqlQueryValue toKeysetRestriction(Object[] key, HqlQueryBuilderParams params) {
+        List<TypeSafeValue<?>> values = getOrderedValues();
+        if (values.isEmpty()) {
+            throw new IllegalStateException("Keyset paging requires the query to be ordered.");
+        }
+        if (key.length != values.size()) {
+            throw new IllegalArgumentException(String.format("Key %s doesn't contain "
+                    + "a value for each of the [%d] ordered values.", Arrays.toString(key), values.size()));
+        }
+        HqlQueryValueImpl restriction = new HqlQueryValueImpl("(");
+        HqlQueryValue[] hqlValues = new HqlQueryValue[key.length];
+        String[] names = new String[key.length];
+        for(int i=0; i < key.length; i++) {
+            hqlValues[i] = values.get(i).toHqlQueryValue(params);
+            if (key[i] != null) {
+                names[i] = params.createNamedParameter();
+                restriction.addParam(new NamedParameter(names[i], key[i]));
+            }
+        }
+        // the params of a value are only added when its hql is used, a value is
+        // not used when its key value and the key values after it are null:
+        boolean used = false;
+        for(int i=key.length - 1; i >= 0; i--) {
+            used |= key[i] != null;
+            if (used) {
+                restriction.addParams(hqlValues[i].getParams());
+            }
+        }
+        boolean first = true;
+        for(int i=0; i < key.length; i++) {
+            if (key[i] == null) {
+                // no rows are ordered after a null value, the rows with the same
+                // values up to here are only included by the comparison of the next values:
+                continue;
+            }
+            if (!first) {
+                restriction.appendHql(" or ");
+            }
+            first = false;
+            if (i > 0) {
+                restriction.appendHql("(");
+            }
+            for(int j=0; j < i; j++) {
+                if (key[j] == null) {
+                    restriction.appendHql(hqlValues[j].getHql()).append(" is null");
+                } else {
+                    restriction.appendHql(hqlValues[j].getHql()).append(" = :").append(names[j]);
+                }
+                restriction.appendHql(" and ");
+            }
+            String operator = isDescending(orderBys.get(i)) ? " < :": " > :";
+            String hql = hqlValues[i].getHql();
+            restriction.appendHql("(").append(hql).append(operator).append(names[i]).
+                append(" or ").append(hql).append(" is null)");
+            if (i > 0) {
+                restriction.appendHql(")");
+            }
+        }
+        if (first) {
+            // all key values are null, no rows are ordered after the key:
+            restriction.appendHql("1 = 0");
+        }
+        restriction.appendHql(")");
+        return restriction;
+    }
+
     @Override
     public void appendTo(HqlQuery query, HqlQueryBuilderParams params) {
         params.setCreatingOrderingBy(true);
@@ -216,6 +331,13 @@ public class TypeSafeQueryOrderBys implements OnGoingOrderBy, HqlQueryBuilder, C
         params.setCreatingOrderingBy(false);
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        for(OrderBy orderBy: orderBys) {
+            fingerprint.append(orderBy);
+        }
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new TypeSafeQueryOrderBys(context, this);
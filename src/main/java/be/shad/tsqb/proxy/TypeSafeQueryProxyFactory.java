@@ -15,9 +15,20 @@
  */
 package be.shad.tsqb.proxy;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import javassist.util.proxy.MethodFilter;
 import javassist.util.proxy.ProxyFactory;
@@ -28,9 +39,20 @@ import be.shad.tsqb.helper.ConcreteDtoClassResolver;
  * <p>
  * the proxied classes are cached for faster proxy creation and
  * to prevent extra class creations everytime a proxy is requested.
+ * The cache is safe to use from multiple threads without locking.
+ * <p>
+ * Proxy classes generated at build time by the {@link TypeSafeQueryProxyGenerator}
+ * are picked up from the class loader of the proxied class, a proxy class
+ * is only created at runtime when no up to date generated class is available.
  */
 public final class TypeSafeQueryProxyFactory {
 
+    /**
+     * The constant holding the {@link #getProxiedMethodsHash(Class) proxied methods hash}
+     * in a generated proxy class.
+     */
+    static final String PROXIED_METHODS_HASH_FIELD = "TYPE_SAFE_QUERY_PROXIED_METHODS_HASH";
+
     private static final MethodFilter METHOD_FILTER = new MethodFilter() {
         public boolean isHandled(Method m) {
             switch (m.getName()) {
@@ -44,47 +66,169 @@ public final class TypeSafeQueryProxyFactory {
         }
     };
 
-    private final Map<Class<?>, Class<?>>[] proxyClasses;
+    /**
+     * Filled once in the constructor and only read afterwards,
+     * so it can be shared between threads without locking.
+     */
+    private final Map<TypeSafeQueryProxyType, ClassValue<MethodHandle>> proxyConstructors =
+            new EnumMap<>(TypeSafeQueryProxyType.class);
     private final ConcreteDtoClassResolver classResolver;
 
-    @SuppressWarnings("unchecked")
     public TypeSafeQueryProxyFactory(ConcreteDtoClassResolver classResolver) {
         this.classResolver = classResolver;
-        proxyClasses = new HashMap[TypeSafeQueryProxyType.values().length];
-        for (int i = 0, n = TypeSafeQueryProxyType.values().length; i < n; i++) {
-            proxyClasses[i] = new HashMap<>();
+        for (TypeSafeQueryProxyType type: TypeSafeQueryProxyType.values()) {
+            proxyConstructors.put(type, new ProxyConstructorValue(type));
         }
     }
 
+    @SuppressWarnings("unchecked")
     public <T> T getProxy(Class<T> fromClass, TypeSafeQueryProxyType type) {
         try {
-            return (T) getProxyClass(fromClass, type).newInstance();
-        } catch (InstantiationException | IllegalAccessException e) {
+            return (T) (Object) proxyConstructors.get(type).get(fromClass).invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private <T> Class<T> getProxyClass(Class<T> requestedClass, TypeSafeQueryProxyType type) {
-        synchronized ( proxyClasses) {
-            Class<?> proxyClass = proxyClasses[type.ordinal()].get(requestedClass);
-            if (proxyClass == null) {
-                ProxyFactory f = new ProxyFactory();
-                Class<?> concreteClass = classResolver.getConcreteClass(requestedClass);
-                f.setSuperclass(concreteClass); // what if the super class is final?? guess it will give an exception..
-                if (type.isEntity() || type.isComposite()) {
-                    f.setInterfaces(new Class[] { TypeSafeQueryProxy.class });
-                } else {
-                    f.setInterfaces(new Class[] { TypeSafeQuerySelectionProxy.class });
-                }
-                f.setFilter(METHOD_FILTER);
-                proxyClass = f.createClass();
-                proxyClasses[type.ordinal()].put(requestedClass, proxyClass);
-                if (requestedClass != concreteClass) {
-                    proxyClasses[type.ordinal()].put(concreteClass, proxyClass);
+    /**
+     * Creates the proxy class for the class and proxy type if it wasn't created
+     * yet, without creating a proxy, so a later request doesn't have to.
+     */
+    public void createProxyClass(Class<?> fromClass, TypeSafeQueryProxyType type) {
+        proxyConstructors.get(type).get(fromClass);
+    }
+
+    /**
+     * Configures the javassist factory for the proxy class of a class,
+     * shared with the generator so generated and runtime proxies are the same.
+     */
+    static ProxyFactory configureProxyFactory(ProxyFactory f, Class<?> proxiedClass, TypeSafeQueryProxyType type) {
+        f.setSuperclass(proxiedClass); // what if the super class is final?? guess it will give an exception..
+        if (isSelectionProxy(type)) {
+            f.setInterfaces(new Class[] { TypeSafeQuerySelectionProxy.class });
+        } else {
+            f.setInterfaces(new Class[] { TypeSafeQueryProxy.class });
+        }
+        f.setFilter(METHOD_FILTER);
+        return f;
+    }
+
+    /**
+     * A hash of the methods a proxy of the class overrides, the generator stores it
+     * in the generated class to detect it is out of date with the proxied class.
+     */
+    static String getProxiedMethodsHash(Class<?> proxiedClass) {
+        Set<String> signatures = new TreeSet<>();
+        for (Class<?> declaringClass = proxiedClass; declaringClass != null;
+                declaringClass = declaringClass.getSuperclass()) {
+            for (Method method: declaringClass.getDeclaredMethods()) {
+                int modifiers = method.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isPrivate(modifiers)) {
+                    signatures.add(String.format("%s %s.%s%s", Modifier.toString(modifiers),
+                            declaringClass.getName(), method.getName(),
+                            MethodType.methodType(method.getReturnType(), method.getParameterTypes())));
                 }
             }
-            return (Class<T>) proxyClass;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (String signature: signatures) {
+                digest.update((signature + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            return new BigInteger(1, digest.digest()).toString(16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The name of the build time generated proxy class for a class.
+     * Entity and composite proxies share the same class, selection proxies
+     * implement a different interface and get a class of their own.
+     */
+    static String getGeneratedProxyClassName(Class<?> proxiedClass, TypeSafeQueryProxyType type) {
+        if (isSelectionProxy(type)) {
+            return proxiedClass.getName() + "$TypeSafeQuerySelectionProxy";
+        }
+        return proxiedClass.getName() + "$TypeSafeQueryProxy";
+    }
+
+    private static boolean isSelectionProxy(TypeSafeQueryProxyType type) {
+        return !type.isEntity() && !type.isComposite();
+    }
+
+    /**
+     * Loads the build time generated proxy class using the class loader
+     * of the proxied class, returns null if no class was generated
+     * or if the proxied class changed after it was generated.
+     */
+    private static Class<?> loadGeneratedProxyClass(Class<?> proxiedClass, TypeSafeQueryProxyType type) {
+        ClassLoader classLoader = proxiedClass.getClassLoader();
+        if (classLoader == null) {
+            return null;
+        }
+        String proxyClassName = getGeneratedProxyClassName(proxiedClass, type);
+        Class<?> proxyClass;
+        try {
+            proxyClass = Class.forName(proxyClassName, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        Class<?> proxyInterface = isSelectionProxy(type) ? TypeSafeQuerySelectionProxy.class : TypeSafeQueryProxy.class;
+        if (proxyClass.getSuperclass() != proxiedClass || !proxyInterface.isAssignableFrom(proxyClass)) {
+            throw new IllegalStateException(String.format(
+                    "Generated proxy class [%s] is not a [%s] proxy of [%s].",
+                    proxyClassName, proxyInterface.getSimpleName(), proxiedClass));
+        }
+        try {
+            Object hash = proxyClass.getField(PROXIED_METHODS_HASH_FIELD).get(null);
+            return getProxiedMethodsHash(proxiedClass).equals(hash) ? proxyClass: null;
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Loads or creates the proxy class for a requested class the first time it is requested
+     * and keeps a method handle to its no-arg constructor, so creating a proxy
+     * doesn't need the reflective access checks of Class.newInstance.
+     * <p>
+     * The constructors are stored with the requested class, so they don't prevent
+     * the class loader of the requested class from being unloaded and the lookup
+     * of an existing proxy class doesn't need any locking.
+     * In the rare case that the same proxy class is requested concurrently
+     * for the first time, only one of the created classes is kept.
+     */
+    private final class ProxyConstructorValue extends ClassValue<MethodHandle> {
+        private final TypeSafeQueryProxyType type;
+
+        public ProxyConstructorValue(TypeSafeQueryProxyType type) {
+            this.type = type;
+        }
+
+        @Override
+        protected MethodHandle computeValue(Class<?> requestedClass) {
+            Class<?> concreteClass = classResolver.getConcreteClass(requestedClass);
+            if (requestedClass != concreteClass) {
+                // share the proxy class of the concrete class:
+                return get(concreteClass);
+            }
+            Class<?> proxyClass = loadGeneratedProxyClass(concreteClass, type);
+            if (proxyClass == null) {
+                proxyClass = configureProxyFactory(new ProxyFactory(), concreteClass, type).createClass();
+            }
+            try {
+                Constructor<?> constructor = proxyClass.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return MethodHandles.lookup().unreflectConstructor(constructor).
+                        asType(MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalArgumentException(String.format(
+                        "Class [%s] can't be proxied, it has no no-arg constructor.",
+                        concreteClass), e);
+            }
         }
     }
 
@@ -0,0 +1,299 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.proxy;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import javassist.bytecode.AccessFlag;
+import javassist.bytecode.BadBytecode;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.CodeIterator;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.ConstantAttribute;
+import javassist.bytecode.DuplicateMemberException;
+import javassist.bytecode.FieldInfo;
+import javassist.bytecode.MethodInfo;
+import javassist.bytecode.Opcode;
+import javassist.util.proxy.ProxyFactory;
+
+/**
+ * Generates the proxy classes at build time, so the {@link TypeSafeQueryProxyFactory}
+ * can load them from the classpath instead of creating them at startup.
+ * <p>
+ * The class files are written to the output directory, typically the classes
+ * directory of the module containing the entities and dtos. The generate-proxies goal
+ * of the TypeSafeQueryBuilder-maven-plugin does this in the process-classes phase,
+ * the main method can be used when building without maven:
+ * <pre>
+ * java be.shad.tsqb.proxy.TypeSafeQueryProxyGenerator target/classes
+ *     -entity com.example.domain.* -dto com.example.dto.PersonDto
+ * </pre>
+ * Arguments after <code>-entity</code> get entity proxies, arguments after <code>-dto</code>
+ * get selection proxies. An argument ending with <code>.*</code> generates proxies
+ * for all proxyable classes of that package found in a directory on the classpath.
+ * <p>
+ * A generated class contains a hash of the methods of the proxied class,
+ * the factory ignores it when the proxied class changed after it was generated.
+ */
+public final class TypeSafeQueryProxyGenerator {
+    private static final String PACKAGE_WILDCARD = ".*";
+
+    private final File outputDirectory;
+
+    public TypeSafeQueryProxyGenerator(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public static void main(String[] args) throws ClassNotFoundException, IOException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: <outputDirectory> [-entity|-dto] <className|package.*>...");
+        }
+        TypeSafeQueryProxyGenerator generator = new TypeSafeQueryProxyGenerator(new File(args[0]));
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        TypeSafeQueryProxyType type = TypeSafeQueryProxyType.EntityType;
+        for (int i = 1; i < args.length; i++) {
+            if ("-entity".equals(args[i])) {
+                type = TypeSafeQueryProxyType.EntityType;
+            } else if ("-dto".equals(args[i])) {
+                type = TypeSafeQueryProxyType.SelectionDtoType;
+            } else {
+                generator.generate(classLoader, args[i], type);
+            }
+        }
+    }
+
+    /**
+     * Generates the proxy classes for a class name or for all proxyable classes
+     * of a package when the name ends with <code>.*</code>.
+     *
+     * @return the written class files
+     */
+    public List<File> generate(ClassLoader classLoader, String classOrPackageName, TypeSafeQueryProxyType type)
+            throws ClassNotFoundException, IOException {
+        List<File> files = new ArrayList<>();
+        if (classOrPackageName.endsWith(PACKAGE_WILDCARD)) {
+            String packageName = classOrPackageName.substring(0,
+                    classOrPackageName.length() - PACKAGE_WILDCARD.length());
+            for (Class<?> proxiedClass: findProxyableClasses(classLoader, packageName)) {
+                files.add(generate(proxiedClass, type));
+            }
+        } else {
+            files.add(generate(Class.forName(classOrPackageName, false, classLoader), type));
+        }
+        return files;
+    }
+
+    /**
+     * Generates the proxy class for a class and writes its class file to the output directory.
+     * <p>
+     * The proxy class is created by javassist in a throwaway class loader,
+     * its class file is renamed to the generated proxy class name afterwards,
+     * so the generated class is only defined when it is loaded from the output directory.
+     *
+     * @return the written class file
+     */
+    public File generate(Class<?> proxiedClass, TypeSafeQueryProxyType type) {
+        if (!isProxyable(proxiedClass)) {
+            throw new IllegalArgumentException(String.format(
+                    "Class [%s] can't be proxied, it must be a non final class with a no-arg constructor.",
+                    proxiedClass));
+        }
+        final ClassLoader classLoader = new ClassLoader(proxiedClass.getClassLoader()) { };
+        ProxyFactory f = new ProxyFactory() {
+            @Override
+            protected ClassLoader getClassLoader() {
+                return classLoader;
+            }
+        };
+        TypeSafeQueryProxyFactory.configureProxyFactory(f, proxiedClass, type);
+        f.setUseCache(false);
+        String proxyClassName = TypeSafeQueryProxyFactory.getGeneratedProxyClassName(proxiedClass, type);
+        File proxyFile = toClassFile(outputDirectory, proxyClassName);
+        try {
+            File createDirectory = Files.createTempDirectory("tsqb-proxy").toFile();
+            try {
+                f.writeDirectory = createDirectory.getPath();
+                File createdFile = toClassFile(createDirectory, f.createClass().getName());
+                ClassFile classFile = readClassFile(createdFile);
+                String createdClassName = classFile.getName();
+                classFile.renameClass(createdClassName, proxyClassName);
+                replaceClassLookups(classFile, createdClassName);
+                addProxiedMethodsHash(classFile, TypeSafeQueryProxyFactory.getProxiedMethodsHash(proxiedClass));
+                proxyFile.getParentFile().mkdirs();
+                writeClassFile(classFile, proxyFile);
+            } finally {
+                delete(createDirectory);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format(
+                    "Failed to write the proxy class of [%s] to [%s].", proxiedClass, proxyFile), e);
+        }
+        return proxyFile;
+    }
+
+    /**
+     * The static initializer of a javassist proxy looks up its own class with
+     * <code>Class.forName</code>, using the name it was created with.
+     * The lookup is replaced with a class constant, which is renamed with the class.
+     */
+    private static void replaceClassLookups(ClassFile classFile, String createdClassName) {
+        ConstPool constPool = classFile.getConstPool();
+        MethodInfo staticInitializer = classFile.getStaticInitializer();
+        if (staticInitializer == null) {
+            return;
+        }
+        CodeIterator iterator = staticInitializer.getCodeAttribute().iterator();
+        try {
+            while (iterator.hasNext()) {
+                int index = iterator.next();
+                int opcode = iterator.byteAt(index);
+                if (opcode != Opcode.LDC && opcode != Opcode.LDC_W) {
+                    continue;
+                }
+                int constIndex = opcode == Opcode.LDC ? iterator.byteAt(index + 1): iterator.u16bitAt(index + 1);
+                int next = iterator.lookAhead();
+                if (constPool.getTag(constIndex) == ConstPool.CONST_String
+                        && createdClassName.equals(constPool.getStringInfo(constIndex))
+                        && iterator.byteAt(next) == Opcode.INVOKESTATIC
+                        && isClassForName(constPool, iterator.u16bitAt(next + 1))) {
+                    // ldc_w takes the place of the ldc, the rest of the invokestatic is padded:
+                    iterator.writeByte(Opcode.LDC_W, index);
+                    iterator.write16bit(constPool.getThisClassInfo(), index + 1);
+                    for (int i = index + 3; i < next + 3; i++) {
+                        iterator.writeByte(Opcode.NOP, i);
+                    }
+                }
+            }
+        } catch (BadBytecode e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isClassForName(ConstPool constPool, int methodIndex) {
+        return "java.lang.Class".equals(constPool.getMethodrefClassName(methodIndex))
+                && "forName".equals(constPool.getMethodrefName(methodIndex))
+                && "(Ljava/lang/String;)Ljava/lang/Class;".equals(constPool.getMethodrefType(methodIndex));
+    }
+
+    /**
+     * Adds the hash as a constant, so the factory can check whether
+     * the generated class is still up to date with the proxied class.
+     */
+    private static void addProxiedMethodsHash(ClassFile classFile, String hash) {
+        ConstPool constPool = classFile.getConstPool();
+        FieldInfo field = new FieldInfo(constPool, TypeSafeQueryProxyFactory.PROXIED_METHODS_HASH_FIELD,
+                "Ljava/lang/String;");
+        field.setAccessFlags(AccessFlag.PUBLIC | AccessFlag.STATIC | AccessFlag.FINAL);
+        field.addAttribute(new ConstantAttribute(constPool, constPool.addStringInfo(hash)));
+        try {
+            classFile.addField(field);
+        } catch (DuplicateMemberException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static File toClassFile(File directory, String className) {
+        return new File(directory, className.replace('.', File.separatorChar) + ".class");
+    }
+
+    private static ClassFile readClassFile(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return new ClassFile(in);
+        }
+    }
+
+    private static void writeClassFile(ClassFile classFile, File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            classFile.write(out);
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child: children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Finds the classes in the package which can be proxied, only directories
+     * on the classpath are searched, classes in jars are ignored.
+     */
+    static List<Class<?>> findProxyableClasses(ClassLoader classLoader, String packageName)
+            throws IOException, ClassNotFoundException {
+        List<Class<?>> classes = new ArrayList<>();
+        Enumeration<URL> resources = classLoader.getResources(packageName.replace('.', '/'));
+        while (resources.hasMoreElements()) {
+            URL resource = resources.nextElement();
+            if (!"file".equals(resource.getProtocol())) {
+                continue;
+            }
+            File[] files;
+            try {
+                files = new File(resource.toURI()).listFiles();
+            } catch (URISyntaxException e) {
+                throw new IllegalArgumentException(e);
+            }
+            if (files == null) {
+                continue;
+            }
+            for (File file: files) {
+                String fileName = file.getName();
+                if (!fileName.endsWith(".class") || fileName.contains("$TypeSafeQuery")) {
+                    continue;
+                }
+                String className = packageName + "." + fileName.substring(0, fileName.length() - ".class".length());
+                Class<?> candidate = Class.forName(className, false, classLoader);
+                if (isProxyable(candidate)) {
+                    classes.add(candidate);
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static boolean isProxyable(Class<?> candidate) {
+        if (candidate.isInterface() || candidate.isEnum() || candidate.isAnnotation()
+                || candidate.isAnonymousClass() || candidate.isLocalClass()) {
+            return false;
+        }
+        int modifiers = candidate.getModifiers();
+        if (Modifier.isFinal(modifiers) || candidate.isMemberClass() && !Modifier.isStatic(modifiers)) {
+            return false;
+        }
+        try {
+            candidate.getDeclaredConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query;
+
+import java.util.List;
+
+import be.shad.tsqb.data.TypeSafeQueryProxyData;
+import be.shad.tsqb.helper.TypeSafeQueryHelper;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.copy.CopyContext;
+import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.restrictions.predicate.RestrictionPredicate;
+import be.shad.tsqb.values.HqlQueryBuilderParamsImpl;
+
+/**
+ * The base of the bulk update and delete queries, these are not select queries,
+ * so they only share the from and where parts with the other queries.
+ * <p>
+ * Subqueries in the where part delegate the invocations, aliases and named values
+ * to a root query. The bulk statement keeps the invocations and named values in a
+ * root query of its own, which is never rendered, and delegates to it as well.
+ * The entity aliases are created by the bulk statement, so a copy gets the same aliases.
+ */
+public abstract class AbstractTypeSafeDmlQuery extends AbstractTypeSafeQuery implements TypeSafeDmlQuery {
+    private int entityAliasCount;
+
+    /**
+     * Copy constructor
+     */
+    protected AbstractTypeSafeDmlQuery(CopyContext context, AbstractTypeSafeDmlQuery original) {
+        super(context, original);
+        entityAliasCount = original.entityAliasCount;
+    }
+
+    public AbstractTypeSafeDmlQuery(TypeSafeQueryHelper helper) {
+        super(helper);
+        setRootQuery(new DmlRootQuery(helper, this));
+    }
+
+    @Override
+    protected void initializeDefaults() {
+        entityAliasCount = 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public HqlQuery toHqlQuery() {
+        return toHqlQuery(new HqlQueryBuilderParamsImpl());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeQueryInternal getParentQuery() {
+        return this;
+    }
+
+    /**
+     * Delegate to root.
+     */
+    @Override
+    public List<TypeSafeQueryProxyData> dequeueInvocations() {
+        return getRootQuery().dequeueInvocations();
+    }
+
+    /**
+     * Delegate to root.
+     */
+    @Override
+    public TypeSafeQueryProxyData dequeueInvocation() {
+        return getRootQuery().dequeueInvocation();
+    }
+
+    /**
+     * Delegate to root.
+     */
+    @Override
+    public void invocationWasMade(TypeSafeQueryProxyData data) {
+        getRootQuery().invocationWasMade(data);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String createEntityAlias() {
+        return "hobj"+ entityAliasCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RestrictionPredicate getDefaultRestrictionPredicate() {
+        return getRootQuery().getDefaultRestrictionPredicate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDefaultRestrictionPredicate(RestrictionPredicate restrictionValuePredicate) {
+        getRootQuery().setDefaultRestrictionPredicate(restrictionValuePredicate);
+    }
+
+    /**
+     * Delegate to root.
+     */
+    @Override
+    public void setHqlAlias(Object value, String alias) {
+        getRootQuery().setHqlAlias(value, alias);
+    }
+
+    /**
+     * Delegate to root.
+     */
+    @Override
+    public <V> V getByHqlAlias(String alias) {
+        return getRootQuery().getByHqlAlias(alias);
+    }
+
+    /**
+     * Delegate to root.
+     */
+    @Override
+    public TypeSafeNameds named() {
+        return getRootQuery().named();
+    }
+
+    /**
+     * The root query of a bulk statement, the entity aliases of its
+     * subqueries are created by the statement.
+     */
+    private static final class DmlRootQuery extends TypeSafeRootQueryImpl {
+        private final AbstractTypeSafeDmlQuery statement;
+
+        public DmlRootQuery(TypeSafeQueryHelper helper, AbstractTypeSafeDmlQuery statement) {
+            super(helper);
+            this.statement = statement;
+        }
+
+        /**
+         * Copy constructor
+         */
+        private DmlRootQuery(CopyContext context, DmlRootQuery original) {
+            super(context, original);
+            this.statement = context.get(original.statement);
+        }
+
+        @Override
+        public Copyable copy(CopyContext context) {
+            return new DmlRootQuery(context, this);
+        }
+
+        @Override
+        public String createEntityAlias() {
+            return statement.createEntityAlias();
+        }
+    }
+
+}
@@ -30,6 +30,8 @@ import be.shad.tsqb.ordering.OnGoingOrderBy;
 import be.shad.tsqb.ordering.TypeSafeQueryOrderBys;
 import be.shad.tsqb.proxy.TypeSafeQueryProxy;
 import be.shad.tsqb.query.copy.CopyContext;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.restrictions.DirectValueProvider;
 import be.shad.tsqb.restrictions.OnGoingBooleanRestriction;
 import be.shad.tsqb.restrictions.OnGoingDateRestriction;
@@ -65,7 +67,7 @@ import be.shad.tsqb.values.arithmetic.ArithmeticTypeSafeValueFactoryImpl;
 /**
  * Collects the data and creates the hqlQuery based on this data.
  */
-public abstract class AbstractTypeSafeQuery implements TypeSafeQuery, TypeSafeQueryInternal {
+public abstract class AbstractTypeSafeQuery implements TypeSafeQuery, TypeSafeQueryInternal, Fingerprintable {
     protected final TypeSafeQueryHelper helper;
     private TypeSafeRootQueryInternal rootQuery;
 
@@ -904,20 +906,85 @@ public abstract class AbstractTypeSafeQuery implements TypeSafeQuery, TypeSafeQu
         return new TypeSafeValueFunctions(this);
     }
 
+    /**
+     * Appends the projections to the select part of the query.
+     */
+    protected void appendProjections(HqlQuery query, HqlQueryBuilderParams params) {
+        projections.appendTo(query, params);
+    }
+
+    /**
+     * Appends the order bys to the order by part of the query.
+     */
+    protected void appendOrderBys(HqlQuery query, HqlQueryBuilderParams params) {
+        orderBys.appendTo(query, params);
+    }
+
+    /**
+     * Whether counting the results of this query requires counting the selected rows,
+     * instead of using count(*), because the rows are grouped or aggregated, or
+     * distinct over more than one selected value.
+     */
+    public boolean isCountedByRows() {
+        return !groupBys.isEmpty() || !havingRestrictions.isEmpty() || projections.isAggregated()
+                || (projections.isDistinct() && projections.getProjections().size() > 1);
+    }
+
+    /**
+     * Converts the where restrictions to an hql value.
+     */
+    protected HqlQueryValue toWhereHqlQueryValue(HqlQueryBuilderParams params) {
+        return whereRestrictions.toHqlQueryValue(params);
+    }
+
+    /**
+     * Creates the query object the parts of this query are appended to.
+     */
+    protected HqlQuery createHqlQuery() {
+        return new HqlQuery();
+    }
+
+    /**
+     * Appends the parts of the query to the fingerprint in the same order as they are composed into hql.
+     */
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        appendProjectionsFingerprint(fingerprint);
+        dataTree.appendFingerprint(fingerprint);
+        appendWhereFingerprint(fingerprint);
+        groupBys.appendFingerprint(fingerprint);
+        fingerprint.append(havingRestrictions);
+        orderBys.appendFingerprint(fingerprint);
+    }
+
+    /**
+     * Appends the projections to the fingerprint, see {@link #appendProjections(HqlQuery, HqlQueryBuilderParams)}.
+     */
+    protected void appendProjectionsFingerprint(QueryFingerprint fingerprint) {
+        projections.appendFingerprint(fingerprint);
+    }
+
+    /**
+     * Appends the where restrictions to the fingerprint, see {@link #toWhereHqlQueryValue(HqlQueryBuilderParams)}.
+     */
+    protected void appendWhereFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(whereRestrictions);
+    }
+
     /**
      * Compose a query object with the selections, from, wheres, group bys and order bys.
      */
     protected HqlQuery toHqlQuery(HqlQueryBuilderParams params) {
-        HqlQuery query = new HqlQuery();
+        HqlQuery query = createHqlQuery();
 
         // append select part:
-        projections.appendTo(query, params);
+        appendProjections(query, params);
 
         // append from part + their joins:
         dataTree.appendTo(query, params);
 
         // append where part:
-        HqlQueryValue hqlWhereRestrictions = whereRestrictions.toHqlQueryValue(params);
+        HqlQueryValue hqlWhereRestrictions = toWhereHqlQueryValue(params);
         query.appendWhere(hqlWhereRestrictions.getHql());
         query.addParams(hqlWhereRestrictions.getParams());
 
@@ -929,7 +996,7 @@ public abstract class AbstractTypeSafeQuery implements TypeSafeQuery, TypeSafeQu
         query.addParams(hqlHavingRestrictions.getParams());
 
         // append order part:
-        orderBys.appendTo(query, params);
+        appendOrderBys(query, params);
 
         return query;
     }
@@ -0,0 +1,69 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The values to bind to a {@link PreparedTypeSafeQuery} for one execution.
+ * Values which are not set keep the value they had when the query was prepared.
+ * <p>
+ * Instances are not thread-safe, create one per execution.
+ */
+public class PreparedQueryParameters {
+    private final Map<String, Object> values = new LinkedHashMap<>();
+    private int firstResult = -1;
+    private int maxResults = -1;
+
+    /**
+     * Sets the value for the named value with the given name,
+     * see {@link TypeSafeNameds#setValue(String, Object)}.
+     */
+    public PreparedQueryParameters set(String name, Object value) {
+        values.put(name, value);
+        return this;
+    }
+
+    public Map<String, Object> getValues() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * When set, overrides the first result of the prepared query.
+     */
+    public int getFirstResult() {
+        return firstResult;
+    }
+
+    public PreparedQueryParameters setFirstResult(int firstResult) {
+        this.firstResult = firstResult;
+        return this;
+    }
+
+    /**
+     * When set, overrides the max results of the prepared query.
+     */
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public PreparedQueryParameters setMaxResults(int maxResults) {
+        this.maxResults = maxResults;
+        return this;
+    }
+}
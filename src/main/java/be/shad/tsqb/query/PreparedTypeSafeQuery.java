@@ -0,0 +1,131 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import be.shad.tsqb.CollectionNamedParameter;
+import be.shad.tsqb.NamedParameter;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
+import be.shad.tsqb.values.NamedValueEnabled;
+
+/**
+ * An immutable query created by {@link TypeSafeRootQuery#prepare()}.
+ * <p>
+ * The hql and result transformer are built once, executing the prepared query
+ * only binds the parameter values, see {@link #toHqlQuery(PreparedQueryParameters)}.
+ * A prepared query can be shared and executed by multiple threads at the same time.
+ */
+public final class PreparedTypeSafeQuery {
+    private final HqlQuery hqlQuery;
+    private final QueryFingerprint fingerprint;
+    private final int firstResult;
+    private final int maxResults;
+    private final Map<String, NamedValueEnabled> namedValues;
+    private final Map<NamedValueEnabled, List<String>> parameterNames;
+
+    PreparedTypeSafeQuery(HqlQuery hqlQuery, QueryFingerprint fingerprint,
+            int firstResult, int maxResults, Map<String, NamedValueEnabled> namedValues,
+            Map<NamedValueEnabled, List<String>> parameterNames) {
+        this.hqlQuery = hqlQuery;
+        this.fingerprint = fingerprint;
+        this.firstResult = firstResult;
+        this.maxResults = maxResults;
+        this.namedValues = namedValues;
+        this.parameterNames = parameterNames;
+    }
+
+    public String getHql() {
+        return hqlQuery.getHql();
+    }
+
+    /**
+     * The fingerprint of the query when it was prepared, the prepared hql may differ from
+     * the hql of the query because operators are not adjusted to the values when preparing.
+     */
+    public QueryFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    public int getFirstResult() {
+        return firstResult;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * Creates an hql query with the prepared hql and result transformer and
+     * the values of the parameters bound to the named parameters.
+     *
+     * @throws IllegalArgumentException if a name is unknown, if the value is not valid
+     *         for the named value, or if the named value was rendered as a literal
+     *         when the query was prepared and can therefore not be rebound.
+     */
+    public HqlQuery toHqlQuery(PreparedQueryParameters parameters) {
+        Map<String, Object> boundValues = Collections.emptyMap();
+        if (!parameters.getValues().isEmpty()) {
+            boundValues = new HashMap<>();
+            for(Entry<String, Object> entry: parameters.getValues().entrySet()) {
+                NamedValueEnabled namedValue = namedValues.get(entry.getKey());
+                if (namedValue == null) {
+                    throw new IllegalArgumentException(String.format(
+                            "No named value found for [%s] in prepared query [%s].",
+                            entry.getKey(), getHql()));
+                }
+                List<String> names = parameterNames.get(namedValue);
+                if (names == null) {
+                    throw new IllegalArgumentException(String.format(
+                            "Named value [%s] is not a parameter of prepared query [%s], "
+                            + "it was either not used or added as literal.", entry.getKey(), getHql()));
+                }
+                Object value = namedValue.toNamedParameterValue(entry.getValue());
+                for(String name: names) {
+                    boundValues.put(name, value);
+                }
+            }
+        }
+
+        List<Object> params = new ArrayList<>(hqlQuery.getParams().size());
+        for(Object param: hqlQuery.getParams()) {
+            if (param instanceof NamedParameter && boundValues.containsKey(((NamedParameter) param).getName())) {
+                NamedParameter named = (NamedParameter) param;
+                Object value = boundValues.get(named.getName());
+                if (named instanceof CollectionNamedParameter) {
+                    param = new CollectionNamedParameter(named.getName(), (Collection<?>) value,
+                            ((CollectionNamedParameter) named).getBatchSize());
+                } else {
+                    param = new NamedParameter(named.getName(), value);
+                }
+            }
+            params.add(param);
+        }
+        return new HqlQuery(hqlQuery, params);
+    }
+
+    @Override
+    public String toString() {
+        return hqlQuery.toString();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import be.shad.tsqb.values.HqlQueryBuilderParamsImpl;
+import be.shad.tsqb.values.NamedValueEnabled;
+
+/**
+ * Builder params used to build the hql of a prepared query.
+ * Keeps track of the named parameters which were created per named value enabled source.
+ */
+class PreparingHqlQueryBuilderParams extends HqlQueryBuilderParamsImpl {
+    private final Map<NamedValueEnabled, List<String>> parameterNames = new IdentityHashMap<>();
+
+    PreparingHqlQueryBuilderParams() {
+        setPreparingQuery(true);
+    }
+
+    @Override
+    public String createNamedParameter(NamedValueEnabled source) {
+        String name = super.createNamedParameter(source);
+        List<String> names = parameterNames.get(source);
+        if (names == null) {
+            names = new LinkedList<>();
+            parameterNames.put(source, names);
+        }
+        names.add(name);
+        return name;
+    }
+
+    /**
+     * The parameter names created per source, a source may be
+     * rendered more than once, resulting in multiple names.
+     */
+    Map<NamedValueEnabled, List<String>> getParameterNames() {
+        return parameterNames;
+    }
+}
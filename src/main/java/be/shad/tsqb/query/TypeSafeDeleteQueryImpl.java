@@ -0,0 +1,50 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query;
+
+import be.shad.tsqb.helper.TypeSafeQueryHelper;
+import be.shad.tsqb.hql.HqlDmlQuery;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.copy.CopyContext;
+import be.shad.tsqb.query.copy.Copyable;
+
+/**
+ * Renders the query as a bulk delete statement.
+ */
+public class TypeSafeDeleteQueryImpl extends AbstractTypeSafeDmlQuery implements TypeSafeDeleteQuery {
+
+    @Override
+    public Copyable copy(CopyContext context) {
+        return new TypeSafeDeleteQueryImpl(context, this);
+    }
+
+    /**
+     * Copy constructor
+     */
+    protected TypeSafeDeleteQueryImpl(CopyContext context, TypeSafeDeleteQueryImpl original) {
+        super(context, original);
+    }
+
+    public TypeSafeDeleteQueryImpl(TypeSafeQueryHelper helper) {
+        super(helper);
+    }
+
+    @Override
+    protected HqlQuery createHqlQuery() {
+        return new HqlDmlQuery(true);
+    }
+
+}
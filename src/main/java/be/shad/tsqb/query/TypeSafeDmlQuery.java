@@ -0,0 +1,36 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query;
+
+import be.shad.tsqb.hql.HqlQuery;
+
+/**
+ * A query which is executed as a bulk update or delete statement,
+ * instead of selecting values.
+ * <p>
+ * The statement can use the where restrictions of the query,
+ * including subqueries, but no joins, selections, group bys or order bys.
+ */
+public interface TypeSafeDmlQuery extends TypeSafeQuery {
+
+    /**
+     * Converts the query to an hql statement with its params.
+     *
+     * @throws IllegalStateException when parts of the query were used which bulk statements don't support.
+     */
+    HqlQuery toHqlQuery();
+
+}
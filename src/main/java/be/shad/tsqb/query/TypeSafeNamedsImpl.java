@@ -69,6 +69,19 @@ public class TypeSafeNamedsImpl implements TypeSafeNameds, Copyable {
         named(NamedValueEnabled.class, name).setNamedValue(value);
     }
 
+    /**
+     * The named objects to which a value can be bound, by name.
+     */
+    Map<String, NamedValueEnabled> getNamedValues() {
+        Map<String, NamedValueEnabled> namedValues = new HashMap<>();
+        for(Entry<String, Object> named: nameds.entrySet()) {
+            if (named.getValue() instanceof NamedValueEnabled) {
+                namedValues.put(named.getKey(), (NamedValueEnabled) named.getValue());
+            }
+        }
+        return namedValues;
+    }
+
     /**
      * Get the named value and validates null and assignability.
      */
@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.Map;
 
 import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.restrictions.Restriction;
 import be.shad.tsqb.selection.SelectionValueTransformer;
 import be.shad.tsqb.selection.collection.ResultIdentifierBinder;
@@ -74,6 +75,18 @@ public interface TypeSafeRootQuery extends TypeSafeQuery {
      */
     HqlQuery toHqlQuery();
 
+    /**
+     * Builds the hql and the result transformer of a copy of this query once,
+     * so the query can be executed many times with other values for its named
+     * values, also by multiple threads at the same time.
+     * <p>
+     * The values bound to the named values at the time of preparing are used
+     * as defaults. Everything else is fixed at the time of preparing, including
+     * which restrictions are applicable according to their predicates.
+     * Named values which are added to the hql as literals can't be rebound.
+     */
+    PreparedTypeSafeQuery prepare();
+
     /**
      * Delegates to {@link #selectValue(Object)}.
      * @deprecated use {@link #selectValue(Object)} instead.
@@ -207,4 +220,42 @@ public interface TypeSafeRootQuery extends TypeSafeQuery {
      */
     int getMaxResults();
 
+    /**
+     * Keyset paging: only fetch the rows which are ordered after the key.
+     * The key contains a value for each order by of this query, typically
+     * the ordered values of the last row of the previous page.
+     * The order bys should identify a row, for example by ordering by the id last.
+     * Null values are ordered last when keyset paging, the key may contain null values.
+     * <p>
+     * Contrary to {@link #setFirstResult(int)}, the database doesn't need to
+     * skip the rows before the key, so each page costs the same.
+     *
+     * @param key the key values, or null to fetch from the start.
+     * @see be.shad.tsqb.dao.TypeSafeQueryDao#doQueryPage(TypeSafeRootQuery, int)
+     */
+    void setKeysetAfter(Object... key);
+
+    /**
+     * The key after which rows are fetched, null by default.
+     */
+    Object[] getKeysetAfter();
+
+    /**
+     * Whether the transformed results of this query may be cached, false by default.
+     * Only applies when the dao which executes the query has a result cache.
+     *
+     * @see be.shad.tsqb.dao.QueryResultCache
+     */
+    void setCacheable(boolean cacheable);
+
+    boolean isCacheable();
+
+    /**
+     * Computes the structural fingerprint of this query by walking its parts, without rendering the hql.
+     * Queries which only differ in the values of their named parameters have the same fingerprint,
+     * so it can be used to key caches and metrics on the shape of the query.
+     * The first and max results and the keyset values are not part of the fingerprint.
+     */
+    QueryFingerprint getFingerprint();
+
 }
@@ -30,6 +30,7 @@ import be.shad.tsqb.proxy.TypeSafeQueryProxy;
 import be.shad.tsqb.proxy.TypeSafeQuerySelectionProxy;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.restrictions.Restriction;
 import be.shad.tsqb.restrictions.predicate.RestrictionPredicate;
 import be.shad.tsqb.selection.SelectionValueTransformer;
@@ -45,7 +46,10 @@ import be.shad.tsqb.selection.parallel.SelectionMerger;
 import be.shad.tsqb.selection.parallel.SelectionMerger1;
 import be.shad.tsqb.selection.parallel.SelectionMerger2;
 import be.shad.tsqb.selection.parallel.SelectionMerger3;
+import be.shad.tsqb.values.HqlQueryBuilderParams;
 import be.shad.tsqb.values.HqlQueryBuilderParamsImpl;
+import be.shad.tsqb.values.HqlQueryValue;
+import be.shad.tsqb.values.HqlQueryValueImpl;
 import be.shad.tsqb.values.RestrictionTypeSafeValue;
 import be.shad.tsqb.values.TypeSafeValue;
 
@@ -65,6 +69,8 @@ public class TypeSafeRootQueryImpl extends AbstractTypeSafeQuery implements Type
     private int selectionGroupAliasCount;
     private int firstResult;
     private int maxResults;
+    private Object[] keysetAfter;
+    private boolean cacheable;
 
     @Override
     public TypeSafeRootQuery copy() {
@@ -110,6 +116,8 @@ public class TypeSafeRootQueryImpl extends AbstractTypeSafeQuery implements Type
         selectionGroupAliasCount = original.selectionGroupAliasCount;
         firstResult = original.firstResult;
         maxResults = original.maxResults;
+        keysetAfter = original.keysetAfter;
+        cacheable = original.cacheable;
     }
 
     public TypeSafeRootQueryImpl(TypeSafeQueryHelper helper) {
@@ -150,6 +158,38 @@ public class TypeSafeRootQueryImpl extends AbstractTypeSafeQuery implements Type
         this.maxResults = maxResults;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setKeysetAfter(Object... key) {
+        this.keysetAfter = key == null ? null: key.clone();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object[] getKeysetAfter() {
+        return keysetAfter == null ? null: keysetAfter.clone();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setCacheable(boolean cacheable) {
+        this.cacheable = cacheable;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -469,6 +509,125 @@ public class TypeSafeRootQueryImpl extends AbstractTypeSafeQuery implements Type
         return super.toHqlQuery(new HqlQueryBuilderParamsImpl());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public HqlQuery toHqlQuery(HqlQueryBuilderParams params) {
+        HqlQuery hqlQuery = super.toHqlQuery(params);
+        if (params.isSelectingKeyset()) {
+            if (getProjections().getProjections().isEmpty()) {
+                throw new IllegalStateException("Selecting the keyset requires the "
+                        + "query to select values explicitly.");
+            }
+            for(TypeSafeValue<?> value: getOrderBys().getOrderedValues()) {
+                HqlQueryValue hqlValue = value.toHqlQueryValue(params);
+                hqlQuery.appendSelect(hqlValue.getHql());
+                hqlQuery.addParams(hqlValue.getParams());
+            }
+        }
+        return hqlQuery;
+    }
+
+    /**
+     * Selects the count instead of the projections when counting rows.
+     * When the query is counted by rows, the projections are
+     * selected without creating a result transformer.
+     */
+    @Override
+    protected void appendProjections(HqlQuery query, HqlQueryBuilderParams params) {
+        if (!params.isCountingRows()) {
+            super.appendProjections(query, params);
+        } else if (isCountedByRows()) {
+            boolean previous = params.isCreatingResultTransformer();
+            params.setCreatingResultTransformer(false);
+            super.appendProjections(query, params);
+            params.setCreatingResultTransformer(previous);
+        } else if (getProjections().isDistinct()) {
+            // a single distinct projection, count the distinct values:
+            HqlQueryValue value = getProjections().getProjections().getFirst().getValue().toHqlQueryValue(params);
+            query.appendSelect("count(" + value.getHql() + ")");
+            query.addParams(value.getParams());
+        } else {
+            query.appendSelect("count(*)");
+        }
+    }
+
+    /**
+     * The ordering doesn't change the count, it is left out when counting rows.
+     * When keyset paging, null values are ordered last so the keyset restriction
+     * knows where the rows with null ordered values are.
+     */
+    @Override
+    protected void appendOrderBys(HqlQuery query, HqlQueryBuilderParams params) {
+        if (!params.isCountingRows()) {
+            params.setOrderingNullsLast(params.isSelectingKeyset() || keysetAfter != null);
+            super.appendOrderBys(query, params);
+            params.setOrderingNullsLast(false);
+        }
+    }
+
+    /**
+     * Adds the keyset restriction to the where restrictions when keyset paging.
+     * The restriction is left out when counting rows, the total count ignores
+     * the page the same as it ignores the first/max results.
+     */
+    @Override
+    protected HqlQueryValue toWhereHqlQueryValue(HqlQueryBuilderParams params) {
+        HqlQueryValue where = super.toWhereHqlQueryValue(params);
+        if (keysetAfter == null || params.isCountingRows()) {
+            return where;
+        }
+        HqlQueryValue keyset = getOrderBys().toKeysetRestriction(keysetAfter, params);
+        if (where.getHql().isEmpty()) {
+            return keyset;
+        }
+        HqlQueryValueImpl value = new HqlQueryValueImpl("(" + where.getHql() + ") and " + keyset.getHql(), where.getParams());
+        value.addParams(keyset.getParams());
+        return value;
+    }
+
+    /**
+     * The keyset values are named parameters, only whether the query
+     * is keyset paged and which key values are null is part of the fingerprint.
+     */
+    @Override
+    protected void appendWhereFingerprint(QueryFingerprint fingerprint) {
+        super.appendWhereFingerprint(fingerprint);
+        fingerprint.append(keysetAfter == null ? 0: keysetAfter.length);
+        if (keysetAfter != null) {
+            for(Object value: keysetAfter) {
+                fingerprint.append(value == null);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public QueryFingerprint getFingerprint() {
+        QueryFingerprint fingerprint = new QueryFingerprint();
+        fingerprint.append(getClass());
+        appendFingerprint(fingerprint);
+        return fingerprint;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PreparedTypeSafeQuery prepare() {
+        // prepare a copy, so later changes to this query don't affect the prepared query:
+        TypeSafeRootQueryImpl query = (TypeSafeRootQueryImpl) copy();
+        PreparingHqlQueryBuilderParams params = new PreparingHqlQueryBuilderParams();
+        HqlQuery hqlQuery = query.toHqlQuery(params);
+        return new PreparedTypeSafeQuery(hqlQuery, query.getFingerprint().append("prepared"),
+                query.firstResult, query.maxResults,
+                ((TypeSafeNamedsImpl) query.namedObjects).getNamedValues(),
+                params.getParameterNames());
+    }
+
     /**
      * {@inheritDoc}
      */
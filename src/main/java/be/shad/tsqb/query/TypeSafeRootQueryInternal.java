@@ -16,6 +16,8 @@
 package be.shad.tsqb.query;
 
 import be.shad.tsqb.data.TypeSafeQuerySelectionProxyData;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.values.HqlQueryBuilderParams;
 import be.shad.tsqb.values.TypeSafeValue;
 
 /**
@@ -64,4 +66,16 @@ public interface TypeSafeRootQueryInternal extends TypeSafeRootQuery, TypeSafeQu
      */
     String createSelectGroupAlias();
 
+    /**
+     * Converts the query to an hql query using the given params,
+     * allows the caller to control how the hql query is built.
+     */
+    HqlQuery toHqlQuery(HqlQueryBuilderParams params);
+
+    /**
+     * Whether the count query, see {@link HqlQueryBuilderParams#isCountingRows()},
+     * selects the rows to count instead of selecting the count.
+     */
+    boolean isCountedByRows();
+
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query;
+
+import be.shad.tsqb.values.TypeSafeValue;
+
+/**
+ * Updates properties of the entities matching the where restrictions in a single statement.
+ * <p>
+ * The entities are updated without loading them, versions are not incremented
+ * and entities which are already loaded in the session are not refreshed.
+ */
+public interface TypeSafeUpdateQuery extends TypeSafeDmlQuery {
+
+    /**
+     * Sets the property to the value.
+     * <p>
+     * The property must be a property of the updated entity, obtained by calling its getter.
+     * The value can be a direct value, null, or another property of the entity:
+     * <pre>
+     * query.set(person.getAge(), 30);
+     * query.set(person.getNickname(), person.getName());
+     * </pre>
+     */
+    <T> TypeSafeUpdateQuery set(T property, T value);
+
+    /**
+     * Sets the property to the value, for example a subquery or a function result.
+     * <p>
+     * The value must be created before calling the getter of the property,
+     * to keep the pending invocation for the property.
+     */
+    <T> TypeSafeUpdateQuery set(T property, TypeSafeValue<T> value);
+
+}
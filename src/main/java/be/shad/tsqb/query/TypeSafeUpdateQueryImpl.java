@@ -0,0 +1,169 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import be.shad.tsqb.data.TypeSafeQueryProxyData;
+import be.shad.tsqb.helper.TypeSafeQueryHelper;
+import be.shad.tsqb.hql.HqlDmlQuery;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.proxy.TypeSafeQueryProxy;
+import be.shad.tsqb.query.copy.CopyContext;
+import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
+import be.shad.tsqb.values.HqlQueryBuilderParams;
+import be.shad.tsqb.values.HqlQueryValue;
+import be.shad.tsqb.values.ReferenceTypeSafeValue;
+import be.shad.tsqb.values.TypeSafeValue;
+
+/**
+ * Collects the properties to set and renders the query as a bulk update statement.
+ * A null value in the values list sets the property to null.
+ */
+public class TypeSafeUpdateQueryImpl extends AbstractTypeSafeDmlQuery implements TypeSafeUpdateQuery {
+    private final List<ReferenceTypeSafeValue<?>> properties = new LinkedList<>();
+    private final List<TypeSafeValue<?>> values = new LinkedList<>();
+
+    @Override
+    public Copyable copy(CopyContext context) {
+        return new TypeSafeUpdateQueryImpl(context, this);
+    }
+
+    /**
+     * Copy constructor
+     */
+    protected TypeSafeUpdateQueryImpl(CopyContext context, TypeSafeUpdateQueryImpl original) {
+        super(context, original);
+        for(ReferenceTypeSafeValue<?> property: original.properties) {
+            properties.add(context.get(property));
+        }
+        for(TypeSafeValue<?> value: original.values) {
+            values.add(context.get(value));
+        }
+    }
+
+    public TypeSafeUpdateQueryImpl(TypeSafeQueryHelper helper) {
+        super(helper);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> TypeSafeUpdateQuery set(T property, T value) {
+        List<TypeSafeQueryProxyData> invocations = dequeueInvocations();
+        TypeSafeQueryProxyData propertyData = toPropertyData(property, invocations);
+        if (invocations.size() > 1) {
+            throw new IllegalStateException(String.format("Expected at most one invocation "
+                    + "of the property to set [%s] to, but got %s.", propertyData, invocations));
+        } else if (invocations.size() == 1) {
+            // property set to another property of the entity
+            addSet(propertyData, new ReferenceTypeSafeValue<T>(this, invocations.get(0)));
+        } else {
+            addSet(propertyData, value == null ? null: toValue(value));
+        }
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> TypeSafeUpdateQuery set(T property, TypeSafeValue<T> value) {
+        if (value == null) {
+            throw new IllegalArgumentException("The value to set may not be null, "
+                    + "use set(property, (T) null) to set the property to null.");
+        }
+        List<TypeSafeQueryProxyData> invocations = dequeueInvocations();
+        TypeSafeQueryProxyData propertyData = toPropertyData(property, invocations);
+        if (!invocations.isEmpty()) {
+            throw new IllegalStateException(String.format("Unexpected invocations %s "
+                    + "when setting property [%s].", invocations, propertyData));
+        }
+        addSet(propertyData, value);
+        return this;
+    }
+
+    /**
+     * Entity properties are proxies themselves, other properties
+     * are the first pending invocation, which is removed from the list.
+     */
+    private TypeSafeQueryProxyData toPropertyData(Object property, List<TypeSafeQueryProxyData> invocations) {
+        if (property instanceof TypeSafeQueryProxy) {
+            return ((TypeSafeQueryProxy) property).getTypeSafeProxyData();
+        }
+        if (invocations.isEmpty()) {
+            throw new IllegalStateException(String.format("Expected an invocation "
+                    + "of the property to set, but got value [%s].", property));
+        }
+        return invocations.remove(0);
+    }
+
+    private void addSet(TypeSafeQueryProxyData property, TypeSafeValue<?> value) {
+        if (property.getParent() == null) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected a property to set, but got entity [%s].", property));
+        }
+        if (property.getProxy() != null && property.getJoinType() == JoinType.Default) {
+            // the entity reference is set, the entity itself must not be joined:
+            property.setJoinType(JoinType.None);
+        }
+        properties.add(new ReferenceTypeSafeValue<Object>(this, property));
+        values.add(value);
+    }
+
+    @Override
+    protected HqlQuery createHqlQuery() {
+        return new HqlDmlQuery(false);
+    }
+
+    /**
+     * Appends the properties to set, update statements don't select values.
+     */
+    @Override
+    protected void appendProjections(HqlQuery query, HqlQueryBuilderParams params) {
+        super.appendProjections(query, params);
+        HqlDmlQuery dmlQuery = (HqlDmlQuery) query;
+        Iterator<TypeSafeValue<?>> valueIt = values.iterator();
+        for(ReferenceTypeSafeValue<?> property: properties) {
+            TypeSafeValue<?> value = valueIt.next();
+            String propertyHql = property.toHqlQueryValue(params).getHql();
+            if (value == null) {
+                dmlQuery.appendSet(propertyHql + " = null");
+            } else {
+                HqlQueryValue hqlValue = value.toHqlQueryValue(params);
+                dmlQuery.appendSet(propertyHql + " = " + hqlValue.getHql());
+                dmlQuery.addParams(hqlValue.getParams());
+            }
+        }
+    }
+
+    /**
+     * Appends the properties to set and their values.
+     */
+    @Override
+    protected void appendProjectionsFingerprint(QueryFingerprint fingerprint) {
+        super.appendProjectionsFingerprint(fingerprint);
+        Iterator<TypeSafeValue<?>> valueIt = values.iterator();
+        for(ReferenceTypeSafeValue<?> property: properties) {
+            fingerprint.append(property).append(valueIt.next());
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query.fingerprint;
+
+/**
+ * Implemented by the parts of a query which can describe their structure
+ * without being rendered to hql, see {@link QueryFingerprint}.
+ */
+public interface Fingerprintable {
+
+    /**
+     * Appends everything which influences the hql of this part to the fingerprint,
+     * except for the values which are bound as named parameters.
+     */
+    void appendFingerprint(QueryFingerprint fingerprint);
+
+}
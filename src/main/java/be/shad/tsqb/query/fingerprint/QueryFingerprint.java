@@ -0,0 +1,190 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query.fingerprint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.hql.HqlQueryBuilder;
+import be.shad.tsqb.values.HqlQueryBuilderParamsImpl;
+import be.shad.tsqb.values.HqlQueryValueBuilder;
+import be.shad.tsqb.values.TypeSafeValue;
+
+/**
+ * Structural fingerprint of a query, computed by walking the query parts instead
+ * of rendering the hql. Queries which only differ in the values bound to their
+ * named parameters have the same fingerprint, queries which would yield different hql,
+ * for example because a guarded restriction isn't applicable, have a different one.
+ * <p>
+ * The parts are hashed with the 64 bit FNV-1a hash, which doesn't depend on the jvm,
+ * the same way as the query shape id of the query execution metrics. Parts which are not
+ * {@link Fingerprintable} are rendered to hql as a fallback, so custom values and restrictions
+ * are still taken into account, only more expensively.
+ * <p>
+ * The fingerprint tracks whether values are rendered as literals in the same way as
+ * the hql builder params do, because literal values are part of the hql.
+ * <p>
+ * The values which are bound as named parameters are collected in the order they are
+ * appended, so their values can be bound to the hql of an earlier query with the same
+ * fingerprint without rendering the hql again.
+ * <p>
+ * The appended content is kept as well, so fingerprints with the same hash value
+ * can be told apart by comparing their {@link #getContent() content}.
+ */
+public class QueryFingerprint {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final char NULL_MARKER = '\u0000';
+    private static final char SEPARATOR = '\u001f';
+    private static final char PARAMETER_MARKER = '\u001e';
+
+    private final List<TypeSafeValue<?>> parameters = new ArrayList<>();
+    private final StringBuilder content = new StringBuilder();
+    private long hash = FNV_OFFSET_BASIS;
+    private boolean requiresLiterals;
+
+    /**
+     * Whether direct values are currently rendered as literals
+     * instead of named parameters.
+     */
+    public boolean isRequiresLiterals() {
+        return requiresLiterals;
+    }
+
+    /**
+     * @return the previous value, so it can be restored afterwards.
+     */
+    public boolean setRequiresLiterals(boolean requiresLiterals) {
+        boolean previous = this.requiresLiterals;
+        this.requiresLiterals = requiresLiterals;
+        return previous;
+    }
+
+    public QueryFingerprint append(String value) {
+        if (value == null) {
+            return appendChar(NULL_MARKER);
+        }
+        for(int i = 0; i < value.length(); i++) {
+            appendChar(value.charAt(i));
+        }
+        return appendChar(SEPARATOR);
+    }
+
+    public QueryFingerprint append(int value) {
+        return append(Integer.toString(value));
+    }
+
+    public QueryFingerprint append(boolean value) {
+        return appendChar(value ? 'T': 'F');
+    }
+
+    public QueryFingerprint append(Enum<?> value) {
+        return append(value == null ? null: value.name());
+    }
+
+    public QueryFingerprint append(Class<?> value) {
+        return append(value == null ? null: value.getName());
+    }
+
+    /**
+     * Appends a value which is bound as named parameter, only its position is
+     * part of the fingerprint, the value itself is collected as parameter.
+     */
+    public QueryFingerprint appendParameter(TypeSafeValue<?> value) {
+        parameters.add(value);
+        return appendChar(PARAMETER_MARKER);
+    }
+
+    /**
+     * The values which are bound as named parameters, in the order they were appended.
+     */
+    public List<TypeSafeValue<?>> getParameters() {
+        return Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * Appends a value or restriction, delegating to it if it is fingerprintable,
+     * rendering its hql with the current literals requirement otherwise.
+     */
+    public QueryFingerprint append(HqlQueryValueBuilder value) {
+        if (value == null) {
+            return appendChar(NULL_MARKER);
+        }
+        append(value.getClass());
+        if (value instanceof Fingerprintable) {
+            ((Fingerprintable) value).appendFingerprint(this);
+        } else {
+            HqlQueryBuilderParamsImpl params = new HqlQueryBuilderParamsImpl();
+            params.setRequiresLiterals(requiresLiterals);
+            append(value.toHqlQueryValue(params).getHql());
+        }
+        return this;
+    }
+
+    /**
+     * Appends a query part, delegating to it if it is fingerprintable,
+     * appending it to an empty hql query and using its hql otherwise.
+     */
+    public QueryFingerprint append(HqlQueryBuilder builder) {
+        if (builder == null) {
+            return appendChar(NULL_MARKER);
+        }
+        append(builder.getClass());
+        if (builder instanceof Fingerprintable) {
+            ((Fingerprintable) builder).appendFingerprint(this);
+        } else {
+            HqlQueryBuilderParamsImpl params = new HqlQueryBuilderParamsImpl();
+            params.setRequiresLiterals(requiresLiterals);
+            HqlQuery query = new HqlQuery();
+            builder.appendTo(query, params);
+            append(query.getHql());
+        }
+        return this;
+    }
+
+    private QueryFingerprint appendChar(char value) {
+        content.append(value);
+        hash ^= value;
+        hash *= FNV_PRIME;
+        return this;
+    }
+
+    /**
+     * The fingerprint of everything appended so far.
+     */
+    public long getValue() {
+        return hash;
+    }
+
+    /**
+     * Everything appended so far, two fingerprints are the same if their content is equal.
+     */
+    public String getContent() {
+        return content.toString();
+    }
+
+    /**
+     * The fingerprint formatted as hexadecimal string of 16 characters.
+     */
+    @Override
+    public String toString() {
+        String hex = Long.toHexString(hash);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+}
@@ -21,10 +21,13 @@ import be.shad.tsqb.query.TypeSafeQueryInternal;
 import be.shad.tsqb.query.TypeSafeSubQuery;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.restrictions.predicate.RestrictionGuard;
 import be.shad.tsqb.restrictions.predicate.RestrictionPredicate;
 import be.shad.tsqb.selection.TypeSafeQueryProjections;
 import be.shad.tsqb.values.CastTypeSafeValue;
+import be.shad.tsqb.values.CollectionTypeSafeValue;
 import be.shad.tsqb.values.DirectTypeSafeValue;
 import be.shad.tsqb.values.HqlQueryBuilderParams;
 import be.shad.tsqb.values.HqlQueryValue;
@@ -46,7 +49,7 @@ import be.shad.tsqb.values.TypeSafeValue;
  * The <b>is_null</b>, <b>is_not_null</b> can be used without a right part.<br>
  * The rest requires both parts.
  */
-public class RestrictionImpl<VAL> implements Restriction, RestrictionGuard {
+public class RestrictionImpl<VAL> implements Restriction, RestrictionGuard, Fingerprintable {
 
     private final RestrictionsGroupInternal group;
     private final TypeSafeQueryInternal query;
@@ -132,7 +135,7 @@ public class RestrictionImpl<VAL> implements Restriction, RestrictionGuard {
             if (left != null) {
                 value.appendHql(" ");
             }
-            if (right != null && right instanceof OperatorAwareValue) {
+            if (right instanceof OperatorAwareValue && !isBoundValueDependent(right, params)) {
                 value.appendHql(((OperatorAwareValue) right).getOperator(operator).getOperator());
             } else {
                 value.appendHql(operator.getOperator());
@@ -212,6 +215,42 @@ public class RestrictionImpl<VAL> implements Restriction, RestrictionGuard {
         return left instanceof CastTypeSafeValue<?>;
     }
 
+    /**
+     * The operator of a collection value depends on the amount of values bound to it,
+     * the hql of a prepared query must remain valid when other values are bound.
+     */
+    private boolean isBoundValueDependent(TypeSafeValue<?> value, HqlQueryBuilderParams params) {
+        return params.isPreparingQuery() && value instanceof CollectionTypeSafeValue<?>;
+    }
+
+    /**
+     * Mirrors {@link #toHqlQueryValue(HqlQueryBuilderParams)}, the operator
+     * is appended as it is rendered, operator aware values may change it.
+     */
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        appendFingerprint(fingerprint, left, leftSideRequiresLiterals());
+        if (operator != null) {
+            if (right instanceof OperatorAwareValue) {
+                fingerprint.append(((OperatorAwareValue) right).getOperator(operator));
+            } else {
+                fingerprint.append(operator);
+            }
+        }
+        appendFingerprint(fingerprint, right, rightSideRequiresLiterals());
+    }
+
+    private void appendFingerprint(QueryFingerprint fingerprint,
+            TypeSafeValue<VAL> value, boolean requiresLiterals) {
+        if (requiresLiterals && !fingerprint.isRequiresLiterals()) {
+            fingerprint.setRequiresLiterals(true);
+            fingerprint.append(value);
+            fingerprint.setRequiresLiterals(false);
+        } else {
+            fingerprint.append(value);
+        }
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new RestrictionImpl<VAL>(context, this);
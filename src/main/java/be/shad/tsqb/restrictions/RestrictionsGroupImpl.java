@@ -28,6 +28,8 @@ import be.shad.tsqb.query.TypeSafeQueryInternal;
 import be.shad.tsqb.query.TypeSafeSubQuery;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.restrictions.predicate.RestrictionGuard;
 import be.shad.tsqb.values.CustomTypeSafeValue;
 import be.shad.tsqb.values.HqlQueryBuilderParams;
@@ -40,7 +42,7 @@ import be.shad.tsqb.values.TypeSafeValue;
  * <p>
  * A restriction group may be nested, to group a sequence of 'ors' in one part of a query for example.
  */
-public class RestrictionsGroupImpl extends RestrictionChainableImpl implements RestrictionAndChainable, RestrictionsGroupInternal {
+public class RestrictionsGroupImpl extends RestrictionChainableImpl implements RestrictionAndChainable, RestrictionsGroupInternal, Fingerprintable {
     private final TypeSafeQueryInternal query;
     private final TypeSafeQueryProxyData join;
     private final List<RestrictionNode> restrictions = new LinkedList<>();
@@ -191,16 +193,16 @@ public class RestrictionsGroupImpl extends RestrictionChainableImpl implements R
                             value.appendHql(" or ");
                         } // else null, root
                     }
-                    value.appendHql(nextValue.getHql());
+                    value.appendHql(nextValueHql);
                     value.addParams(nextValue.getParams());
                     hasValue = true;
                 }
             }
         }
-        if (!hasValue || !isAddBrackets()) {
-            return value;
+        if (hasValue && isAddBrackets()) {
+            value.setHql("(" + value.getHql() + ")");
         }
-        return new HqlQueryValueImpl("(" + value.getHql() + ")", value.getParams());
+        return value;
     }
 
     private boolean isRestrictionApplicable(Restriction restriction) {
@@ -442,6 +444,21 @@ public class RestrictionsGroupImpl extends RestrictionChainableImpl implements R
         this.bracketsPolicy = bracketsPolicy;
     }
 
+    /**
+     * Only the applicable restrictions are part of the fingerprint,
+     * the same as only those are part of the hql.
+     */
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(isAddBrackets());
+        for(RestrictionNode item: restrictions) {
+            Restriction restriction = item.getRestriction();
+            if (isRestrictionApplicable(restriction)) {
+                fingerprint.append(item.getType()).append(restriction);
+            }
+        }
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new RestrictionsGroupImpl(context, this);
@@ -0,0 +1,44 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.selection;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A result transformer which can transform the tuples of a list in parallel,
+ * when each tuple is transformed into its own result.
+ * <p>
+ * The selection value transformers are called from multiple threads
+ * at the same time, so they must be thread safe.
+ */
+public interface ParallelTransformable {
+
+    /**
+     * Whether each tuple is transformed into a separate result,
+     * without depending on the previous tuples.
+     */
+    boolean isTransformableInParallel();
+
+    /**
+     * Transforms the tuples like transformList, splitting them in chunks of at most
+     * the chunk size which are transformed by the pool. The results are in the order of the tuples.
+     *
+     * @throws IllegalStateException when the tuples are not transformable in parallel.
+     */
+    List<?> transformListInParallel(List<?> tuples, ForkJoinPool pool, int chunkSize);
+
+}
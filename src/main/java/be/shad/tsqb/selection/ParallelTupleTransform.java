@@ -0,0 +1,80 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.selection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits a range of tuples in halves until they fit in a chunk, the chunks
+ * are transformed into the same positions of the results array to keep the order.
+ */
+final class ParallelTupleTransform extends RecursiveAction {
+    private static final long serialVersionUID = -2420869963584981045L;
+
+    /**
+     * Transforms a range of tuples into the same range of the results.
+     */
+    interface TupleRangeTransformer {
+        void transformRange(Object[] tuples, Object[] results, int from, int to);
+    }
+
+    private final TupleRangeTransformer transformer;
+    private final Object[] tuples;
+    private final Object[] results;
+    private final int from;
+    private final int to;
+    private final int chunkSize;
+
+    private ParallelTupleTransform(TupleRangeTransformer transformer, Object[] tuples,
+            Object[] results, int from, int to, int chunkSize) {
+        this.transformer = transformer;
+        this.tuples = tuples;
+        this.results = results;
+        this.from = from;
+        this.to = to;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= chunkSize) {
+            transformer.transformRange(tuples, results, from, to);
+        } else {
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParallelTupleTransform(transformer, tuples, results, from, middle, chunkSize),
+                      new ParallelTupleTransform(transformer, tuples, results, middle, to, chunkSize));
+        }
+    }
+
+    /**
+     * Transforms the tuples using the pool and returns the results in the order of the tuples.
+     */
+    static List<Object> transform(TupleRangeTransformer transformer,
+            List<?> tuples, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Chunk size [%d] must be at least 1.", chunkSize));
+        }
+        Object[] tupleArray = tuples.toArray();
+        Object[] results = new Object[tupleArray.length];
+        pool.invoke(new ParallelTupleTransform(transformer, tupleArray, results, 0, tupleArray.length, chunkSize));
+        return new ArrayList<>(Arrays.asList(results));
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.selection;
+
+import java.util.Arrays;
+
+/**
+ * Index of the result values of a selection group by parent and identity values,
+ * used during result transformation to find the value a tuple belongs to.
+ * <p>
+ * All entries are kept in parallel arrays using open addressing, instead of
+ * a tree of maps with an entry per identity value. Single Long or Integer
+ * identity values are stored as primitive long, so the boxed values of the
+ * tuples are not retained.
+ * <p>
+ * The parent is compared by identity, so values of nested collections are
+ * not considered duplicate when they have a different parent.
+ * <p>
+ * Usage:
+ * <pre>
+ * int slot = index.indexOf(parent, identityValues);
+ * if (slot &gt;= 0) {
+ *     return index.valueAt(slot);
+ * }
+ * index.insert(slot, parent, identityValues, newValue);
+ * </pre>
+ */
+public class SelectionIdentityIndex {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Object LONG_KEY = new Object();
+    private static final Object INTEGER_KEY = new Object();
+
+    private int[] hashes;
+    private Object[] parents;
+    private Object[] keys;
+    private long[] longKeys;
+    private Object[] values;
+    private Object[] identityValuesBuffer;
+    private int size;
+
+    public SelectionIdentityIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return the slot of the value with the parent and identity values if it exists,
+     *         a negative number which can be used to insert a value otherwise.
+     */
+    public int indexOf(Object parent, Object[] identityValues) {
+        int hash = hash(parent, identityValues);
+        int mask = values.length - 1;
+        for(int i = hash & mask; ; i = (i + 1) & mask) {
+            if (values[i] == null) {
+                return -(i + 1);
+            }
+            if (hashes[i] == hash && parents[i] == parent && keyEquals(i, identityValues)) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * @return the value in the slot returned by {@link #indexOf(Object, Object[])}.
+     */
+    public Object valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Inserts the value in the slot returned by {@link #indexOf(Object, Object[])},
+     * the index may not be changed in between. The identity values are copied.
+     */
+    public void insert(int slot, Object parent, Object[] identityValues, Object value) {
+        if (slot >= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Slot [%d] already contains a value.", slot));
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("A null value can't be indexed.");
+        }
+        int i = -slot - 1;
+        hashes[i] = hash(parent, identityValues);
+        parents[i] = parent;
+        if (identityValues.length == 1) {
+            Object identityValue = identityValues[0];
+            if (identityValue instanceof Long) {
+                keys[i] = LONG_KEY;
+                longKeys[i] = (Long) identityValue;
+            } else if (identityValue instanceof Integer) {
+                keys[i] = INTEGER_KEY;
+                longKeys[i] = (Integer) identityValue;
+            } else {
+                keys[i] = identityValue;
+            }
+        } else {
+            keys[i] = identityValues.clone();
+        }
+        values[i] = value;
+        if (++size * 4 >= values.length * 3) {
+            resize();
+        }
+    }
+
+    /**
+     * A reusable array to collect the identity values of a tuple in,
+     * to avoid allocating an array per tuple, {@link #insert} copies it.
+     */
+    public Object[] getIdentityValuesBuffer(int length) {
+        if (identityValuesBuffer == null || identityValuesBuffer.length != length) {
+            identityValuesBuffer = new Object[length];
+        }
+        return identityValuesBuffer;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private boolean keyEquals(int i, Object[] identityValues) {
+        if (identityValues.length != 1) {
+            return keys[i] instanceof Object[] && Arrays.equals((Object[]) keys[i], identityValues);
+        }
+        Object identityValue = identityValues[0];
+        if (identityValue instanceof Long) {
+            return keys[i] == LONG_KEY && longKeys[i] == (Long) identityValue;
+        }
+        if (identityValue instanceof Integer) {
+            return keys[i] == INTEGER_KEY && longKeys[i] == (Integer) identityValue;
+        }
+        if (identityValue == null) {
+            return keys[i] == null;
+        }
+        return identityValue.equals(keys[i]);
+    }
+
+    private static int hash(Object parent, Object[] identityValues) {
+        int hash = System.identityHashCode(parent);
+        for(Object identityValue: identityValues) {
+            hash = hash * 31 + (identityValue == null ? 0: identityValue.hashCode());
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        parents = new Object[capacity];
+        keys = new Object[capacity];
+        longKeys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Doubles the capacity, entries are moved using their stored hash.
+     */
+    private void resize() {
+        int[] oldHashes = hashes;
+        Object[] oldParents = parents;
+        Object[] oldKeys = keys;
+        long[] oldLongKeys = longKeys;
+        Object[] oldValues = values;
+        allocate(oldValues.length * 2);
+        int mask = values.length - 1;
+        for(int j=0; j < oldValues.length; j++) {
+            if (oldValues[j] == null) {
+                continue;
+            }
+            int i = oldHashes[j] & mask;
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            hashes[i] = oldHashes[j];
+            parents[i] = oldParents[j];
+            keys[i] = oldKeys[j];
+            longKeys[i] = oldLongKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+}
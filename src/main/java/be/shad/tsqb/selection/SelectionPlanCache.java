@@ -0,0 +1,105 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.selection;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.hibernate.transform.ResultTransformer;
+
+/**
+ * Bounded cache of compiled result transformers, keyed by the
+ * {@link TypeSafeQueryProjections#getSelectionShape() selection shape} of the projections.
+ * <p>
+ * Compiling a transformer resolves the dto fields and constructors and assigns the
+ * result indexes, queries selecting into the same dtos the same way reuse it instead.
+ * The transformers are stateless during transformation, so they can be shared.
+ * The cache is opt-in, it is used once it is set on the helper. Transformers depending
+ * on value transformers or selection mergers are not cached.
+ * <p>
+ * The least recently used transformer is evicted when the cache is full.
+ * Hit and miss counters are kept to monitor the effectiveness of the cache.
+ */
+public class SelectionPlanCache {
+    public static final int DEFAULT_MAX_SIZE = 512;
+
+    private final Map<List<Object>, ResultTransformer> transformers;
+    private final int maxSize;
+    private long hitCount;
+    private long missCount;
+
+    public SelectionPlanCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public SelectionPlanCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The max size of the selection plan cache "
+                    + "must be at least 1, was: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.transformers = new LinkedHashMap<List<Object>, ResultTransformer>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<List<Object>, ResultTransformer> eldest) {
+                return size() > SelectionPlanCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the cached transformer, or null if none was cached for the selection shape yet.
+     */
+    public synchronized ResultTransformer get(List<Object> selectionShape) {
+        ResultTransformer transformer = transformers.get(selectionShape);
+        if (transformer == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return transformer;
+    }
+
+    /**
+     * Caches the transformer, possibly evicting the least recently used transformer.
+     */
+    public synchronized void put(List<Object> selectionShape, ResultTransformer transformer) {
+        transformers.put(selectionShape, transformer);
+    }
+
+    public synchronized void clear() {
+        transformers.clear();
+    }
+
+    public synchronized int size() {
+        return transformers.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+}
@@ -15,7 +15,10 @@
  */
 package be.shad.tsqb.selection;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +38,7 @@ public class SelectionTree {
     private final LinkedHashMap<Field, SelectionTree> subtrees = new LinkedHashMap<>();
     private final ConcreteDtoClassResolver concreteDtoClassResolver;
     private final Class<?> resultType;
+    private final Constructor<?> resultConstructor;
     private final boolean isMap;
     private int resultIndex;
 
@@ -44,6 +48,24 @@ public class SelectionTree {
         this.concreteDtoClassResolver = concreteDtoClassResolver;
         this.resultType = concreteDtoClassResolver.getConcreteClass(resultType);
         this.isMap = Map.class.isAssignableFrom(this.resultType);
+        this.resultConstructor = getNoArgConstructor(this.resultType);
+    }
+
+    /**
+     * @return the accessible no-arg constructor of the type,
+     *         or null if it doesn't have one or it can't be made accessible.
+     */
+    private static Constructor<?> getNoArgConstructor(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException | SecurityException e) {
+            return null;
+        }
     }
 
     public boolean isMap() {
@@ -54,6 +76,23 @@ public class SelectionTree {
         return resultType;
     }
 
+    /**
+     * Creates a new instance of the result type. The constructor which was looked up
+     * and made accessible when the tree was created is used, so the access checks of
+     * Class.newInstance are not repeated for every created value.
+     * Falls back to Class.newInstance when there was no such constructor.
+     */
+    public Object newResultInstance() throws InstantiationException, IllegalAccessException {
+        if (resultConstructor == null) {
+            return resultType.newInstance();
+        }
+        try {
+            return resultConstructor.newInstance();
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     /**
      * Sets the resultIndexes on this and the subtrees
      * and returns the max resultIndex
@@ -110,7 +149,7 @@ public class SelectionTree {
             Field field = entry.getKey();
             Object object = field.get(value);
             if (object == null) {
-                object = entry.getValue().getResultType().newInstance();
+                object = entry.getValue().newResultInstance();
                 field.set(value, object);
             }
             entry.getValue().initialize(dataArray, object);
@@ -15,14 +15,11 @@
  */
 package be.shad.tsqb.selection;
 
-import java.util.IdentityHashMap;
-
 /**
  * Data container used during result transformation by the {@link TypeSafeQueryResultTransformer}.
  */
 public class SelectionTreeData {
-    // using IdentityHashMap so root so nested collection results are not considered duplicate if they have a different parent
-    public final IdentityHashMap<Object, SelectionIdentityTree> identityTrees = new IdentityHashMap<>();
+    public final SelectionIdentityIndex identityIndex = new SelectionIdentityIndex();
     private Object currentValue;
     private boolean duplicate;
 
@@ -16,9 +16,16 @@
 package be.shad.tsqb.selection;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.hibernate.transform.ResultTransformer;
 
 import be.shad.tsqb.data.TypeSafeQueryProxyData;
 import be.shad.tsqb.data.TypeSafeQuerySelectionProxyData;
@@ -27,8 +34,13 @@ import be.shad.tsqb.hql.HqlQueryBuilder;
 import be.shad.tsqb.proxy.TypeSafeQueryProxy;
 import be.shad.tsqb.query.TypeSafeQueryInternal;
 import be.shad.tsqb.query.copy.CopyContext;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.restrictions.Restriction;
 import be.shad.tsqb.restrictions.RestrictionHolder;
+import be.shad.tsqb.selection.group.TypeSafeQuerySelectionGroup;
+import be.shad.tsqb.selection.parallel.SelectionMerger;
+import be.shad.tsqb.values.CountTypeSafeValue;
 import be.shad.tsqb.values.CustomTypeSafeValue;
 import be.shad.tsqb.values.DirectTypeSafeValue;
 import be.shad.tsqb.values.HqlQueryBuilderParams;
@@ -37,6 +49,7 @@ import be.shad.tsqb.values.IsMaybeDistinct;
 import be.shad.tsqb.values.ReferenceTypeSafeValue;
 import be.shad.tsqb.values.RestrictionTypeSafeValue;
 import be.shad.tsqb.values.TypeSafeValue;
+import be.shad.tsqb.values.WrappedTypeSafeValue;
 
 /**
  * Container for all projections of a query.
@@ -44,7 +57,9 @@ import be.shad.tsqb.values.TypeSafeValue;
  * This method should not be called from outside the query builder,
  * but it would be allowed if needed.
  */
-public class TypeSafeQueryProjections implements HqlQueryBuilder {
+public class TypeSafeQueryProjections implements HqlQueryBuilder, Fingerprintable {
+    private static final Set<String> AGGREGATE_FUNCTIONS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("count", "sum", "avg", "min", "max")));
     private final TypeSafeQueryInternal query;
     private final Deque<TypeSafeValueProjection> projections = new LinkedList<>();
     private SelectionValueTransformer<?, ?> transformerForNextProjection;
@@ -113,6 +128,31 @@ public class TypeSafeQueryProjections implements HqlQueryBuilder {
         }
     }
 
+    /**
+     * Whether the selected rows are distinct, the distinct projection is always the first one.
+     */
+    public boolean isDistinct() {
+        return !projections.isEmpty() && isDistinct(projections.getFirst());
+    }
+
+    /**
+     * Whether one of the projections is an aggregate function such as count or sum,
+     * custom aggregate values can't be recognized.
+     */
+    public boolean isAggregated() {
+        for(TypeSafeValueProjection projection: projections) {
+            TypeSafeValue<?> value = projection.getValue();
+            if (value instanceof CountTypeSafeValue) {
+                return true;
+            }
+            if (value instanceof WrappedTypeSafeValue<?>
+                    && AGGREGATE_FUNCTIONS.contains(((WrappedTypeSafeValue<?>) value).getFunction())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean isDistinct(TypeSafeValueProjection projection) {
         return projection.getValue() instanceof IsMaybeDistinct && ((IsMaybeDistinct)projection.getValue()).isDistinct();
     }
@@ -205,9 +245,6 @@ public class TypeSafeQueryProjections implements HqlQueryBuilder {
 
     @Override
     public void appendTo(HqlQuery query, HqlQueryBuilderParams params) {
-        List<TypeSafeQuerySelectionProxyData> selectionDatas = new ArrayList<>(projections.size());
-        List<SelectionValueTransformer<?, ?>> transformers = new ArrayList<>(projections.size());
-        boolean hasTransformer = false;
         for(TypeSafeValueProjection projection: projections) {
             HqlQueryValue val;
             if (projection.getValue() instanceof DirectTypeSafeValue<?>) {
@@ -220,25 +257,138 @@ public class TypeSafeQueryProjections implements HqlQueryBuilder {
             String alias = "";
             TypeSafeQuerySelectionProxyData selectionData = projection.getSelectionData();
             if (selectionData != null) {
-                selectionDatas.add(selectionData);
                 if (params.isBuildingForDisplay() || includeAliases) {
                     alias = " as " + selectionData.getAlias();
                 }
             }
-            transformers.add(projection.getTransformer());
-            hasTransformer = hasTransformer || projection.getTransformer() != null;
             query.appendSelect(val.getHql() + alias);
             query.addParams(val.getParams());
         }
-        if (params.isBuildingForDisplay()) {
+        if (params.isBuildingForDisplay() || !params.isCreatingResultTransformer()) {
             // don't bother setting the result transformer, we're only intereted in the hql string and params
-        } else if (!selectionDatas.isEmpty()) {
-            query.setResultTransformer(new TypeSafeQueryResultTransformer(
+        } else {
+            query.setResultTransformer(getResultTransformer());
+        }
+    }
+
+    /**
+     * Returns the result transformer for the current projections from the selection plan cache
+     * of the helper. It is created and cached when the selection shape wasn't cached yet.
+     * <p>
+     * Projections using value transformers or selection mergers are never cached,
+     * these are typically anonymous instances created for each query, so the shape
+     * would never be hit again while the cache keeps the instances reachable.
+     *
+     * @return the transformer or null if the projection results don't need transforming.
+     */
+    public ResultTransformer getResultTransformer() {
+        SelectionPlanCache cache = query.getHelper().getSelectionPlanCache();
+        if (cache == null || !isTransformed() || !isResultTransformerShareable()) {
+            return createResultTransformer();
+        }
+        List<Object> selectionShape = getSelectionShape();
+        ResultTransformer transformer = cache.get(selectionShape);
+        if (transformer == null) {
+            transformer = createResultTransformer();
+            cache.put(selectionShape, transformer);
+        }
+        return transformer;
+    }
+
+    /**
+     * Whether the values are selected into a dto or transformed by a value transformer.
+     */
+    private boolean isTransformed() {
+        for(TypeSafeValueProjection projection: projections) {
+            if (projection.getSelectionData() != null || projection.getTransformer() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the result transformer can be shared with queries with the same
+     * selection shape, which is the case when it doesn't depend on value
+     * transformers or selection mergers.
+     */
+    public boolean isResultTransformerShareable() {
+        for(TypeSafeValueProjection projection: projections) {
+            if (projection.getTransformer() != null) {
+                return false;
+            }
+            TypeSafeQuerySelectionProxyData selectionData = projection.getSelectionData();
+            if (selectionData != null) {
+                TypeSafeQuerySelectionGroup group = selectionData.getGroup();
+                while (group != null) {
+                    if (group.getSelectionMerger() != null) {
+                        return false;
+                    }
+                    group = group.getParent();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the result transformer for the current projections.
+     *
+     * @return the transformer or null if the projection results don't need transforming.
+     */
+    public ResultTransformer createResultTransformer() {
+        List<TypeSafeQuerySelectionProxyData> selectionDatas = new ArrayList<>(projections.size());
+        List<SelectionValueTransformer<?, ?>> transformers = new ArrayList<>(projections.size());
+        boolean hasTransformer = false;
+        for(TypeSafeValueProjection projection: projections) {
+            if (projection.getSelectionData() != null) {
+                selectionDatas.add(projection.getSelectionData());
+            }
+            transformers.add(projection.getTransformer());
+            hasTransformer = hasTransformer || projection.getTransformer() != null;
+        }
+        if (!selectionDatas.isEmpty()) {
+            return new TypeSafeQueryResultTransformer(
                     this.query.getHelper().getConcreteDtoClassResolver(),
-                    selectionDatas, transformers));
+                    selectionDatas, transformers);
         } else if (hasTransformer) {
-            query.setResultTransformer(new WithoutAliasesQueryResultTransformer(transformers));
+            return new WithoutAliasesQueryResultTransformer(transformers);
         }
+        return null;
+    }
+
+    /**
+     * Describes everything the result transformer depends on, two projections
+     * with an equal selection shape can share the same result transformer.
+     * <p>
+     * Value transformers and selection mergers are compared using their equals,
+     * though transformers depending on them aren't cached by {@link #getResultTransformer()}.
+     */
+    public List<Object> getSelectionShape() {
+        List<Object> shape = new ArrayList<>(projections.size() * 3 + 1);
+        shape.add(resultClass);
+        for(TypeSafeValueProjection projection: projections) {
+            TypeSafeQuerySelectionProxyData selectionData = projection.getSelectionData();
+            shape.add(projection.getTransformer());
+            if (selectionData == null) {
+                shape.add(null);
+            } else {
+                shape.add(selectionData.getEffectivePropertyPath());
+                shape.add(selectionData.getParent().getPropertyType());
+                addSelectionGroupShape(shape, selectionData.getGroup());
+            }
+        }
+        return shape;
+    }
+
+    private void addSelectionGroupShape(List<Object> shape, TypeSafeQuerySelectionGroup group) {
+        shape.add(group.getAliasPrefix());
+        shape.add(group.getResultClass());
+        shape.add(group.isResultGroup());
+        shape.add(group.getCollectionPropertyPath());
+        shape.add(group.getSelectionMerger());
+        shape.add(new HashSet<>(group.getResultIdentifierPropertyPaths()));
+        shape.add(group.getParent() == null ? null: group.getParent().getAliasPrefix());
     }
 
     /**
@@ -257,4 +407,47 @@ public class TypeSafeQueryProjections implements HqlQueryBuilder {
         }
     }
 
+    /**
+     * Appends the projected values, their aliases and what the results are transformed with.
+     * The selection groups are appended as well, so queries with the same fingerprint
+     * have the same selection shape and can share a shareable result transformer.
+     */
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(resultClass).append(includeAliases);
+        for(TypeSafeValueProjection projection: projections) {
+            if (projection.getValue() instanceof DirectTypeSafeValue<?>) {
+                boolean previous = fingerprint.setRequiresLiterals(true);
+                fingerprint.append(projection.getValue());
+                fingerprint.setRequiresLiterals(previous);
+            } else {
+                fingerprint.append(projection.getValue());
+            }
+            TypeSafeQuerySelectionProxyData selectionData = projection.getSelectionData();
+            if (selectionData == null) {
+                fingerprint.append((String) null);
+            } else {
+                fingerprint.append(selectionData.getAlias());
+                fingerprint.append(selectionData.getEffectivePropertyPath());
+                fingerprint.append(selectionData.getParent().getPropertyType());
+                appendSelectionGroupFingerprint(fingerprint, selectionData.getGroup());
+            }
+            SelectionValueTransformer<?, ?> transformer = projection.getTransformer();
+            fingerprint.append(transformer == null ? null: transformer.getClass());
+        }
+    }
+
+    private void appendSelectionGroupFingerprint(QueryFingerprint fingerprint, TypeSafeQuerySelectionGroup group) {
+        fingerprint.append(group.getAliasPrefix());
+        fingerprint.append(group.getResultClass());
+        fingerprint.append(group.isResultGroup());
+        fingerprint.append(group.getCollectionPropertyPath());
+        SelectionMerger<?, ?> merger = group.getSelectionMerger();
+        fingerprint.append(merger == null ? null: merger.getClass());
+        for(String identifierPath: new TreeSet<>(group.getResultIdentifierPropertyPaths())) {
+            fingerprint.append(identifierPath);
+        }
+        fingerprint.append(group.getParent() == null ? null: group.getParent().getAliasPrefix());
+    }
+
 }
@@ -23,11 +23,13 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.hibernate.transform.BasicTransformerAdapter;
 
 import be.shad.tsqb.data.TypeSafeQuerySelectionProxyData;
 import be.shad.tsqb.helper.ConcreteDtoClassResolver;
+import be.shad.tsqb.selection.ParallelTupleTransform.TupleRangeTransformer;
 import be.shad.tsqb.selection.group.SelectionTreeGroup;
 import be.shad.tsqb.selection.group.TypeSafeQuerySelectionGroup;
 
@@ -36,7 +38,7 @@ import be.shad.tsqb.selection.group.TypeSafeQuerySelectionGroup;
  * Seems to be faster than the alias to bean result transformer too.
  */
 @SuppressWarnings({"unchecked", "rawtypes"})
-public class TypeSafeQueryResultTransformer extends BasicTransformerAdapter {
+public class TypeSafeQueryResultTransformer extends BasicTransformerAdapter implements ParallelTransformable {
     private static final long serialVersionUID = 4686800769621139636L;
 
     private final SelectionTreeGroup[] treeGroups;
@@ -138,6 +140,17 @@ public class TypeSafeQueryResultTransformer extends BasicTransformerAdapter {
         }
     }
 
+    /**
+     * The tuple indexes of the identity values of the result dto.
+     * Consecutive tuples with the same values at these indexes
+     * are transformed into the same result dto.
+     *
+     * @return the indexes, empty if each tuple represents a separate result.
+     */
+    public int[] getResultIdentityTupleIndexes() {
+        return treeGroups[0].getIdentityTupleValueIndexes();
+    }
+
     /**
      * Do nothing, result tranformation will be handled in transformList.
      */
@@ -156,10 +169,7 @@ public class TypeSafeQueryResultTransformer extends BasicTransformerAdapter {
         // prepare result array and set up dataArray to contain the current
         // value objects and identity trees
         List result = new ArrayList(list.size());
-        SelectionTreeData[] data = new SelectionTreeData[resultArraySize];
-        for(int i=0; i < resultArraySize; i++) {
-            data[i] = new SelectionTreeData();
-        }
+        SelectionTreeData[] data = createTreeData();
 
         try {
         	Object[] singleValue = new Object[1];
@@ -181,4 +191,54 @@ public class TypeSafeQueryResultTransformer extends BasicTransformerAdapter {
         }
         return result;
     }
+
+    private SelectionTreeData[] createTreeData() {
+        SelectionTreeData[] data = new SelectionTreeData[resultArraySize];
+        for(int i=0; i < resultArraySize; i++) {
+            data[i] = new SelectionTreeData();
+        }
+        return data;
+    }
+
+    /**
+     * A flat selection: a single dto without identity, each tuple is a result of its own.
+     * Selections with collections or merged subselections depend on the previous tuples.
+     */
+    @Override
+    public boolean isTransformableInParallel() {
+        return treeGroups.length == 1 && getResultIdentityTupleIndexes().length == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<?> transformListInParallel(List<?> tuples, ForkJoinPool pool, int chunkSize) {
+        if (!isTransformableInParallel()) {
+            throw new IllegalStateException("Only flat selections without collections "
+                    + "or identities can be transformed in parallel.");
+        }
+        final SelectionTreeGroup treeGroup = treeGroups[0];
+        return ParallelTupleTransform.transform(new TupleRangeTransformer() {
+            @Override
+            public void transformRange(Object[] tuples, Object[] results, int from, int to) {
+                // each chunk uses its own data, the tree group itself is not modified:
+                SelectionTreeData[] data = createTreeData();
+                Object[] singleValue = new Object[1];
+                try {
+                    for(int i = from; i < to; i++) {
+                        Object tuple = tuples[i];
+                        if (!(tuple instanceof Object[])) {
+                            singleValue[0] = tuple;
+                            tuple = singleValue;
+                        }
+                        treeGroup.createFromTuple(data, (Object[]) tuple);
+                        results[i] = data[0].getCurrentValue();
+                    }
+                } catch (IllegalArgumentException | IllegalAccessException | InstantiationException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }, tuples, pool, chunkSize);
+    }
 }
@@ -15,15 +15,19 @@
  */
 package be.shad.tsqb.selection;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.hibernate.transform.BasicTransformerAdapter;
 
+import be.shad.tsqb.selection.ParallelTupleTransform.TupleRangeTransformer;
+
 /**
  * Support value converter when working without a selection dto.
  */
 @SuppressWarnings({ "unchecked", "rawtypes" })
-public class WithoutAliasesQueryResultTransformer extends BasicTransformerAdapter {
+public class WithoutAliasesQueryResultTransformer extends BasicTransformerAdapter implements ParallelTransformable {
     private static final long serialVersionUID = 942223288493516089L;
 
     private final SelectionValueTransformer[] transformers;
@@ -42,4 +46,46 @@ public class WithoutAliasesQueryResultTransformer extends BasicTransformerAdapte
         return tuple.length == 1 ? tuple[0]: tuple;
     }
 
+    /**
+     * Transforms each row, a row is a single value instead of a tuple when only one value was selected.
+     */
+    @Override
+    public List transformList(List list) {
+        List result = new ArrayList(list.size());
+        for(Object row: list) {
+            result.add(transformRow(row));
+        }
+        return result;
+    }
+
+    private Object transformRow(Object row) {
+        if (row instanceof Object[]) {
+            return transformTuple((Object[]) row, null);
+        }
+        return transformers[0] == null ? row: transformers[0].convert(row);
+    }
+
+    /**
+     * Each row is transformed on its own.
+     */
+    @Override
+    public boolean isTransformableInParallel() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<?> transformListInParallel(List<?> tuples, ForkJoinPool pool, int chunkSize) {
+        return ParallelTupleTransform.transform(new TupleRangeTransformer() {
+            @Override
+            public void transformRange(Object[] tuples, Object[] results, int from, int to) {
+                for(int i = from; i < to; i++) {
+                    results[i] = transformRow(tuples[i]);
+                }
+            }
+        }, tuples, pool, chunkSize);
+    }
+
 }
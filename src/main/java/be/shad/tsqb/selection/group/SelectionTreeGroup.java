@@ -17,7 +17,9 @@ package be.shad.tsqb.selection.group;
 
 import static java.lang.String.format;
 
-import java.lang.reflect.AccessibleObject;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -27,7 +29,6 @@ import java.util.Map;
 import java.util.Set;
 
 import be.shad.tsqb.helper.ConcreteDtoClassResolver;
-import be.shad.tsqb.selection.SelectionIdentityTree;
 import be.shad.tsqb.selection.SelectionTree;
 import be.shad.tsqb.selection.SelectionTreeData;
 import be.shad.tsqb.selection.SelectionTreeValue;
@@ -39,11 +40,13 @@ import be.shad.tsqb.selection.parallel.SelectionMerger;
  */
 @SuppressWarnings({ "unchecked", "rawtypes" })
 public class SelectionTreeGroup extends SelectionTree {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
 
     private TypeSafeQuerySelectionGroup group;
 
     private final SelectionTreeGroup parent;
-    private final Field parentCollectionField;
+    private final FieldAccessor parentCollectionField;
     private final Class collectionClass;
 
     private final SelectionTreeField[] otherFields;
@@ -66,14 +69,8 @@ public class SelectionTreeGroup extends SelectionTree {
         identityFields = new SelectionTreeField[identityPaths.size()];
         otherFields = new SelectionTreeField[tupleValues.size() - identityFields.length];
 
-        int fieldsCount = tupleValues.size();
-        if (group.getCollectionPropertyPath() != null) {
-            fieldsCount++;
-        }
-
         int otherFieldsIndex = 0;
         int identityFieldsIndex = 0;
-        List<Field> fields = new ArrayList<Field>(fieldsCount);
         for(SelectionTreeValue value: tupleValues) {
             SelectionTreeField field = createSelectionTreeField(value);
             if (identityPaths.contains(value.propertyPath)) {
@@ -84,23 +81,16 @@ public class SelectionTreeGroup extends SelectionTree {
             } else {
                 otherFields[otherFieldsIndex++] = field;
             }
-            if (field.field != null) {
-                fields.add(field.field);
-            }
         }
 
         if (group.getCollectionPropertyPath() != null) {
             SubtreeField collectionField = getSubtreeField(parent, group.getCollectionPropertyPath());
             parentCollectionField = collectionField.field;
-            collectionClass = determineCollectionClassToUse(collectionField.field.getType());
-            fields.add(parentCollectionField);
+            collectionClass = determineCollectionClassToUse(collectionField.field.field.getType());
         } else {
             parentCollectionField = null;
             collectionClass = null;
         }
-
-        // set the entire array accessible at once (for this object):
-        AccessibleObject.setAccessible(fields.toArray(new Field[fields.size()]), true);
     }
 
     /**
@@ -173,7 +163,7 @@ public class SelectionTreeGroup extends SelectionTree {
             return new SubtreeField(valueTree, null);
         } else {
             Field field = getField(valueTree.getResultType(), alias[alias.length-1]);
-            return new SubtreeField(valueTree, field);
+            return new SubtreeField(valueTree, new FieldAccessor(field));
         }
     }
 
@@ -182,8 +172,6 @@ public class SelectionTreeGroup extends SelectionTree {
      */
     public void createFromTuple(SelectionTreeData[] dataArray, Object[] tuple)
             throws IllegalArgumentException, IllegalAccessException, InstantiationException {
-        // populate 'new instances' of this and composite/embedded objects
-        Object resultValue = getResultType().newInstance();
         Object parentValue = null;
         Collection<Object> collection = null;
         if (parent != null) {
@@ -200,31 +188,20 @@ public class SelectionTreeGroup extends SelectionTree {
                 }
             }
         }
-        initialize(dataArray, resultValue);
 
-        // populate identity fields:
+        Object resultValue;
         if (identityFields.length > 0) {
+            // check the identity before creating a value, rows which
+            // represent an existing value don't need a new instance.
             SelectionTreeData data = dataArray[getResultIndex()];
-            boolean identityExists = identityFields.length > 0;
             boolean nullIdentity = true;
-            SelectionIdentityTree identity = data.identityTrees.get(parentValue);
-            if (identity == null) {
-                identity = new SelectionIdentityTree();
-                data.identityTrees.put(parentValue, identity);
-                identityExists = false;
-            }
-            for(SelectionTreeField field: identityFields) {
-                Object value = setField(dataArray, field, tuple);
+            Object[] identityValues = data.identityIndex.getIdentityValuesBuffer(identityFields.length);
+            for(int i=0; i < identityFields.length; i++) {
+                Object value = convertValue(identityFields[i], tuple);
+                identityValues[i] = value;
                 if (nullIdentity && value != null) {
                     nullIdentity = false;
                 }
-                SelectionIdentityTree nextIdentity = identity.getSubtree(value);
-                if (nextIdentity == null) {
-                    // identity doesn't exist yet, this object is 'new'.
-                    nextIdentity = identity.createSubtree(value);
-                    identityExists = false;
-                }
-                identity = nextIdentity;
             }
 
             if (nullIdentity) {
@@ -234,19 +211,32 @@ public class SelectionTreeGroup extends SelectionTree {
             }
 
             // check identity, if equal, return existing object
-            if (identityExists) {
-                data.setCurrentValue(identity.getIdentityValue());
+            int identitySlot = data.identityIndex.indexOf(parentValue, identityValues);
+            if (identitySlot >= 0) {
+                data.setCurrentValue(data.identityIndex.valueAt(identitySlot));
                 data.setDuplicate(true);
                 return;
             }
+
+            // populate 'new instances' of this and composite/embedded objects
+            resultValue = newResultInstance();
+            initialize(dataArray, resultValue);
+            for(int i=0; i < identityFields.length; i++) {
+                setFieldValue(dataArray, identityFields[i], identityValues[i]);
+            }
+
             // remember value for future identity check
-            identity.setIdentityValue(resultValue);
+            data.identityIndex.insert(identitySlot, parentValue, identityValues, resultValue);
 
             // object didn't exist, set remaining fields:
             for(SelectionTreeField field: otherFields) {
                 setField(dataArray, field, tuple);
             }
         } else {
+            // populate 'new instances' of this and composite/embedded objects
+            resultValue = newResultInstance();
+            initialize(dataArray, resultValue);
+
             // object didn't exist, set remaining fields:
             boolean nullValue = true;
             for(SelectionTreeField field: otherFields) {
@@ -275,35 +265,59 @@ public class SelectionTreeGroup extends SelectionTree {
         }
     }
 
-    private Object setField(SelectionTreeData[] dataArray, SelectionTreeField field, Object[] tuple)
-            throws IllegalArgumentException, IllegalAccessException, InstantiationException {
+    /**
+     * @return the tuple value of the field, converted by the value transformer if the field has one.
+     */
+    private Object convertValue(SelectionTreeField field, Object[] tuple) {
         Object value = tuple[field.tupleValueIndex];
         if (field.valueTransformer != null) {
             value = field.valueTransformer.convert(value);
         }
+        return value;
+    }
+
+    private Object setField(SelectionTreeData[] dataArray, SelectionTreeField field, Object[] tuple)
+            throws IllegalArgumentException {
+        Object value = convertValue(field, tuple);
+        setFieldValue(dataArray, field, value);
+        return value;
+    }
+
+    private void setFieldValue(SelectionTreeData[] dataArray, SelectionTreeField field, Object value)
+            throws IllegalArgumentException {
         Object currentValue = dataArray[field.valueTree.getResultIndex()].getCurrentValue();
         if (field.mapSelectionKey != null) {
             ((Map) currentValue).put(field.mapSelectionKey, value);
         } else {
             field.field.set(currentValue, value);
         }
-        return value;
     }
 
     public TypeSafeQuerySelectionGroup getGroup() {
         return group;
     }
 
+    /**
+     * @return the tuple indexes of the values which identify the dto of this group.
+     */
+    public int[] getIdentityTupleValueIndexes() {
+        int[] indexes = new int[identityFields.length];
+        for(int i=0; i < identityFields.length; i++) {
+            indexes[i] = identityFields[i].tupleValueIndex;
+        }
+        return indexes;
+    }
+
     private final static class SelectionTreeField {
         final SelectionValueTransformer valueTransformer;
         final SelectionTree valueTree;
         final int tupleValueIndex;
-        final Field field;
+        final FieldAccessor field;
         final String mapSelectionKey;
 
         public SelectionTreeField(SelectionTree valueTree,
                 SelectionValueTransformer valueTransformer,
-                Field field, String mapSelectionKey,
+                FieldAccessor field, String mapSelectionKey,
                 int tupleValueIndex) {
             this.valueTree = valueTree;
             this.valueTransformer = valueTransformer;
@@ -318,11 +332,54 @@ public class SelectionTreeGroup extends SelectionTree {
      */
     private final static class SubtreeField {
         final SelectionTree subtree;
-        final Field field;
+        final FieldAccessor field;
 
-        public SubtreeField(SelectionTree subtree, Field field) {
+        public SubtreeField(SelectionTree subtree, FieldAccessor field) {
             this.subtree = subtree;
             this.field = field;
         }
     }
+
+    /**
+     * Gets and sets a field of a dto using method handles, which don't need
+     * the access checks and argument checks of field reflection on every call.
+     */
+    private final static class FieldAccessor {
+        final Field field;
+        final MethodHandle getter;
+        final MethodHandle setter;
+
+        public FieldAccessor(Field field) {
+            this.field = field;
+            field.setAccessible(true);
+            try {
+                this.getter = MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+                this.setter = MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException(format("Field [%s] can't be accessed.", field), e);
+            }
+        }
+
+        public Object get(Object object) {
+            try {
+                return (Object) getter.invokeExact(object);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        public void set(Object object, Object value) {
+            try {
+                setter.invokeExact(object, value);
+            } catch (ClassCastException e) {
+                throw new IllegalArgumentException(format("Can't set field [%s] to [%s].", field, value), e);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
 }
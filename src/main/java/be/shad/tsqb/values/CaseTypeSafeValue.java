@@ -23,13 +23,15 @@ import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.TypeSafeQueryScopeValidator;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.restrictions.RestrictionsGroupImpl;
 import be.shad.tsqb.restrictions.RestrictionsGroupInternal;
 
 /**
  * Represents a case when() then ... (else ...) end.
  */
-public class CaseTypeSafeValue<T> extends TypeSafeValueImpl<T> implements OnGoingCaseWhen<T>, TypeSafeValueContainer {
+public class CaseTypeSafeValue<T> extends TypeSafeValueImpl<T> implements OnGoingCaseWhen<T>, TypeSafeValueContainer, Fingerprintable {
     private List<OnGoingCaseImpl<T>> cases = new LinkedList<>();
 
     /**
@@ -116,6 +118,16 @@ public class CaseTypeSafeValue<T> extends TypeSafeValueImpl<T> implements OnGoin
         }
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        boolean previous = fingerprint.setRequiresLiterals(true);
+        for(OnGoingCaseImpl<T> ongoingCase: cases) {
+            fingerprint.append(ongoingCase.getRestrictionsGroup());
+            fingerprint.append(ongoingCase.getValue());
+        }
+        fingerprint.setRequiresLiterals(previous);
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new CaseTypeSafeValue<>(context, this);
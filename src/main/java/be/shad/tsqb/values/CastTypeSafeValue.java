@@ -18,8 +18,10 @@ package be.shad.tsqb.values;
 import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 
-public class CastTypeSafeValue<T> extends TypeSafeValueImpl<T> {
+public class CastTypeSafeValue<T> extends TypeSafeValueImpl<T> implements Fingerprintable {
 
     private TypeSafeValue<?> value;
 
@@ -45,6 +47,11 @@ public class CastTypeSafeValue<T> extends TypeSafeValueImpl<T> {
                 value.getParams());
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(getValueClass()).append(value);
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new CastTypeSafeValue<>(context, this);
@@ -24,13 +24,15 @@ import be.shad.tsqb.CollectionNamedParameter;
 import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.restrictions.RestrictionOperator;
 
 /**
  * The value is a collection of actual values, not proxies or property paths.
  * These values are added to the query as params.
  */
-public class CollectionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements NamedValueEnabled, OperatorAwareValue, DirectTypeSafeValueWrapper<Collection<T>> {
+public class CollectionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements NamedValueEnabled, OperatorAwareValue, DirectTypeSafeValueWrapper<Collection<T>>, Fingerprintable {
     private Collection<T> values;
     private Integer batchSize;
 
@@ -96,7 +98,7 @@ public class CollectionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements
             sb.append(")");
             return new HqlQueryValueImpl(sb.toString());
         } else {
-            String name = params.createNamedParameter();
+            String name = params.createNamedParameter(this);
             return new HqlQueryValueImpl(new StringBuilder("(:").append(name).append(")").toString(),
                     new CollectionNamedParameter(name, values, batchSize));
         }
@@ -122,7 +124,29 @@ public class CollectionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements
             this.values = null;
             return;
         }
+        this.values = toValidatedList(namedValue);
+    }
+
+    /**
+     * Validates the value the same way as {@link #setNamedValue(Object)},
+     * the bound value must not be null or empty.
+     */
+    @Override
+    public Object toNamedParameterValue(Object namedValue) {
+        if (namedValue == null) {
+            throw new IllegalArgumentException("Collection is null when binding a named parameter value.");
+        }
+        List<T> namedValues = toValidatedList(namedValue);
+        if (namedValues.isEmpty()) {
+            throw new IllegalArgumentException("Collection is empty when binding a named parameter value.");
+        }
+        return namedValues;
+    }
 
+    /**
+     * Copies the value or values into a list, validating each value.
+     */
+    private List<T> toValidatedList(Object namedValue) {
         Collection<?> values = null;
         if (namedValue instanceof Collection<?>) {
             values = (Collection<?>) namedValue;
@@ -142,7 +166,22 @@ public class CollectionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements
             }
             namedValues.add(getValueClass().cast(value));
         }
-        this.values = namedValues;
+        return namedValues;
+    }
+
+    /**
+     * The values are only part of the fingerprint when they are rendered as literals,
+     * they are appended as parameter otherwise.
+     */
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        if (!fingerprint.isRequiresLiterals()) {
+            fingerprint.appendParameter(this);
+        } else if (values != null) {
+            for(Object val: values) {
+                fingerprint.append(query.getHelper().toLiteral(val));
+            }
+        }
     }
 
     @Override
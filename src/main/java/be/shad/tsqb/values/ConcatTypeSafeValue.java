@@ -15,6 +15,7 @@
  */
 package be.shad.tsqb.values;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -22,11 +23,13 @@ import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.TypeSafeQueryScopeValidator;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 
 /**
  * Value representing the 'concat' hql function, with append function to add extra values to concatenate.
  */
-public class ConcatTypeSafeValue extends TypeSafeValueImpl<String> implements TypeSafeValueContainer {
+public class ConcatTypeSafeValue extends TypeSafeValueImpl<String> implements TypeSafeValueContainer, Fingerprintable {
     private List<TypeSafeValue<?>> values = new LinkedList<>();
 
     public ConcatTypeSafeValue(CopyContext context, TypeSafeValueImpl<String> original) {
@@ -79,7 +82,7 @@ public class ConcatTypeSafeValue extends TypeSafeValueImpl<String> implements Ty
     @Override
     public HqlQueryValue toHqlQueryValue(HqlQueryBuilderParams parameters) {
         StringBuilder concat = new StringBuilder();
-        List<Object> params = new LinkedList<>();
+        List<Object> params = new ArrayList<>();
         for(TypeSafeValue<?> value: values) {
             if (concat.length() > 0) {
                 concat.append(", ");
@@ -88,9 +91,7 @@ public class ConcatTypeSafeValue extends TypeSafeValueImpl<String> implements Ty
             }
             HqlQueryValue valueHql = value.toHqlQueryValue(parameters);
             concat.append(valueHql.getHql());
-            for(Object param: valueHql.getParams()) {
-                params.add(param);
-            }
+            params.addAll(valueHql.getParams());
         }
         String hql = "";
         if (concat.length() > 0) {
@@ -106,6 +107,13 @@ public class ConcatTypeSafeValue extends TypeSafeValueImpl<String> implements Ty
         }
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        for(TypeSafeValue<?> value: values) {
+            fingerprint.append(value);
+        }
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new ConcatTypeSafeValue(context, this);
@@ -19,13 +19,15 @@ import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.TypeSafeQueryScopeValidator;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 
 /**
  * Wrap a value to put inside the count function.
  * <p>
  * Can't use WrappedTypeSafeValue because the wrapped type must be the same as the wrapper type.
  */
-public class CountTypeSafeValue extends TypeSafeValueImpl<Long> implements IsMaybeDistinct, TypeSafeValueContainer {
+public class CountTypeSafeValue extends TypeSafeValueImpl<Long> implements IsMaybeDistinct, TypeSafeValueContainer, Fingerprintable {
     private TypeSafeValue<?> value;
 
     /**
@@ -57,6 +59,11 @@ public class CountTypeSafeValue extends TypeSafeValueImpl<Long> implements IsMay
         validator.validateInScope(value);
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(value);
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new CountTypeSafeValue(context, this);
@@ -22,12 +22,14 @@ import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.TypeSafeQueryInternal;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 
 /**
  * When the TypeSafeQueryBuilder doesn't support a certain hql construction,
  * this custom value may be used to inject hql with params into the query.
  */
-public class CustomTypeSafeValue<T> extends TypeSafeValueImpl<T> {
+public class CustomTypeSafeValue<T> extends TypeSafeValueImpl<T> implements Fingerprintable {
     private final HqlQueryValue value;
 
     /**
@@ -58,6 +60,11 @@ public class CustomTypeSafeValue<T> extends TypeSafeValueImpl<T> {
         return value;
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(value.getHql());
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new CustomTypeSafeValue<>(context, this);
@@ -97,7 +97,18 @@ public class DirectTypeSafeStringValue extends DirectTypeSafeValue<String> imple
      */
     @Override
     public String getValue() {
-        String wrapped = super.getValue();
+        return applyStringFlags(super.getValue());
+    }
+
+    /**
+     * Applies the string flags to the bound value, the same way as {@link #getValue()}.
+     */
+    @Override
+    public Object toNamedParameterValue(Object value) {
+        return applyStringFlags((String) super.toNamedParameterValue(value));
+    }
+
+    private String applyStringFlags(String wrapped) {
         if (wrapped != null) {
             wrapped = prefix + wrapped + postfix;
             if (upper) {
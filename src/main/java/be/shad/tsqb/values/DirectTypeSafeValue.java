@@ -19,12 +19,14 @@ import be.shad.tsqb.NamedParameter;
 import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 
 /**
  * The value is an actual value, not a proxy or property path.
  * This value is added as param to the query.
  */
-public class DirectTypeSafeValue<T> extends TypeSafeValueImpl<T> implements NamedValueEnabled, DirectTypeSafeValueWrapper<T> {
+public class DirectTypeSafeValue<T> extends TypeSafeValueImpl<T> implements NamedValueEnabled, DirectTypeSafeValueWrapper<T>, Fingerprintable {
     private T value;
 
     @SuppressWarnings("unchecked")
@@ -66,18 +68,46 @@ public class DirectTypeSafeValue<T> extends TypeSafeValueImpl<T> implements Name
         if (params.isRequiresLiterals()) {
             return new HqlQueryValueImpl(query.getHelper().toLiteral(getValue()));
         } else {
-            String name = params.createNamedParameter();
+            String name = params.createNamedParameter(this);
             return new HqlQueryValueImpl(":" + name, new NamedParameter(name, getValue()));
         }
     }
 
     @Override
     public void setNamedValue(Object value) {
+        this.value = checkValueType(value);
+    }
+
+    @Override
+    public Object toNamedParameterValue(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value is null when binding a named parameter value.");
+        }
+        return checkValueType(value);
+    }
+
+    /**
+     * Validates the value is null or of the value class.
+     */
+    private T checkValueType(Object value) {
         if (value != null && !getValueClass().isAssignableFrom(value.getClass())) {
             throw new IllegalArgumentException(String.format("The value must be of type "
                     + "[%s] but was of type [%s].", getValueClass(), value.getClass()));
         }
-        this.value = getValueClass().cast(value);
+        return getValueClass().cast(value);
+    }
+
+    /**
+     * The value is only part of the fingerprint when it is rendered as a literal,
+     * it is appended as parameter otherwise.
+     */
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        if (fingerprint.isRequiresLiterals()) {
+            fingerprint.append(value == null ? null: query.getHelper().toLiteral(getValue()));
+        } else {
+            fingerprint.appendParameter(this);
+        }
     }
 
     @Override
@@ -4,6 +4,8 @@ import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.TypeSafeQueryScopeValidator;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 
 /**
  * Couldn't use WrappedTypeSafeValue because that one adds brackets
@@ -12,7 +14,7 @@ import be.shad.tsqb.query.copy.Copyable;
  * For a distinct value the brackets only work if the distinct
  * isn't wrapped in a count...
  */
-public class DistinctTypeSafeValue<VAL> extends TypeSafeValueImpl<VAL> implements TypeSafeValueContainer, IsMaybeDistinct {
+public class DistinctTypeSafeValue<VAL> extends TypeSafeValueImpl<VAL> implements TypeSafeValueContainer, IsMaybeDistinct, Fingerprintable {
     private final TypeSafeValue<VAL> value;
 
     public DistinctTypeSafeValue(TypeSafeQuery query,
@@ -45,6 +47,11 @@ public class DistinctTypeSafeValue<VAL> extends TypeSafeValueImpl<VAL> implement
         return true;
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(value);
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new DistinctTypeSafeValue<>(context, this);
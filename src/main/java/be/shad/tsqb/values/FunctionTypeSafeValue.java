@@ -15,6 +15,7 @@
  */
 package be.shad.tsqb.values;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -22,11 +23,13 @@ import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.TypeSafeQueryScopeValidator;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 
 /**
  * Represents a function with a list of values.
  */
-public class FunctionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements TypeSafeValueContainer {
+public class FunctionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements TypeSafeValueContainer, Fingerprintable {
     private List<TypeSafeValue<?>> values = new LinkedList<>();
     private String function;
 
@@ -65,7 +68,7 @@ public class FunctionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements Ty
     @Override
     public HqlQueryValue toHqlQueryValue(HqlQueryBuilderParams parameters) {
         StringBuilder coalesce = new StringBuilder();
-        List<Object> params = new LinkedList<>();
+        List<Object> params = new ArrayList<>();
         boolean requiresLiterals = parameters.isRequiresLiterals();
         for(TypeSafeValue<?> value: values) {
             if (coalesce.length() > 0) {
@@ -77,9 +80,7 @@ public class FunctionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements Ty
             }
             HqlQueryValue valueHql = value.toHqlQueryValue(parameters);
             coalesce.append(valueHql.getHql());
-            for(Object param: valueHql.getParams()) {
-                params.add(param);
-            }
+            params.addAll(valueHql.getParams());
         }
         String hql = "";
         if (coalesce.length() > 0) {
@@ -95,6 +96,19 @@ public class FunctionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements Ty
         }
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(function);
+        boolean requiresLiterals = fingerprint.isRequiresLiterals();
+        boolean first = true;
+        for(TypeSafeValue<?> value: values) {
+            fingerprint.setRequiresLiterals(first || requiresLiterals);
+            fingerprint.append(value);
+            first = false;
+        }
+        fingerprint.setRequiresLiterals(requiresLiterals);
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new FunctionTypeSafeValue<>(context, this);
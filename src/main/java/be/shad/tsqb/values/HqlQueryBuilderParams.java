@@ -19,6 +19,13 @@ public interface HqlQueryBuilderParams {
 
     String createNamedParameter();
 
+    /**
+     * Creates a named parameter for the value of a named value enabled source.
+     * Allows to keep track of which parameters were created for which value,
+     * which is used to rebind the values of a prepared query.
+     */
+    String createNamedParameter(NamedValueEnabled source);
+
     /**
      * When set, values need to be transformed to literals.
      */
@@ -53,4 +60,62 @@ public interface HqlQueryBuilderParams {
      * @see #isBuildingForDisplay()
      */
     void setBuildingForDisplay(boolean buildingForDisplay);
+
+    /**
+     * Whether a result transformer should be created for the projections
+     * of the root query. The query plan cache switches this off when it
+     * can reuse a transformer which was created for an earlier execution.
+     */
+    boolean isCreatingResultTransformer();
+
+    /**
+     * @see #isCreatingResultTransformer()
+     */
+    void setCreatingResultTransformer(boolean creatingResultTransformer);
+
+    /**
+     * Whether the hql is built for a prepared query. The hql must then remain
+     * valid for other parameter values, so operators may not be adjusted
+     * depending on the values which are bound at the time of preparing.
+     */
+    boolean isPreparingQuery();
+
+    /**
+     * @see #isPreparingQuery()
+     */
+    void setPreparingQuery(boolean preparingQuery);
+
+    /**
+     * Whether the ordered values of the root query are selected after its projections.
+     * Used by keyset paging to know the key of the last row of a page.
+     */
+    boolean isSelectingKeyset();
+
+    /**
+     * @see #isSelectingKeyset()
+     */
+    void setSelectingKeyset(boolean selectingKeyset);
+
+    /**
+     * Whether the order bys explicitly order null values last, instead of
+     * leaving the position of null values up to the database.
+     * Used by keyset paging to know which rows are ordered after a null key value.
+     */
+    boolean isOrderingNullsLast();
+
+    /**
+     * @see #isOrderingNullsLast()
+     */
+    void setOrderingNullsLast(boolean orderingNullsLast);
+
+    /**
+     * Whether the root query is converted to a query which counts its results,
+     * instead of selecting them. Ordering is left out and fetch joins become plain joins.
+     */
+    boolean isCountingRows();
+
+    /**
+     * @see #isCountingRows()
+     */
+    void setCountingRows(boolean countingRows);
 }
@@ -20,6 +20,11 @@ public class HqlQueryBuilderParamsImpl implements HqlQueryBuilderParams {
     private boolean requiresLiterals;
     private boolean creatingOrderingBy;
     private boolean buildingForDisplay;
+    private boolean creatingResultTransformer = true;
+    private boolean preparingQuery;
+    private boolean selectingKeyset;
+    private boolean orderingNullsLast;
+    private boolean countingRows;
 
     @Override
     public boolean isRequiresLiterals() {
@@ -52,9 +57,64 @@ public class HqlQueryBuilderParamsImpl implements HqlQueryBuilderParams {
         this.buildingForDisplay = buildingForDisplay;
     }
 
+    @Override
+    public boolean isCreatingResultTransformer() {
+        return creatingResultTransformer;
+    }
+
+    @Override
+    public void setCreatingResultTransformer(boolean creatingResultTransformer) {
+        this.creatingResultTransformer = creatingResultTransformer;
+    }
+
+    @Override
+    public boolean isPreparingQuery() {
+        return preparingQuery;
+    }
+
+    @Override
+    public void setPreparingQuery(boolean preparingQuery) {
+        this.preparingQuery = preparingQuery;
+    }
+
+    @Override
+    public boolean isSelectingKeyset() {
+        return selectingKeyset;
+    }
+
+    @Override
+    public void setSelectingKeyset(boolean selectingKeyset) {
+        this.selectingKeyset = selectingKeyset;
+    }
+
+    @Override
+    public boolean isOrderingNullsLast() {
+        return orderingNullsLast;
+    }
+
+    @Override
+    public void setOrderingNullsLast(boolean orderingNullsLast) {
+        this.orderingNullsLast = orderingNullsLast;
+    }
+
+    @Override
+    public boolean isCountingRows() {
+        return countingRows;
+    }
+
+    @Override
+    public void setCountingRows(boolean countingRows) {
+        this.countingRows = countingRows;
+    }
+
     @Override
     public String createNamedParameter() {
         return "np" + namedParamCount++;
     }
 
+    @Override
+    public String createNamedParameter(NamedValueEnabled source) {
+        return createNamedParameter();
+    }
+
 }
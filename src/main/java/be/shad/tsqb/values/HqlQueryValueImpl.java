@@ -15,8 +15,9 @@
  */
 package be.shad.tsqb.values;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
 
 import be.shad.tsqb.query.copy.CopyContext;
@@ -25,10 +26,15 @@ import be.shad.tsqb.query.copy.Copyable;
 /**
  * Wraps an hql stringbuilder and params and provides
  * convenient methods to append to them.
+ * <p>
+ * Many values are created while building a query, most of them
+ * only wrap a fixed hql string without params. The stringbuilder
+ * and params list are only allocated once they are appended to.
  */
 public class HqlQueryValueImpl implements HqlQueryValue, Copyable {
-    private List<Object> params = new LinkedList<>();
-    private StringBuilder hql;
+    private List<Object> params;
+    private String hql;
+    private StringBuilder hqlBuilder;
 
     /**
      * Factory method for shorthand hql query value creation.
@@ -51,7 +57,7 @@ public class HqlQueryValueImpl implements HqlQueryValue, Copyable {
     }
 
     public HqlQueryValueImpl(String hql) {
-        this.hql = new StringBuilder(hql);
+        this.hql = hql;
     }
 
     public HqlQueryValueImpl(String hql, Object... params) {
@@ -76,35 +82,54 @@ public class HqlQueryValueImpl implements HqlQueryValue, Copyable {
      * Copy constructor
      */
     protected HqlQueryValueImpl(CopyContext context, HqlQueryValueImpl original) {
-        this.hql = original.hql;
-        for(Object param: original.params) {
-            params.add(context.getOrOriginal(param));
+        this.hql = original.getHql();
+        for(Object param: original.getParams()) {
+            addParam(context.getOrOriginal(param));
         }
     }
 
     public String getHql() {
-        return hql.toString();
+        if (hqlBuilder != null) {
+            return hqlBuilder.toString();
+        }
+        return hql;
     }
 
     public void setHql(String hql) {
-        this.hql = new StringBuilder(hql);
+        this.hql = hql;
+        this.hqlBuilder = null;
     }
 
     public StringBuilder appendHql(String hql) {
-        this.hql.append(hql);
-        return this.hql;
+        if (hqlBuilder == null) {
+            hqlBuilder = new StringBuilder(this.hql.length() + hql.length() + 32).append(this.hql);
+        }
+        return hqlBuilder.append(hql);
     }
 
     public Collection<Object> getParams() {
+        if (params == null) {
+            return Collections.emptyList();
+        }
         return params;
     }
 
     public void addParam(Object param) {
+        if (params == null) {
+            params = new ArrayList<>(4);
+        }
         params.add(param);
     }
 
     public void addParams(Collection<Object> params) {
-        this.params.addAll(params);
+        if (params.isEmpty()) {
+            return;
+        }
+        if (this.params == null) {
+            this.params = new ArrayList<>(params);
+        } else {
+            this.params.addAll(params);
+        }
     }
 
     @Override
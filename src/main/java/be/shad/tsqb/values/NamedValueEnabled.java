@@ -24,4 +24,13 @@ public interface NamedValueEnabled {
      */
     void setNamedValue(Object value);
 
+    /**
+     * Validates the value the same way as {@link #setNamedValue(Object)}
+     * and converts it to the value which is bound as query parameter,
+     * without changing the value of this type safe value.
+     * <p>
+     * Used to bind values to a prepared query, null is not allowed.
+     */
+    Object toNamedParameterValue(Object value);
+
 }
@@ -18,6 +18,8 @@ package be.shad.tsqb.values;
 import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 
 /**
  * Not statically available because the .select()
@@ -25,7 +27,7 @@ import be.shad.tsqb.query.copy.Copyable;
  * <p>
  * This is the only way to select null in the query.
  */
-public final class NullTypeSafeValue<T> extends TypeSafeValueImpl<T> {
+public final class NullTypeSafeValue<T> extends TypeSafeValueImpl<T> implements Fingerprintable {
 
     protected NullTypeSafeValue(CopyContext context, NullTypeSafeValue<T> original) {
         super(context, original);
@@ -41,6 +43,11 @@ public final class NullTypeSafeValue<T> extends TypeSafeValueImpl<T> {
         return new HqlQueryValueImpl("NULLIF(1,1)");
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        // always the same hql
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new NullTypeSafeValue<>(context, this);
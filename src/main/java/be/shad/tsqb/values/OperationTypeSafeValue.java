@@ -23,11 +23,13 @@ import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.TypeSafeQueryScopeValidator;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 
 /**
  * TypeSafeValue to build a value using other values.
  */
-public class OperationTypeSafeValue<T> extends TypeSafeValueImpl<T> implements TypeSafeValueContainer {
+public class OperationTypeSafeValue<T> extends TypeSafeValueImpl<T> implements TypeSafeValueContainer, Fingerprintable {
     public enum OperationTypeSafeValueBracketsPolicy {
         Always,
         Never,
@@ -113,6 +115,16 @@ public class OperationTypeSafeValue<T> extends TypeSafeValueImpl<T> implements T
         }
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(isAddBrackets());
+        Iterator<TypeSafeValue<? extends T>> valuesIt = values.iterator();
+        fingerprint.append(valuesIt.next());
+        for(String operation: operations) {
+            fingerprint.append(operation).append(valuesIt.next());
+        }
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new OperationTypeSafeValue<>(context, this);
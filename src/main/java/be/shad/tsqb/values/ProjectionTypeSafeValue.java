@@ -18,12 +18,14 @@ package be.shad.tsqb.values;
 import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 
 /**
  * A value which is replaced when transforming the query
  * into an hqlQuery object.
  */
-public class ProjectionTypeSafeValue<T> extends TypeSafeValueImpl<T> {
+public class ProjectionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements Fingerprintable {
     private final String propertyPath;
 
     public ProjectionTypeSafeValue(CopyContext context, ProjectionTypeSafeValue<T> original) {
@@ -43,6 +45,11 @@ public class ProjectionTypeSafeValue<T> extends TypeSafeValueImpl<T> {
                 toHqlQueryValue(params);
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(propertyPath);
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new ProjectionTypeSafeValue<>(context, this);
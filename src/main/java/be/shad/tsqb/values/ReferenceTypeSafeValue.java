@@ -19,6 +19,8 @@ import be.shad.tsqb.data.TypeSafeQueryProxyData;
 import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 
 /**
  * The proxy data represents a getter on one of the proxies
@@ -26,7 +28,7 @@ import be.shad.tsqb.query.copy.Copyable;
  * <p>
  * The data can be converted to a property path by calling its getAlias method.
  */
-public class ReferenceTypeSafeValue<T> extends TypeSafeValueImpl<T> {
+public class ReferenceTypeSafeValue<T> extends TypeSafeValueImpl<T> implements Fingerprintable {
     private final TypeSafeQueryProxyData data;
 
     /**
@@ -52,6 +54,11 @@ public class ReferenceTypeSafeValue<T> extends TypeSafeValueImpl<T> {
         return new HqlQueryValueImpl(data.getAlias());
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(data.getAlias());
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new ReferenceTypeSafeValue<>(context, this);
@@ -20,13 +20,15 @@ import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.TypeSafeQueryInternal;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.restrictions.Restriction;
 
 /**
  * Turns a restriction into a type safe value (boolean) so that it can be
  * queued as selection into the query.
  */
-public class RestrictionTypeSafeValue extends TypeSafeValueImpl<Boolean> {
+public class RestrictionTypeSafeValue extends TypeSafeValueImpl<Boolean> implements Fingerprintable {
 
     private Restriction restriction;
 
@@ -56,6 +58,13 @@ public class RestrictionTypeSafeValue extends TypeSafeValueImpl<Boolean> {
                 ") then true else false end", hqlQueryValue.getParams());
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        boolean requiresLiterals = fingerprint.setRequiresLiterals(true);
+        fingerprint.append(restriction);
+        fingerprint.setRequiresLiterals(requiresLiterals);
+    }
+
     /**
      */
     @Override
@@ -19,13 +19,15 @@ import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.TypeSafeQueryScopeValidator;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 
 /**
  * Wraps a value in a function.
  * Examples uses are {@link TypeSafeValueFunctions#sum(Number) sum(...)},
  * {@link TypeSafeValueFunctions#max(Number) max(...)} etc.
  */
-public class WrappedTypeSafeValue<T> extends TypeSafeValueImpl<T> implements TypeSafeValueContainer {
+public class WrappedTypeSafeValue<T> extends TypeSafeValueImpl<T> implements TypeSafeValueContainer, Fingerprintable {
     private String function; // sum/max/min/trim/count/...
     private TypeSafeValue<?> value;
 
@@ -34,6 +36,7 @@ public class WrappedTypeSafeValue<T> extends TypeSafeValueImpl<T> implements Typ
      */
     protected WrappedTypeSafeValue(CopyContext context, WrappedTypeSafeValue<T> original) {
         super(context, original);
+        this.function = original.function;
         this.value = context.get(original.value);
     }
 
@@ -48,6 +51,10 @@ public class WrappedTypeSafeValue<T> extends TypeSafeValueImpl<T> implements Typ
         this.value = value;
     }
 
+    public String getFunction() {
+        return function;
+    }
+
     @Override
     public HqlQueryValue toHqlQueryValue(HqlQueryBuilderParams params) {
         HqlQueryValue value = this.value.toHqlQueryValue(params);
@@ -59,6 +66,11 @@ public class WrappedTypeSafeValue<T> extends TypeSafeValueImpl<T> implements Typ
         validator.validateInScope(value);
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        fingerprint.append(function).append(value);
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new WrappedTypeSafeValue<>(context, this);
@@ -19,6 +19,8 @@ import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.TypeSafeQueryScopeValidator;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
+import be.shad.tsqb.query.fingerprint.Fingerprintable;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
 import be.shad.tsqb.values.HqlQueryBuilderParams;
 import be.shad.tsqb.values.HqlQueryValue;
 import be.shad.tsqb.values.OperationTypeSafeValue;
@@ -27,7 +29,7 @@ import be.shad.tsqb.values.TypeSafeValue;
 import be.shad.tsqb.values.TypeSafeValueContainer;
 import be.shad.tsqb.values.TypeSafeValueImpl;
 
-public class ArithmeticTypeSafeValueImpl extends TypeSafeValueImpl<Number> implements TypeSafeValueContainer, ArithmeticTypeSafeValue {
+public class ArithmeticTypeSafeValueImpl extends TypeSafeValueImpl<Number> implements TypeSafeValueContainer, ArithmeticTypeSafeValue, Fingerprintable {
     private OperationTypeSafeValue<Number> combinedValue;
 
     public ArithmeticTypeSafeValueImpl(TypeSafeQuery query, TypeSafeValue<Number> firstValue) {
@@ -134,6 +136,13 @@ public class ArithmeticTypeSafeValueImpl extends TypeSafeValueImpl<Number> imple
         return query.getArithmeticsBuilder().multiply(value1, value2, values);
     }
 
+    @Override
+    public void appendFingerprint(QueryFingerprint fingerprint) {
+        boolean previous = fingerprint.setRequiresLiterals(true);
+        fingerprint.append(combinedValue);
+        fingerprint.setRequiresLiterals(previous);
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new ArithmeticTypeSafeValueImpl(context, this);
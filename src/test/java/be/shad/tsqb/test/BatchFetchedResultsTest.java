@@ -16,6 +16,7 @@
 package be.shad.tsqb.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -25,11 +26,20 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.hibernate.Session;
+import org.hibernate.query.Query;
 
 import org.junit.Test;
 
 import be.shad.tsqb.NamedParameter;
+import be.shad.tsqb.dao.HibernateQueryConfigurer;
+import be.shad.tsqb.dao.HibernateQueryConfigurerAdapter;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
 import be.shad.tsqb.domain.DomainObject;
+import be.shad.tsqb.domain.GeographicCoordinate;
 import be.shad.tsqb.domain.Town;
 import be.shad.tsqb.domain.people.Person;
 import be.shad.tsqb.domain.people.Relation;
@@ -184,4 +194,100 @@ public class BatchFetchedResultsTest extends TypeSafeQueryTest {
         }
         return ids;
     }
+
+    /**
+     * Each batch is listed on its own session when a chunk executor is set,
+     * the merged results must match the sequential results in chunk order.
+     * The data is committed up front to make it visible to the chunk sessions.
+     */
+    @Test
+    public void testBatchedInQueryListedInParallel() {
+        final Set<Session> sessions = Collections.synchronizedSet(new HashSet<Session>());
+        HibernateQueryConfigurer configurer = new HibernateQueryConfigurerAdapter() {
+            @Override
+            public void beforeQuery(Session session) {
+                sessions.add(session);
+            }
+        };
+
+        Town committedTown = new Town();
+        committedTown.setId(987654400L);
+        committedTown.setName("CommittedTown");
+        committedTown.setGeographicCoordinate(new GeographicCoordinate());
+        List<Person> committedPersons = new ArrayList<>();
+        for (long i=0; i < 10; i++) {
+            Person committedPerson = new Person();
+            committedPerson.setId(987654401L + i);
+            committedPerson.setName("P" + i);
+            committedPerson.setTown(committedTown);
+            committedPersons.add(committedPerson);
+        }
+        Session session = getSessionFactory().openSession();
+        try {
+            session.beginTransaction();
+            session.save(committedTown);
+            for (Person committedPerson: committedPersons) {
+                session.save(committedPerson);
+            }
+            session.getTransaction().commit();
+
+            try {
+                // descending ids with ascending names per batch: [P8, P9, P6, P7, ...]
+                List<Long> ids = new ArrayList<>();
+                for (int i=committedPersons.size() - 1; i >= 0; i--) {
+                    ids.add(committedPersons.get(i).getId());
+                }
+                Person person = query.from(Person.class);
+                query.where(person.getId()).in(ids, 2);
+                query.selectValue(person.getName());
+                query.orderBy().asc(person.getName());
+
+                List<String> sequentialNames = createDao().doQueryResults(query);
+                assertEquals(Arrays.asList("P8", "P9", "P6", "P7", "P4",
+                        "P5", "P2", "P3", "P0", "P1"), sequentialNames);
+
+                ExecutorService executor = Executors.newFixedThreadPool(2);
+                try {
+                    TypeSafeQueryDaoImpl dao = createDao();
+                    dao.setChunkExecutor(executor);
+                    List<String> parallelNames = dao.doQueryResults(query, configurer);
+                    assertEquals(sequentialNames, parallelNames);
+                } finally {
+                    executor.shutdown();
+                }
+            } finally {
+                session.beginTransaction();
+                for (Person committedPerson: committedPersons) {
+                    session.delete(committedPerson);
+                }
+                session.delete(committedTown);
+                session.getTransaction().commit();
+            }
+        } finally {
+            session.close();
+        }
+        assertEquals(5, sessions.size());
+        assertFalse(sessions.contains(getSessionFactory().getCurrentSession()));
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testParallelBatchFailureIsRethrown() {
+        HibernateQueryConfigurer configurer = new HibernateQueryConfigurerAdapter() {
+            @Override
+            public <R> void configureQuery(Query<R> query) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        Person person = query.from(Person.class);
+        query.where(person.getId()).in(Arrays.asList(1L, 2L, 3L), 2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            TypeSafeQueryDaoImpl dao = createDao();
+            dao.setChunkExecutor(executor);
+            dao.doQueryResults(query, configurer);
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.TypeSafeDeleteQuery;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeSubQuery;
+import be.shad.tsqb.query.TypeSafeUpdateQuery;
+import be.shad.tsqb.query.copy.CopyContext;
+
+public class BulkDmlQueryTest extends TypeSafeQueryTest {
+    private TypeSafeQueryDaoImpl dao;
+    private List<Long> ids;
+
+    @Before
+    public void initializeDao() {
+        dao = createDao();
+
+        ids = new ArrayList<>();
+        for(Person person: createTestPeople("Anna", "Bob", "Carl", "Dave", "Emma")) {
+            person.setAge(20);
+            ids.add(person.getId());
+        }
+    }
+
+    private List<Integer> selectAges() {
+        TypeSafeRootQuery ages = dao.createQuery();
+        Person person = ages.from(Person.class);
+        ages.selectValue(person.getAge());
+        ages.orderBy().asc(person.getName());
+        return dao.doQueryResults(ages);
+    }
+
+    @Test
+    public void testUpdateHql() {
+        TypeSafeUpdateQuery update = dao.createUpdateQuery();
+        Person person = update.from(Person.class);
+        update.set(person.getAge(), 30);
+        update.set(person.getNickname(), person.getName());
+        update.set(person.getSpouse(), (Person) null);
+        update.where(person.getName()).eq("Anna");
+
+        HqlQuery hqlQuery = update.toHqlQuery();
+        assertEquals("update Person hobj1 set hobj1.age = :np1, hobj1.nickname = hobj1.name, "
+                + "hobj1.spouse = null where hobj1.name = :np2", hqlQuery.getHql());
+        assertEquals(2, hqlQuery.getParams().size());
+    }
+
+    @Test
+    public void testDeleteHql() {
+        TypeSafeDeleteQuery delete = dao.createDeleteQuery();
+        Person person = delete.from(Person.class);
+        delete.where(person.getAge()).gt(20);
+
+        assertEquals("delete from Person hobj1 where hobj1.age > :np1", delete.toHqlQuery().getHql());
+    }
+
+    @Test
+    public void testUpdate() {
+        TypeSafeUpdateQuery update = dao.createUpdateQuery();
+        Person person = update.from(Person.class);
+        update.set(person.getAge(), 30);
+        update.where(person.getName()).in(Arrays.asList("Anna", "Emma"));
+
+        assertEquals(2, dao.executeUpdate(update));
+        assertEquals(Arrays.asList(30, 20, 20, 20, 30), selectAges());
+    }
+
+    /**
+     * The statement is executed per chunk and the updated counts are summed.
+     */
+    @Test
+    public void testUpdateBatched() {
+        TypeSafeUpdateQuery update = dao.createUpdateQuery();
+        Person person = update.from(Person.class);
+        update.set(person.getAge(), 40);
+        update.where(person.getId()).in(ids.subList(0, 4), 2);
+
+        assertEquals(4, dao.executeUpdate(update));
+        assertEquals(Arrays.asList(40, 40, 40, 40, 20), selectAges());
+    }
+
+    @Test
+    public void testDeleteWithSubquery() {
+        TypeSafeDeleteQuery delete = dao.createDeleteQuery();
+        Person person = delete.from(Person.class);
+
+        TypeSafeSubQuery<String> names = delete.subquery(String.class);
+        Person subPerson = names.from(Person.class);
+        names.select(subPerson.getName());
+        names.where(subPerson.getName()).startsWith("D");
+
+        delete.where(person.getName()).in(names);
+
+        assertEquals(1, dao.executeUpdate(delete));
+        assertEquals(4, selectAges().size());
+    }
+
+    /**
+     * Bulk statements are not select queries, they can't be selected from, paged or prepared.
+     */
+    @Test
+    public void testDmlQueryIsNotSelectQuery() {
+        assertFalse(dao.createUpdateQuery() instanceof TypeSafeRootQuery);
+        assertFalse(dao.createDeleteQuery() instanceof TypeSafeRootQuery);
+    }
+
+    @Test
+    public void testCopyUpdate() {
+        TypeSafeUpdateQuery update = dao.createUpdateQuery();
+        Person person = update.from(Person.class);
+        update.set(person.getAge(), 30);
+        update.where(person.getName()).eq("Anna");
+
+        TypeSafeUpdateQuery copy = new CopyContext().get(update);
+        assertEquals(update.toHqlQuery().getHql(), copy.toHqlQuery().getHql());
+        assertEquals(1, dao.executeUpdate(copy));
+        assertEquals(Arrays.asList(30, 20, 20, 20, 20), selectAges());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testJoinsNotAllowed() {
+        TypeSafeDeleteQuery delete = dao.createDeleteQuery();
+        Person person = delete.from(Person.class);
+        delete.where(person.getTown().getName()).eq("Town");
+        delete.toHqlQuery().getHql();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUpdateWithoutSetNotAllowed() {
+        TypeSafeUpdateQuery update = dao.createUpdateQuery();
+        update.from(Person.class);
+        update.toHqlQuery().getHql();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetEntityNotAllowed() {
+        TypeSafeUpdateQuery update = dao.createUpdateQuery();
+        Person person = update.from(Person.class);
+        update.set(person, (Person) null);
+    }
+
+}
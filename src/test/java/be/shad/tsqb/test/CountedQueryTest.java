@@ -0,0 +1,240 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.HibernateQueryConfigurer;
+import be.shad.tsqb.dao.HibernateQueryConfigurerAdapter;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.dao.result.CountedQueryResult;
+import be.shad.tsqb.domain.GeographicCoordinate;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.JoinType;
+import be.shad.tsqb.query.TypeSafeRootQueryInternal;
+import be.shad.tsqb.values.HqlQueryBuilderParams;
+import be.shad.tsqb.values.HqlQueryBuilderParamsImpl;
+
+public class CountedQueryTest extends TypeSafeQueryTest {
+    private TypeSafeQueryDaoImpl dao;
+    private Person person;
+
+    @Before
+    public void initializeDao() {
+        dao = createDao();
+
+        int age = 0;
+        for(Person created: createTestPeople("Anna", "Bob", "Carl", "Dave", "Emma")) {
+            created.setAge(20 + age++ % 2);
+        }
+        person = query.from(Person.class);
+    }
+
+    private String countHql() {
+        HqlQueryBuilderParams params = new HqlQueryBuilderParamsImpl();
+        params.setCountingRows(true);
+        HqlQuery countQuery = ((TypeSafeRootQueryInternal) query).toHqlQuery(params);
+        assertEquals(null, countQuery.getResultTransformer());
+        return countQuery.getHql();
+    }
+
+    /**
+     * The projections are replaced by count(*), fetch joins
+     * are plain joins and the ordering is left out.
+     */
+    @Test
+    public void testCountQueryHql() {
+        query.join(person.getTown(), JoinType.Fetch);
+        query.where(person.getAge()).gt(20);
+        query.orderBy().asc(person.getName());
+
+        assertEquals("select count(*) from Person hobj1 join hobj1.town hobj2 "
+                + "where hobj1.age > :np1", countHql());
+    }
+
+    /**
+     * A single distinct value counts the distinct values.
+     */
+    @Test
+    public void testCountQueryHqlDistinct() {
+        query.selectValue(query.hqlFunction().distinct(person.getAge()));
+
+        assertEquals("select count(distinct hobj1.age) from Person hobj1", countHql());
+    }
+
+    /**
+     * Grouped queries select the grouped rows to count them.
+     */
+    @Test
+    public void testCountQueryHqlGrouped() {
+        query.selectValue(query.groupBy(person.getAge()).select());
+        query.orderBy().asc(person.getAge());
+
+        assertEquals("select hobj1.age from Person hobj1 group by hobj1.age", countHql());
+    }
+
+    @Test
+    public void testQueryCounted() {
+        query.selectValue(person.getName());
+        query.orderBy().asc(person.getName());
+        query.setFirstResult(1);
+        query.setMaxResults(2);
+
+        CountedQueryResult<String> result = dao.doQueryCounted(query);
+        assertEquals(5, result.getTotalCount());
+        assertEquals(2, result.getResults().size());
+        assertEquals("Bob", result.getFirstResult());
+    }
+
+    /**
+     * The keyset restriction is left out of the count query,
+     * so the total count is the same for each page.
+     */
+    @Test
+    public void testKeysetPageCounted() {
+        query.selectValue(person.getName());
+        query.orderBy().asc(person.getName());
+        query.setKeysetAfter(dao.<String>doQueryPage(query, 2).getNextKey());
+        query.setMaxResults(2);
+
+        assertEquals("select count(*) from Person hobj1", countHql());
+        CountedQueryResult<String> result = dao.doQueryCounted(query);
+        assertEquals(5, result.getTotalCount());
+        assertEquals(Arrays.asList("Carl", "Dave"), result.getResults());
+    }
+
+    @Test
+    public void testGroupedQueryCounted() {
+        query.selectValue(query.groupBy(person.getAge()).select());
+        query.setMaxResults(1);
+
+        CountedQueryResult<Integer> result = dao.doQueryCounted(query);
+        assertEquals(2, result.getTotalCount());
+        assertEquals(1, result.getResults().size());
+    }
+
+    /**
+     * The count query is executed on the current session, also when a chunk executor
+     * is set and counting concurrently isn't enabled, so it counts the uncommitted
+     * test data the results are listed from.
+     */
+    @Test
+    public void testQueryCountedOnCurrentSession() {
+        final Set<Session> sessions = Collections.synchronizedSet(new HashSet<Session>());
+        HibernateQueryConfigurer configurer = new HibernateQueryConfigurerAdapter() {
+            @Override
+            public void beforeQuery(Session session) {
+                sessions.add(session);
+            }
+        };
+        query.selectValue(person.getName());
+        query.setMaxResults(2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            dao.setChunkExecutor(executor);
+            CountedQueryResult<String> result = dao.doQueryCounted(query, configurer);
+            assertEquals(2, result.getResults().size());
+            assertEquals(5, result.getTotalCount());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, sessions.size());
+        assertTrue(sessions.contains(getSessionFactory().getCurrentSession()));
+    }
+
+    /**
+     * When counting concurrently, the count query is executed on a new session,
+     * which only sees the committed data. The data is committed up front.
+     */
+    @Test
+    public void testQueryCountedConcurrently() {
+        final Set<Session> sessions = Collections.synchronizedSet(new HashSet<Session>());
+        HibernateQueryConfigurer configurer = new HibernateQueryConfigurerAdapter() {
+            @Override
+            public void beforeQuery(Session session) {
+                sessions.add(session);
+            }
+        };
+
+        Town committedTown = new Town();
+        committedTown.setId(987654500L);
+        committedTown.setName("CommittedTown");
+        committedTown.setGeographicCoordinate(new GeographicCoordinate());
+        List<Person> committedPersons = new ArrayList<>();
+        for (long i=0; i < 3; i++) {
+            Person committedPerson = new Person();
+            committedPerson.setId(987654501L + i);
+            committedPerson.setName("Committed" + i);
+            committedPerson.setTown(committedTown);
+            committedPersons.add(committedPerson);
+        }
+        Session session = getSessionFactory().openSession();
+        try {
+            session.beginTransaction();
+            session.save(committedTown);
+            for (Person committedPerson: committedPersons) {
+                session.save(committedPerson);
+            }
+            session.getTransaction().commit();
+
+            try {
+                query.selectValue(person.getName());
+                query.where(person.getTown().getId()).eq(committedTown.getId());
+                query.orderBy().asc(person.getName());
+                query.setMaxResults(2);
+
+                ExecutorService executor = Executors.newFixedThreadPool(1);
+                try {
+                    dao.setChunkExecutor(executor);
+                    dao.setCountingConcurrently(true);
+                    CountedQueryResult<String> result = dao.doQueryCounted(query, configurer);
+                    assertEquals(Arrays.asList("Committed0", "Committed1"), result.getResults());
+                    assertEquals(3, result.getTotalCount());
+                } finally {
+                    executor.shutdown();
+                }
+            } finally {
+                session.beginTransaction();
+                for (Person committedPerson: committedPersons) {
+                    session.delete(committedPerson);
+                }
+                session.delete(committedTown);
+                session.getTransaction().commit();
+            }
+        } finally {
+            session.close();
+        }
+        assertEquals(2, sessions.size());
+        assertTrue(sessions.contains(getSessionFactory().getCurrentSession()));
+    }
+}
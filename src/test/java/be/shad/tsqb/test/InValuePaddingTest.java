@@ -0,0 +1,180 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hibernate.query.Query;
+import org.hibernate.query.internal.AbstractProducedQuery;
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.HibernateQueryConfigurer;
+import be.shad.tsqb.dao.HibernateQueryConfigurerAdapter;
+import be.shad.tsqb.dao.InValuePadding;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.domain.people.Person;
+
+public class InValuePaddingTest extends TypeSafeQueryTest {
+    private TypeSafeQueryDaoImpl dao;
+    private List<Person> people = new ArrayList<>();
+    private Query<?> executedQuery;
+    private HibernateQueryConfigurer configurer = new HibernateQueryConfigurerAdapter() {
+        @Override
+        public <R> void configureQuery(Query<R> query) {
+            executedQuery = query;
+        }
+    };
+
+    @Before
+    public void initializeDao() {
+        dao = createDao();
+        dao.setInValuePadding(new InValuePadding());
+
+        people.addAll(createTestPeople("Emma", "Dave", "Carl", "Bob", "Anna"));
+    }
+
+    /**
+     * The amount of values bound to the collection param when the query was executed last.
+     */
+    private int getBoundSize() {
+        return ((AbstractProducedQuery<?>) executedQuery).getQueryParameterBindings().
+                getQueryParameterListBinding("np1").getBindValues().size();
+    }
+
+    @Test
+    public void testPowersOfTwo() {
+        InValuePadding padding = new InValuePadding();
+        assertEquals(0, padding.getPaddedSize(0));
+        assertEquals(1, padding.getPaddedSize(1));
+        assertEquals(2, padding.getPaddedSize(2));
+        assertEquals(4, padding.getPaddedSize(3));
+        assertEquals(4, padding.getPaddedSize(4));
+        assertEquals(8, padding.getPaddedSize(5));
+        assertEquals(1000, padding.getPaddedSize(1000));
+        assertEquals(Integer.MAX_VALUE, padding.getPaddedSize(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Values are never padded past the max padded size,
+     * larger collections are bound as they are.
+     */
+    @Test
+    public void testMaxPaddedSize() {
+        InValuePadding padding = new InValuePadding();
+        assertEquals(1000, padding.getPaddedSize(600));
+        assertEquals(1001, padding.getPaddedSize(1001));
+        padding.setMaxPaddedSize(2000);
+        assertEquals(1024, padding.getPaddedSize(1000));
+        assertEquals(2000, padding.getPaddedSize(1500));
+
+        InValuePadding buckets = new InValuePadding(10, 50, 100);
+        buckets.setMaxPaddedSize(150);
+        assertEquals(150, buckets.getPaddedSize(101));
+        assertEquals(151, buckets.getPaddedSize(151));
+
+        padding.setMaxPaddedSize(3);
+        assertEquals(Arrays.asList("a", "b", "b"), padding.pad(Arrays.asList("a", "b"), 5));
+    }
+
+    @Test
+    public void testBuckets() {
+        InValuePadding padding = new InValuePadding(10, 50, 100);
+        assertEquals(1, padding.getPaddedSize(1));
+        assertEquals(10, padding.getPaddedSize(2));
+        assertEquals(10, padding.getPaddedSize(10));
+        assertEquals(50, padding.getPaddedSize(11));
+        assertEquals(100, padding.getPaddedSize(100));
+        assertEquals(200, padding.getPaddedSize(101));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBucketsMustBeAscending() {
+        new InValuePadding(10, 10);
+    }
+
+    @Test
+    public void testPadRepeatsLastValue() {
+        InValuePadding padding = new InValuePadding();
+        List<String> values = Arrays.asList("a", "b");
+        assertSame(values, padding.pad(values));
+        assertEquals(Arrays.asList("a", "b", "c", "c"), padding.pad(Arrays.asList("a", "b", "c")));
+    }
+
+    @Test
+    public void testInValuesPadded() {
+        Person person = query.from(Person.class);
+        query.selectValue(person.getName());
+        query.where(person.getName()).in(Arrays.asList("Anna", "Bob", "Carl"));
+        query.orderBy().asc(person.getName());
+
+        List<String> names = dao.doQueryResults(query, configurer);
+        assertEquals(Arrays.asList("Anna", "Bob", "Carl"), names);
+        assertEquals(4, getBoundSize());
+    }
+
+    @Test
+    public void testNotInValuesPadded() {
+        Person person = query.from(Person.class);
+        query.selectValue(person.getName());
+        query.where(person.getName()).notIn(Arrays.asList("Anna", "Bob", "Carl", "Dave", "Eve"));
+        query.orderBy().asc(person.getName());
+
+        List<String> names = dao.doQueryResults(query, configurer);
+        assertEquals(Arrays.asList("Emma"), names);
+        assertEquals(8, getBoundSize());
+    }
+
+    /**
+     * The last chunk of a batched param is padded, so all chunks use the same statement,
+     * the last chunk only contains one value before padding.
+     */
+    @Test
+    public void testLastChunkPadded() {
+        List<Long> ids = new ArrayList<>();
+        for(Person person: people) {
+            ids.add(person.getId());
+        }
+        Person person = query.from(Person.class);
+        query.selectValue(person.getName());
+        query.where(person.getId()).in(ids, 4);
+
+        List<String> names = dao.doQueryResults(query, configurer);
+        assertEquals(5, names.size());
+        assertEquals(4, getBoundSize());
+    }
+
+    /**
+     * A param with a batch size which isn't batched is not padded past its batch size,
+     * which would split it over chunks.
+     */
+    @Test
+    public void testNotPaddedPastBatchSize() {
+        Person person = query.from(Person.class);
+        query.selectValue(person.getName());
+        query.where(person.getName()).in(Arrays.asList("Anna", "Bob", "Carl"), 3);
+        query.orderBy().asc(person.getName());
+
+        List<String> names = dao.doQueryResults(query, configurer);
+        assertEquals(Arrays.asList("Anna", "Bob", "Carl"), names);
+        assertEquals(3, getBoundSize());
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.CollectionNamedParameter;
+import be.shad.tsqb.dao.HibernateQueryConfigurer;
+import be.shad.tsqb.dao.HibernateQueryConfigurerAdapter;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.dao.metrics.QueryExecutionMetrics;
+import be.shad.tsqb.dao.metrics.QueryMetricsListener;
+import be.shad.tsqb.dao.result.CountedQueryResult;
+import be.shad.tsqb.dao.staging.InValueStaging;
+import be.shad.tsqb.dao.staging.StagedInValue;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.TypeSafeUpdateQuery;
+
+public class InValueStagingTest extends TypeSafeQueryTest {
+    private TypeSafeQueryDaoImpl dao;
+    private List<Person> people = new ArrayList<>();
+    private List<String> hqls = new ArrayList<>();
+    private HibernateQueryConfigurer configurer = new HibernateQueryConfigurerAdapter() {
+        @Override
+        public <R> void configureQuery(Query<R> query) {
+            hqls.add(query.getQueryString());
+        }
+    };
+
+    @Before
+    public void initializeDao() {
+        dao = createDao();
+        dao.setInValueStaging(new InValueStaging(3, 2));
+
+        people.addAll(createTestPeople("Emma", "Dave", "Carl", "Bob", "Anna"));
+    }
+
+    private long countStagedValues() {
+        return getSessionFactory().getCurrentSession().createQuery("select count(*) from "
+                + StagedInValue.class.getName(), Long.class).getSingleResult();
+    }
+
+    /**
+     * Multiple staged params can be used in one query, the ordering
+     * is applied to all results and the staged values are removed afterwards.
+     */
+    @Test
+    public void testMultipleCollectionsStaged() {
+        List<Long> ids = new ArrayList<>();
+        for(Person person: people.subList(0, 4)) {
+            ids.add(person.getId());
+        }
+        Person person = query.from(Person.class);
+        query.selectValue(person.getName());
+        query.where(person.getId()).in(ids).and(person.getName()).
+            in(Arrays.asList("Anna", "Bob", "Carl", "Dave"));
+        query.orderBy().asc(person.getName());
+
+        List<String> names = dao.doQueryResults(query, configurer);
+        assertEquals(Arrays.asList("Bob", "Carl", "Dave"), names);
+        assertTrue(hqls.get(0).contains("staged_np1.longValue"));
+        assertTrue(hqls.get(0).contains("staged_np2.stringValue"));
+        assertEquals(0, countStagedValues());
+    }
+
+    /**
+     * The identifiers of the entities are staged.
+     */
+    @Test
+    public void testEntityCollectionStaged() {
+        Person person = query.from(Person.class);
+        query.selectValue(person.getName());
+        query.where(query.toValue(person)).notIn(people.subList(1, 5));
+
+        assertEquals(Arrays.asList("Emma"), dao.doQueryResults(query, configurer));
+        assertTrue(hqls.get(0).contains("not in (select staged_np1.longValue"));
+    }
+
+    /**
+     * Small collections are bound as params.
+     */
+    @Test
+    public void testCollectionBelowThresholdNotStaged() {
+        Person person = query.from(Person.class);
+        query.selectValue(person.getName());
+        query.where(person.getName()).in(Arrays.asList("Anna", "Bob", "Carl"));
+
+        assertEquals(3, dao.doQueryResults(query, configurer).size());
+        assertFalse(hqls.get(0).contains("staged_"));
+    }
+
+    /**
+     * The count query stages its own values.
+     */
+    @Test
+    public void testCountedQueryStaged() {
+        List<String> names = Arrays.asList("Anna", "Bob", "Carl", "Dave");
+        Person person = query.from(Person.class);
+        query.selectValue(person.getName());
+        query.where(person.getName()).in(names);
+        query.setMaxResults(2);
+
+        CountedQueryResult<String> result = dao.doQueryCounted(query, configurer);
+        assertEquals(2, result.getResults().size());
+        assertEquals(4, result.getTotalCount());
+        assertEquals(0, countStagedValues());
+    }
+
+    /**
+     * The staged values are used by bulk statements as well.
+     */
+    @Test
+    public void testBulkUpdateStaged() {
+        List<String> names = Arrays.asList("Anna", "Bob", "Carl", "Dave");
+        TypeSafeUpdateQuery update = dao.createUpdateQuery();
+        Person person = update.from(Person.class);
+        update.set(person.getAge(), 50);
+        update.where(person.getName()).in(names);
+
+        assertEquals(4, dao.executeUpdate(update));
+        assertEquals(0, countStagedValues());
+    }
+
+    /**
+     * When the query fails, a failure to remove the staged values must not hide
+     * the failure of the query and the metrics listener must still be notified.
+     */
+    @Test
+    public void testUnstageFailureSuppressedByQueryFailure() {
+        final IllegalStateException unstageFailure = new IllegalStateException("unstage failed");
+        dao.setInValueStaging(new InValueStaging(3, 2) {
+            @Override
+            public void unstage(Session session, List<String> stageIds) {
+                throw unstageFailure;
+            }
+        });
+        final List<QueryExecutionMetrics> executions = new ArrayList<>();
+        dao.setMetricsListener(new QueryMetricsListener() {
+            @Override
+            public void queryExecuted(QueryExecutionMetrics metrics) {
+                executions.add(metrics);
+            }
+        });
+        final IllegalStateException queryFailure = new IllegalStateException("query failed");
+        HibernateQueryConfigurer failingConfigurer = new HibernateQueryConfigurerAdapter() {
+            @Override
+            public <R> void configureQuery(Query<R> query) {
+                throw queryFailure;
+            }
+        };
+
+        Person person = query.from(Person.class);
+        query.selectValue(person.getName());
+        query.where(person.getName()).in(Arrays.asList("Anna", "Bob", "Carl", "Dave"));
+        try {
+            dao.doQueryResults(query, failingConfigurer);
+            fail("The query should fail.");
+        } catch (IllegalStateException e) {
+            assertSame(queryFailure, e);
+            assertSame(unstageFailure, e.getSuppressed()[0]);
+        }
+        assertEquals(1, executions.size());
+        assertTrue(executions.get(0).isFailed());
+    }
+
+    /**
+     * A param which isn't referenced as (:name) can't be replaced by the subquery,
+     * staging fails before the query is executed and the staged values are removed.
+     */
+    @Test
+    public void testUnreplaceableParamFailsFast() {
+        CollectionNamedParameter param = new CollectionNamedParameter("np1",
+                Arrays.asList("Anna", "Bob", "Carl", "Dave"), null);
+        HqlQuery hqlQuery = new HqlQuery();
+        hqlQuery.appendFrom(Person.class.getName() + " hobj1");
+        hqlQuery.appendWhere("hobj1.name in :np1");
+        hqlQuery.addParams(Arrays.<Object>asList(param));
+        try {
+            new InValueStaging(3, 2).stage(getSessionFactory().getCurrentSession(), hqlQuery);
+            fail("The param can't be replaced.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("np1"));
+        }
+        assertTrue(hqlQuery.getWhere().endsWith("hobj1.name in :np1"));
+        assertSame(param, hqlQuery.getParams().iterator().next());
+        assertEquals(0, countStagedValues());
+    }
+}
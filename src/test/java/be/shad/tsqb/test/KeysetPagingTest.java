@@ -0,0 +1,190 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.dao.result.KeysetPage;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.dto.PersonDto;
+
+public class KeysetPagingTest extends TypeSafeQueryTest {
+    private TypeSafeQueryDaoImpl dao;
+    private Person person;
+    private Map<String, Person> people = new HashMap<>();
+
+    @Before
+    public void initializeDao() {
+        dao = createDao();
+
+        for(Person created: createTestPeople("Emma", "Bob", "Dave", "Anna", "Carl")) {
+            people.put(created.getName(), created);
+        }
+        person = query.from(Person.class);
+    }
+
+    private List<String> names(List<PersonDto> results) {
+        List<String> names = new ArrayList<>();
+        for(PersonDto dto: results) {
+            names.add(dto.getThePersonsName());
+        }
+        return names;
+    }
+
+    /**
+     * The key restriction is added to the where restrictions,
+     * the key values are added as named parameters.
+     */
+    @Test
+    public void testKeysetRestrictionHql() {
+        query.where(person.getAge()).gt(5).or(person.getAge()).lt(1);
+        query.selectValue(person.getName());
+        query.orderBy().asc(person.getName()).desc(person.getId());
+        query.setKeysetAfter("Bob", 10L);
+
+        validate("select hobj1.name from Person hobj1 "
+                + "where (hobj1.age > :np1 or hobj1.age < :np2) and "
+                + "((hobj1.name > :np3 or hobj1.name is null) or "
+                + "(hobj1.name = :np3 and (hobj1.id < :np4 or hobj1.id is null))) "
+                + "order by hobj1.name nulls last, hobj1.id desc nulls last", 5, 1, "Bob", 10L);
+    }
+
+    /**
+     * Pages through all persons, the next key of the last page is null.
+     */
+    @Test
+    public void testPagingDtos() {
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setThePersonsName(person.getName());
+        query.orderBy().asc(person.getName()).asc(person.getId());
+
+        KeysetPage<PersonDto> page1 = dao.doQueryPage(query, 2);
+        assertEquals(Arrays.asList("Anna", "Bob"), names(page1.getResults()));
+        assertTrue(page1.hasNextPage());
+        assertEquals("Bob", page1.getNextKey()[0]);
+
+        query.setKeysetAfter(page1.getNextKey());
+        KeysetPage<PersonDto> page2 = dao.doQueryPage(query, 2);
+        assertEquals(Arrays.asList("Carl", "Dave"), names(page2.getResults()));
+
+        query.setKeysetAfter(page2.getNextKey());
+        KeysetPage<PersonDto> page3 = dao.doQueryPage(query, 2);
+        assertEquals(Arrays.asList("Emma"), names(page3.getResults()));
+        assertFalse(page3.hasNextPage());
+        assertNull(page3.getNextKey());
+    }
+
+    /**
+     * A single selected value is not returned as an array.
+     */
+    @Test
+    public void testPagingSingleValueDescending() {
+        query.selectValue(person.getName());
+        query.orderBy().desc(person.getName());
+
+        KeysetPage<String> page1 = dao.doQueryPage(query, 3);
+        assertEquals(Arrays.asList("Emma", "Dave", "Carl"), page1.getResults());
+        assertArrayEquals(new Object[] { "Carl" }, page1.getNextKey());
+
+        query.setKeysetAfter(page1.getNextKey());
+        KeysetPage<String> page2 = dao.doQueryPage(query, 3);
+        assertEquals(Arrays.asList("Bob", "Anna"), page2.getResults());
+        assertFalse(page2.hasNextPage());
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testKeysetRequiresOrdering() {
+        query.selectValue(person.getName());
+        dao.doQueryPage(query, 2);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testKeyMustMatchOrdering() {
+        query.selectValue(person.getName());
+        query.orderBy().asc(person.getName());
+        query.setKeysetAfter("Bob", 10L);
+        query.toHqlQuery();
+    }
+
+    /**
+     * A null key value is compared using is null, the values after it are compared as usual.
+     * The params of the ordered values are only added once.
+     */
+    @Test
+    public void testKeysetRestrictionHqlWithNullKeyValue() {
+        query.selectValue(person.getName());
+        query.orderBy().asc(query.hqlFunction().concat(person.getNickname()).append("-")).
+            desc(person.getId());
+        query.setKeysetAfter(null, 10L);
+
+        validate("select hobj1.name from Person hobj1 "
+                + "where ((concat(hobj1.nickname, :np1) is null and (hobj1.id < :np2 or hobj1.id is null))) "
+                + "order by concat(hobj1.nickname, :np3) nulls last, hobj1.id desc nulls last", 10L, "-", "-");
+    }
+
+    /**
+     * Pages through persons ordered by a nullable value,
+     * the persons without a nickname are ordered last and are not skipped.
+     */
+    @Test
+    public void testPagingNullableValue() {
+        people.get("Anna").setNickname("b");
+        people.get("Carl").setNickname("a");
+        query.selectValue(person.getName());
+        query.orderBy().asc(person.getNickname()).asc(person.getId());
+
+        KeysetPage<String> page1 = dao.doQueryPage(query, 2);
+        assertEquals(Arrays.asList("Carl", "Anna"), page1.getResults());
+        assertEquals("b", page1.getNextKey()[0]);
+
+        query.setKeysetAfter(page1.getNextKey());
+        KeysetPage<String> page2 = dao.doQueryPage(query, 2);
+        assertEquals(Arrays.asList("Emma", "Bob"), page2.getResults());
+        assertNull(page2.getNextKey()[0]);
+
+        query.setKeysetAfter(page2.getNextKey());
+        KeysetPage<String> page3 = dao.doQueryPage(query, 2);
+        assertEquals(Arrays.asList("Dave"), page3.getResults());
+        assertFalse(page3.hasNextPage());
+    }
+
+    /**
+     * No rows are ordered after a key with only null values.
+     */
+    @Test
+    public void testKeyWithOnlyNullValues() {
+        query.selectValue(person.getName());
+        query.orderBy().asc(person.getNickname());
+        query.setKeysetAfter((Object) null);
+
+        KeysetPage<String> page = dao.doQueryPage(query, 2);
+        assertTrue(page.getResults().isEmpty());
+    }
+}
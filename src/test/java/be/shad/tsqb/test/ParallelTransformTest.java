@@ -0,0 +1,130 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.hibernate.transform.ResultTransformer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.selection.ParallelTransformable;
+import be.shad.tsqb.selection.SelectionValueTransformer;
+
+public class ParallelTransformTest extends TypeSafeQueryTest {
+    private static final SelectionValueTransformer<String, String> UPPER_CASE =
+            new SelectionValueTransformer<String, String>() {
+        @Override
+        public String convert(String a) {
+            return a == null ? null: a.toUpperCase();
+        }
+    };
+
+    private ForkJoinPool pool;
+
+    @Before
+    public void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    private List<Object[]> createTuples(int n) {
+        List<Object[]> tuples = new ArrayList<>(n);
+        for(int i = 0; i < n; i++) {
+            tuples.add(new Object[] { "name" + i, i });
+        }
+        return tuples;
+    }
+
+    /**
+     * A flat dto selection is transformed in chunks, the results are in the order of the tuples.
+     */
+    @Test
+    public void testFlatSelectionTransformedInParallel() {
+        Person person = query.from(Person.class);
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setThePersonsName(query.select(String.class, person.getName(), UPPER_CASE));
+        dto.setPersonAge(person.getAge());
+        ResultTransformer transformer = query.toHqlQuery().getResultTransformer();
+
+        ParallelTransformable parallelTransformer = (ParallelTransformable) transformer;
+        assertTrue(parallelTransformer.isTransformableInParallel());
+
+        List<?> results = parallelTransformer.transformListInParallel(createTuples(5000), pool, 100);
+        assertEquals(5000, results.size());
+        for(int i = 0; i < results.size(); i++) {
+            PersonDto result = (PersonDto) results.get(i);
+            assertEquals("NAME" + i, result.getThePersonsName());
+            assertEquals(i, result.getPersonAge());
+        }
+    }
+
+    /**
+     * Values selected without dto are transformed by their value transformers as well.
+     */
+    @Test
+    public void testSelectionWithoutDtoTransformedInParallel() {
+        Person person = query.from(Person.class);
+        query.selectValue(query.select(String.class, person.getName(), UPPER_CASE));
+        query.selectValue(person.getAge());
+        ResultTransformer transformer = query.toHqlQuery().getResultTransformer();
+
+        List<?> results = ((ParallelTransformable) transformer).transformListInParallel(createTuples(3000), pool, 100);
+        List<?> sequentialResults = transformer.transformList(createTuples(3000));
+        assertEquals(3000, results.size());
+        for(int i = 0; i < results.size(); i++) {
+            assertTrue(Arrays.equals(new Object[] { "NAME" + i, i }, (Object[]) results.get(i)));
+            assertTrue(Arrays.equals((Object[]) sequentialResults.get(i), (Object[]) results.get(i)));
+        }
+    }
+
+    @Test
+    public void testDaoTransformsInParallel() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        for(String name: new String[] { "Anna", "Bob", "Carl" }) {
+            creator.createTestPerson(town, name);
+        }
+        TypeSafeQueryDaoImpl dao = createDao();
+        dao.setTransformPool(pool);
+        dao.setParallelTransformThreshold(1);
+
+        TypeSafeRootQuery namesQuery = dao.createQuery();
+        Person person = namesQuery.from(Person.class);
+        namesQuery.selectValue(namesQuery.select(String.class, person.getName(), UPPER_CASE));
+        namesQuery.orderBy().asc(person.getName());
+
+        List<String> names = dao.doQueryResults(namesQuery);
+        assertEquals(Arrays.asList("ANNA", "BOB", "CARL"), names);
+    }
+
+}
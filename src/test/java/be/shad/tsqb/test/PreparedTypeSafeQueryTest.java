@@ -0,0 +1,144 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.query.PreparedQueryParameters;
+import be.shad.tsqb.query.PreparedTypeSafeQuery;
+
+public class PreparedTypeSafeQueryTest extends TypeSafeQueryTest {
+    private TypeSafeQueryDaoImpl dao;
+    private Person person;
+
+    @Before
+    public void initializeDao() {
+        dao = createDao();
+
+        createTestPeople("Josh", "Joe", "Sam");
+
+        person = query.from(Person.class);
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setThePersonsName(person.getName());
+        query.orderBy().asc(person.getName());
+    }
+
+    private List<String> names(List<PersonDto> results) {
+        String[] names = new String[results.size()];
+        for(int i=0; i < names.length; i++) {
+            names[i] = results.get(i).getThePersonsName();
+        }
+        return Arrays.asList(names);
+    }
+
+    /**
+     * Values which are not bound keep the value bound when preparing.
+     */
+    @Test
+    public void testPreparedQueryWithReboundValue() {
+        query.where(person.getName()).eq().named("name", "Josh");
+        PreparedTypeSafeQuery prepared = query.prepare();
+
+        List<PersonDto> josh = dao.<PersonDto>doQuery(prepared, new PreparedQueryParameters()).getResults();
+        List<PersonDto> sam = dao.<PersonDto>doQuery(prepared, new PreparedQueryParameters().
+                set("name", "Sam")).getResults();
+
+        assertEquals(Arrays.asList("Josh"), names(josh));
+        assertEquals(Arrays.asList("Sam"), names(sam));
+    }
+
+    /**
+     * The prefix/postfix of a string value is applied to the rebound value.
+     */
+    @Test
+    public void testPreparedQueryAppliesStringFlags() {
+        query.where(person.getName()).startsWith().named("prefix", "Jo");
+        PreparedTypeSafeQuery prepared = query.prepare();
+
+        List<PersonDto> jo = dao.<PersonDto>doQuery(prepared, new PreparedQueryParameters()).getResults();
+        List<PersonDto> s = dao.<PersonDto>doQuery(prepared, new PreparedQueryParameters().
+                set("prefix", "S")).getResults();
+
+        assertEquals(Arrays.asList("Joe", "Josh"), names(jo));
+        assertEquals(Arrays.asList("Sam"), names(s));
+    }
+
+    /**
+     * A collection with a single value is not replaced by an equals when preparing,
+     * otherwise more values could not be bound.
+     */
+    @Test
+    public void testPreparedQueryKeepsInOperator() {
+        query.where(person.getName()).in().named("names", Arrays.asList("Sam"));
+        PreparedTypeSafeQuery prepared = query.prepare();
+        assertEquals("select hobj1.name as thePersonsName from Person hobj1 "
+                + "where hobj1.name in (:np1) order by hobj1.name", prepared.getHql());
+
+        List<PersonDto> results = dao.<PersonDto>doQuery(prepared, new PreparedQueryParameters().
+                set("names", Arrays.asList("Sam", "Joe"))).getResults();
+
+        assertEquals(Arrays.asList("Joe", "Sam"), names(results));
+    }
+
+    /**
+     * The prepared query is built from a copy, changing the query afterwards has no effect.
+     */
+    @Test
+    public void testPreparedQueryNotAffectedByQueryChanges() {
+        query.where(person.getName()).eq().named("name", "Josh");
+        PreparedTypeSafeQuery prepared = query.prepare();
+        query.where(person.getAge()).gt(100);
+        query.named().setValue("name", "Sam");
+
+        List<PersonDto> results = dao.<PersonDto>doQuery(prepared, new PreparedQueryParameters()).getResults();
+        assertEquals(Arrays.asList("Josh"), names(results));
+    }
+
+    /**
+     * The first and max results can be overridden per execution.
+     */
+    @Test
+    public void testPreparedQueryResultsRange() {
+        query.setMaxResults(1);
+        PreparedTypeSafeQuery prepared = query.prepare();
+
+        assertEquals(Arrays.asList("Joe"), names(dao.<PersonDto>doQuery(prepared,
+                new PreparedQueryParameters()).getResults()));
+        assertEquals(Arrays.asList("Josh", "Sam"), names(dao.<PersonDto>doQuery(prepared,
+                new PreparedQueryParameters().setFirstResult(1).setMaxResults(2)).getResults()));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testUnknownNameValidation() {
+        query.where(person.getName()).eq().named("name", "Josh");
+        query.prepare().toHqlQuery(new PreparedQueryParameters().set("other", "Sam"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testReboundValueTypeValidation() {
+        query.where(person.getName()).eq().named("name", "Josh");
+        query.prepare().toHqlQuery(new PreparedQueryParameters().set("name", 10));
+    }
+}
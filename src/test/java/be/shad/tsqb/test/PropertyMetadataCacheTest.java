@@ -0,0 +1,64 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import be.shad.tsqb.domain.Product;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.domain.people.Relation;
+import be.shad.tsqb.helper.TypeSafeQueryHelperImpl;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeRootQueryImpl;
+
+public class PropertyMetadataCacheTest extends TypeSafeQueryTest {
+
+    /**
+     * Traversing the same properties again uses the cached metadata
+     * and should yield the same query.
+     */
+    @Test
+    public void testCachedPropertyMetadataYieldsSameQuery() {
+        for(int i=0; i < 2; i++) {
+            query = createQuery();
+            Person parent = query.from(Person.class);
+            Relation relation = query.join(parent.getChildRelations());
+            query.selectValue(relation.getChild().getTown().getGeographicCoordinate().getLattitude());
+            query.where(parent.getName()).eq("Josh");
+
+            validate("select hobj4.geographicCoordinate.lattitude from Person hobj1 join hobj1.childRelations hobj2 "
+                    + "join hobj2.child hobj3 join hobj3.town hobj4 where hobj1.name = :np1", "Josh");
+        }
+    }
+
+    /**
+     * Warming up caches the metadata of the entity properties, nested composite
+     * properties are resolved when they are first used.
+     */
+    @Test
+    public void testWarmedUpPropertyMetadataYieldsSameQuery() {
+        TypeSafeQueryHelperImpl helper = new TypeSafeQueryHelperImpl(getSessionFactory());
+        helper.warmUp();
+        TypeSafeRootQuery query = new TypeSafeRootQueryImpl(helper);
+        Product product = query.from(Product.class);
+        query.selectValue(product.getProductProperties().getPlanning().getAlgorithm());
+        query.where(product.getName()).eq("Cheese");
+        assertEquals("select hobj1.productProperties.planning.algorithm from be.shad.tsqb.domain.Product hobj1 "
+                + "where hobj1.name = :np1", query.toHqlQuery().getHql());
+    }
+}
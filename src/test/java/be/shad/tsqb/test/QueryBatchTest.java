@@ -0,0 +1,115 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.HibernateQueryConfigurer;
+import be.shad.tsqb.dao.HibernateQueryConfigurerAdapter;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.dao.result.QueryBatchResult;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.values.HqlQueryValueImpl;
+
+public class QueryBatchTest extends TypeSafeQueryTest {
+    private TypeSafeQueryDaoImpl dao;
+
+    @Before
+    public void initializeDao() {
+        dao = createDao();
+
+        createTestPeople("Anna", "Bob");
+    }
+
+    private List<TypeSafeRootQuery> createQueries() {
+        TypeSafeRootQuery townQuery = dao.createQuery();
+        townQuery.from(Town.class);
+        townQuery.selectValue(townQuery.hqlFunction().count());
+
+        TypeSafeRootQuery failingQuery = dao.createQuery();
+        failingQuery.from(Person.class);
+        failingQuery.where().and(new HqlQueryValueImpl("unknownAlias.id = 1"));
+
+        TypeSafeRootQuery personQuery = dao.createQuery();
+        Person person = personQuery.from(Person.class);
+        personQuery.selectValue(person.getName());
+
+        return Arrays.asList(townQuery, failingQuery, personQuery);
+    }
+
+    /**
+     * The failing query doesn't prevent the next query from being executed.
+     * Each query is executed on its own session, which doesn't see
+     * the uncommitted test data of this session.
+     */
+    @Test
+    public void testQueriesInOrder() {
+        QueryBatchResult result = dao.doQueries(createQueries());
+        assertEquals(3, result.size());
+        assertTrue(result.hasFailures());
+        assertEquals(Arrays.asList(0L), result.getResults(0));
+        assertTrue(result.isFailed(1));
+        assertFalse(result.isFailed(2));
+        assertEquals(0, result.getResults(2).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFailedResultThrowsFailure() {
+        QueryBatchResult result = dao.doQueries(createQueries());
+        result.getResult(1);
+    }
+
+    @Test
+    public void testQueriesInParallel() {
+        final Set<Session> sessions = Collections.synchronizedSet(new HashSet<Session>());
+        HibernateQueryConfigurer configurer = new HibernateQueryConfigurerAdapter() {
+            @Override
+            public void beforeQuery(Session session) {
+                sessions.add(session);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            dao.setChunkExecutor(executor);
+            QueryBatchResult result = dao.doQueries(createQueries(), configurer);
+            assertEquals(3, result.size());
+            assertEquals(Arrays.asList(0L), result.getResults(0));
+            assertTrue(result.getFailure(1) instanceof IllegalArgumentException);
+            assertEquals(0, result.getResults(2).size());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2, sessions.size());
+        assertFalse(sessions.contains(getSessionFactory().getCurrentSession()));
+    }
+}
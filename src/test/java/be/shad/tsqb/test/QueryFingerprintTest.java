@@ -0,0 +1,189 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static be.shad.tsqb.restrictions.predicate.RestrictionPredicate.IGNORE_NULL_OR_EMPTY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.domain.people.Relation;
+import be.shad.tsqb.query.JoinType;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeSubQuery;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
+import be.shad.tsqb.values.HqlQueryValueImpl;
+
+public class QueryFingerprintTest extends TypeSafeQueryTest {
+
+    private TypeSafeRootQuery createPersonQuery(String name, Integer maximumAge) {
+        TypeSafeRootQuery query = createQuery();
+        query.setDefaultRestrictionPredicate(IGNORE_NULL_OR_EMPTY);
+        Person person = query.from(Person.class);
+        query.where(person.getName()).eq(name).
+            and(person.getAge()).lt(maximumAge);
+        query.orderBy().asc(person.getName());
+        return query;
+    }
+
+    private String fingerprint(TypeSafeRootQuery query) {
+        return query.getFingerprint().toString();
+    }
+
+    /**
+     * Queries which only differ in their parameter values have the same hql and fingerprint.
+     */
+    @Test
+    public void testSameFingerprintForDifferentParameterValues() {
+        TypeSafeRootQuery josh = createPersonQuery("Josh", 30);
+        TypeSafeRootQuery eve = createPersonQuery("Eve", 50);
+
+        assertEquals(josh.toHqlQuery().getHql(), eve.toHqlQuery().getHql());
+        assertEquals(fingerprint(josh), fingerprint(eve));
+        assertEquals(josh.getFingerprint().getValue(), eve.getFingerprint().getValue());
+    }
+
+    @Test
+    public void testFingerprintIsStable() {
+        TypeSafeRootQuery query = createPersonQuery("Josh", 30);
+        assertEquals(16, fingerprint(query).length());
+        assertEquals(fingerprint(query), fingerprint(query));
+        assertEquals(fingerprint(query), fingerprint(query.copy()));
+    }
+
+    /**
+     * A restriction which is ignored by the restriction predicate
+     * is not part of the hql, so the fingerprint differs as well.
+     */
+    @Test
+    public void testInapplicableRestrictionChangesFingerprint() {
+        TypeSafeRootQuery withAge = createPersonQuery("Josh", 30);
+        TypeSafeRootQuery withoutAge = createPersonQuery("Josh", null);
+        TypeSafeRootQuery withoutRestrictions = createPersonQuery(null, null);
+
+        assertNotEquals(fingerprint(withAge), fingerprint(withoutAge));
+        assertNotEquals(fingerprint(withoutAge), fingerprint(withoutRestrictions));
+        assertEquals(fingerprint(withoutAge), fingerprint(createPersonQuery("Eve", null)));
+    }
+
+    @Test
+    public void testOrderingChangesFingerprint() {
+        TypeSafeRootQuery asc = createPersonQuery("Josh", 30);
+        TypeSafeRootQuery desc = createQuery();
+        desc.setDefaultRestrictionPredicate(IGNORE_NULL_OR_EMPTY);
+        Person person = desc.from(Person.class);
+        desc.where(person.getName()).eq("Josh").
+            and(person.getAge()).lt(30);
+        desc.orderBy().desc(person.getName());
+
+        assertNotEquals(fingerprint(asc), fingerprint(desc));
+    }
+
+    @Test
+    public void testJoinTypeChangesFingerprint() {
+        TypeSafeRootQuery inner = createQuery();
+        Person innerPerson = inner.from(Person.class);
+        Town innerTown = inner.join(innerPerson.getTown());
+        inner.where(innerTown.getName()).eq("Springfield");
+
+        TypeSafeRootQuery left = createQuery();
+        Person leftPerson = left.from(Person.class);
+        Town leftTown = left.join(leftPerson.getTown(), JoinType.Left);
+        left.where(leftTown.getName()).eq("Shelbyville");
+
+        assertNotEquals(fingerprint(inner), fingerprint(left));
+    }
+
+    /**
+     * Values which are rendered as literals are part of the hql, and of the fingerprint.
+     */
+    @Test
+    public void testLiteralValuesArePartOfFingerprint() {
+        TypeSafeRootQuery plusOne = createQuery();
+        Person person = plusOne.from(Person.class);
+        plusOne.selectValue(plusOne.getArithmeticsBuilder().value(person.getAge()).add(1));
+
+        TypeSafeRootQuery plusTwo = createQuery();
+        person = plusTwo.from(Person.class);
+        plusTwo.selectValue(plusTwo.getArithmeticsBuilder().value(person.getAge()).add(2));
+
+        assertNotEquals(plusOne.toHqlQuery().getHql(), plusTwo.toHqlQuery().getHql());
+        assertNotEquals(fingerprint(plusOne), fingerprint(plusTwo));
+    }
+
+    @Test
+    public void testSubqueryChangesFingerprint() {
+        assertEquals(fingerprint(createSubqueryQuery(1L, false)), fingerprint(createSubqueryQuery(2L, false)));
+        assertNotEquals(fingerprint(createSubqueryQuery(1L, false)), fingerprint(createSubqueryQuery(1L, true)));
+    }
+
+    private TypeSafeRootQuery createSubqueryQuery(Long parentId, boolean restrictAge) {
+        TypeSafeRootQuery query = createQuery();
+        Person person = query.from(Person.class);
+
+        TypeSafeSubQuery<Long> childrenSQ = query.subquery(Long.class);
+        Person child = childrenSQ.from(Person.class);
+        Relation relation = childrenSQ.join(child.getParentRelations());
+        childrenSQ.where(relation.getParent().getId()).eq(parentId);
+        if (restrictAge) {
+            childrenSQ.where(child.getAge()).gt(18);
+        }
+        childrenSQ.select(child.getId());
+
+        query.where(person.getId()).in(childrenSQ);
+        return query;
+    }
+
+    /**
+     * Restrictions without fingerprint support are rendered to include them.
+     */
+    @Test
+    public void testCustomHqlIsPartOfFingerprint() {
+        TypeSafeRootQuery married = createQuery();
+        married.from(Person.class);
+        married.where(new HqlQueryValueImpl("hobj1.married = true"));
+
+        TypeSafeRootQuery notMarried = createQuery();
+        notMarried.from(Person.class);
+        notMarried.where(new HqlQueryValueImpl("hobj1.married = false"));
+
+        assertNotEquals(fingerprint(married), fingerprint(notMarried));
+    }
+
+    @Test
+    public void testKeysetPagingChangesFingerprint() {
+        TypeSafeRootQuery firstPage = createPersonQuery("Josh", 30);
+        TypeSafeRootQuery nextPage = createPersonQuery("Josh", 30);
+        nextPage.setKeysetAfter("Eve");
+        TypeSafeRootQuery otherPage = createPersonQuery("Josh", 30);
+        otherPage.setKeysetAfter("Adam");
+
+        assertNotEquals(fingerprint(firstPage), fingerprint(nextPage));
+        assertEquals(fingerprint(nextPage), fingerprint(otherPage));
+    }
+
+    @Test
+    public void testFingerprintFormat() {
+        QueryFingerprint fingerprint = new QueryFingerprint();
+        assertEquals("cbf29ce484222325", fingerprint.toString());
+        fingerprint.append("a");
+        assertEquals(16, fingerprint.toString().length());
+        assertEquals(fingerprint.getValue(), Long.parseUnsignedLong(fingerprint.toString(), 16));
+    }
+}
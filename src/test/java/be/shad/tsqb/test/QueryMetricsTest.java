@@ -0,0 +1,190 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.dao.metrics.QueryExecutionMetrics;
+import be.shad.tsqb.dao.metrics.QueryMetricsHistogram;
+import be.shad.tsqb.dao.metrics.QueryMetricsListener;
+import be.shad.tsqb.dao.metrics.QueryPhase;
+import be.shad.tsqb.dao.metrics.QueryShapeHistogram;
+import be.shad.tsqb.dao.result.CountedQueryResult;
+import be.shad.tsqb.dao.result.QueryResultCursor;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+
+public class QueryMetricsTest extends TypeSafeQueryTest {
+    private TypeSafeQueryDaoImpl dao;
+    private QueryMetricsHistogram histogram;
+    private List<QueryExecutionMetrics> executions;
+    private List<Long> ids;
+
+    @Before
+    public void initializeDao() {
+        dao = createDao();
+        histogram = new QueryMetricsHistogram();
+        executions = new ArrayList<>();
+        dao.setMetricsListener(new QueryMetricsListener() {
+            @Override
+            public void queryExecuted(QueryExecutionMetrics metrics) {
+                executions.add(metrics);
+                histogram.queryExecuted(metrics);
+            }
+        });
+
+        ids = new ArrayList<>();
+        for(Person person: createTestPeople("Anna", "Bob", "Carl", "Dave", "Emma")) {
+            ids.add(person.getId());
+        }
+    }
+
+    private TypeSafeRootQuery createNameQuery(String name) {
+        TypeSafeRootQuery nameQuery = dao.createQuery();
+        Person person = nameQuery.from(Person.class);
+        nameQuery.selectValue(person.getName());
+        nameQuery.where(person.getName()).startsWith(name);
+        return nameQuery;
+    }
+
+    @Test
+    public void testMetricsRecorded() {
+        dao.doQueryResults(createNameQuery("A"));
+
+        assertEquals(1, executions.size());
+        QueryExecutionMetrics metrics = executions.get(0);
+        assertEquals("select hobj1.name from Person hobj1 where hobj1.name like :np1", metrics.getHql());
+        assertEquals(createNameQuery("B").getFingerprint().toString(), metrics.getQueryShapeId());
+        assertEquals(16, metrics.getQueryShapeId().length());
+        assertEquals(1, metrics.getChunkCount());
+        assertEquals(1, metrics.getRowCount());
+        assertEquals(1, metrics.getResultSize());
+        assertTrue(metrics.getPhaseNanos(QueryPhase.Execution) > 0);
+        long total = 0;
+        for(QueryPhase phase: QueryPhase.values()) {
+            total += metrics.getPhaseNanos(phase);
+        }
+        assertEquals(total, metrics.getTotalNanos());
+    }
+
+    /**
+     * Queries which only differ in parameter values are aggregated in the same shape.
+     */
+    @Test
+    public void testQueryShapes() {
+        dao.doQueryResults(createNameQuery("A"));
+        dao.doQueryResults(createNameQuery("B"));
+        TypeSafeRootQuery ageQuery = dao.createQuery();
+        Person person = ageQuery.from(Person.class);
+        ageQuery.selectValue(person.getAge());
+        dao.doQueryResults(ageQuery);
+
+        assertEquals(executions.get(0).getQueryShapeId(), executions.get(1).getQueryShapeId());
+        assertNotEquals(executions.get(0).getQueryShapeId(), executions.get(2).getQueryShapeId());
+
+        QueryShapeHistogram nameShape = histogram.getShape(executions.get(0).getQueryShapeId());
+        assertEquals(2, nameShape.getCount());
+        assertEquals(2, nameShape.getRowCount());
+        assertTrue(nameShape.getPercentileNanos(50) <= nameShape.getMaxNanos());
+        assertTrue(nameShape.getPercentileNanos(100) == nameShape.getMaxNanos());
+        assertEquals(2, histogram.getShapesByTotalNanos().size());
+    }
+
+    @Test
+    public void testBatchedChunksCounted() {
+        TypeSafeRootQuery batchedQuery = dao.createQuery();
+        Person person = batchedQuery.from(Person.class);
+        batchedQuery.where(person.getId()).in(ids, 2);
+        dao.doQueryResults(batchedQuery);
+
+        assertEquals(3, executions.get(0).getChunkCount());
+        assertEquals(5, executions.get(0).getRowCount());
+        assertEquals(5, executions.get(0).getResultSize());
+    }
+
+    @Test
+    public void testFailureRecorded() {
+        TypeSafeRootQuery failingQuery = dao.createQuery();
+        Person person = failingQuery.from(Person.class);
+        failingQuery.where(person.getId()).in(ids, 2).or(person.getSpouse().getId()).in(ids, 2);
+        try {
+            dao.doQueryResults(failingQuery);
+            fail("multiple batched params are not allowed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(1, executions.size());
+        assertTrue(executions.get(0).isFailed());
+        assertEquals(1, histogram.getShape(executions.get(0).getQueryShapeId()).getFailureCount());
+    }
+
+    /**
+     * A scrolled query is recorded once its cursor is exhausted,
+     * with the rows which were read and the results which were transformed.
+     */
+    @Test
+    public void testScrollMetricsRecordedWhenCursorReleased() {
+        QueryResultCursor<String> cursor = dao.doQueryScroll(createNameQuery(""));
+        assertEquals(0, executions.size());
+        int results = 0;
+        while (cursor.hasNext()) {
+            cursor.next();
+            results++;
+        }
+        cursor.close();
+
+        assertEquals(1, executions.size());
+        QueryExecutionMetrics metrics = executions.get(0);
+        assertEquals("select hobj1.name from Person hobj1 where hobj1.name like :np1", metrics.getHql());
+        assertEquals(5, results);
+        assertEquals(5, metrics.getRowCount());
+        assertEquals(5, metrics.getResultSize());
+        assertTrue(metrics.getPhaseNanos(QueryPhase.Execution) > 0);
+        assertTrue(metrics.getPhaseNanos(QueryPhase.Transformation) > 0);
+    }
+
+    /**
+     * The count query of a counted result is recorded as an execution of its own.
+     */
+    @Test
+    public void testCountMetricsRecorded() {
+        TypeSafeRootQuery countedQuery = createNameQuery("");
+        countedQuery.setMaxResults(2);
+        CountedQueryResult<String> result = dao.doQueryCounted(countedQuery);
+        assertEquals(5, result.getTotalCount());
+
+        assertEquals(2, executions.size());
+        assertEquals(2, executions.get(0).getRowCount());
+        QueryExecutionMetrics countMetrics = executions.get(1);
+        assertEquals("select count(*) from Person hobj1 where hobj1.name like :np1", countMetrics.getHql());
+        assertEquals(createNameQuery("").getFingerprint().append("count").toString(),
+                countMetrics.getQueryShapeId());
+        assertEquals(1, countMetrics.getRowCount());
+        assertEquals(1, countMetrics.getResultSize());
+        assertTrue(countMetrics.getPhaseNanos(QueryPhase.Execution) > 0);
+        assertEquals(0, countMetrics.getPhaseNanos(QueryPhase.Transformation));
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.transform.ResultTransformer;
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.QueryPlanCache;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.dao.metrics.QueryExecutionMetrics;
+import be.shad.tsqb.dao.metrics.QueryMetricsListener;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.dto.TownDetailsDto;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.fingerprint.QueryFingerprint;
+import be.shad.tsqb.selection.SelectionValueTransformer;
+import be.shad.tsqb.values.CustomTypeSafeValue;
+import be.shad.tsqb.values.HqlQueryBuilderParams;
+import be.shad.tsqb.values.HqlQueryValue;
+
+public class QueryPlanCacheTest extends TypeSafeQueryTest {
+    private TypeSafeQueryDaoImpl dao;
+    private QueryPlanCache cache;
+
+    @Before
+    public void initializeDao() {
+        cache = new QueryPlanCache(2);
+        dao = createDao();
+        dao.setQueryPlanCache(cache);
+
+        createTestPeople("Josh", "Sam");
+    }
+
+    private TypeSafeRootQuery createPersonNameQuery(String name) {
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setThePersonsName(person.getName());
+        query.where(person.getName()).eq(name);
+        return query;
+    }
+
+    /**
+     * The second execution of the same query shape reuses the plan,
+     * only the parameter values differ.
+     */
+    @Test
+    public void testPlanReusedForSameShape() {
+        List<PersonDto> josh = dao.doQueryResults(createPersonNameQuery("Josh"));
+        List<PersonDto> sam = dao.doQueryResults(createPersonNameQuery("Sam"));
+
+        assertEquals(1, josh.size());
+        assertEquals("Josh", josh.get(0).getThePersonsName());
+        assertEquals(1, sam.size());
+        assertEquals("Sam", sam.get(0).getThePersonsName());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * The hql is the same, but the selection is into a different dto,
+     * the transformer may not be shared.
+     */
+    @Test
+    public void testDifferentSelectionShapeIsNotShared() {
+        dao.doQueryResults(createPersonNameQuery("Josh"));
+
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        TownDetailsDto dto = query.select(TownDetailsDto.class);
+        dto.setName(person.getName());
+        query.where(person.getName()).eq("Sam");
+        List<TownDetailsDto> results = dao.doQueryResults(query);
+
+        assertEquals(1, results.size());
+        assertEquals("Sam", results.get(0).getName());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.size());
+    }
+
+    private TypeSafeRootQuery createTransformedNameQuery(final String suffix) {
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.selectValue(query.select(String.class, person.getName(),
+                new SelectionValueTransformer<String, String>() {
+            @Override
+            public String convert(String name) {
+                return name + suffix;
+            }
+        }));
+        query.where(person.getName()).eq("Josh");
+        return query;
+    }
+
+    /**
+     * The plan is found using the fingerprint of the query, value transformers
+     * are created for each query, so the transformer of the plan isn't reused.
+     */
+    @Test
+    public void testValueTransformerNotShared() {
+        List<String> first = dao.doQueryResults(createTransformedNameQuery("!"));
+        List<String> second = dao.doQueryResults(createTransformedNameQuery("?"));
+
+        assertEquals(Arrays.asList("Josh!"), first);
+        assertEquals(Arrays.asList("Josh?"), second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    /**
+     * A shareable result transformer is kept in the plan and reused,
+     * result transformers using value transformers are created for each query.
+     */
+    @Test
+    public void testShareableResultTransformerKeptInPlan() {
+        final List<ResultTransformer> transformers = new ArrayList<>();
+        dao.setMetricsListener(new QueryMetricsListener() {
+            @Override
+            public void queryExecuted(QueryExecutionMetrics metrics) {
+                transformers.add(metrics.getHqlQuery().getResultTransformer());
+            }
+        });
+        dao.doQueryResults(createPersonNameQuery("Josh"));
+        dao.doQueryResults(createPersonNameQuery("Sam"));
+        dao.doQueryResults(createTransformedNameQuery("!"));
+        dao.doQueryResults(createTransformedNameQuery("?"));
+
+        assertNotNull(transformers.get(0));
+        assertSame(transformers.get(0), transformers.get(1));
+        assertNotSame(transformers.get(2), transformers.get(3));
+        assertEquals(2, cache.getHitCount());
+    }
+
+    private TypeSafeRootQuery createCountingQuery(String name, final AtomicInteger renderCount) {
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.selectValue(new CustomTypeSafeValue<String>(query, String.class, "upper(hobj1.name)") {
+            @Override
+            public HqlQueryValue toHqlQueryValue(HqlQueryBuilderParams params) {
+                renderCount.incrementAndGet();
+                return super.toHqlQueryValue(params);
+            }
+        });
+        query.where(person.getName()).in(Arrays.asList(name));
+        return query;
+    }
+
+    /**
+     * The hql of a cached plan is reused, only the parameter values of the query are bound.
+     */
+    @Test
+    public void testHqlNotRenderedForCachedPlan() {
+        AtomicInteger joshRenders = new AtomicInteger();
+        AtomicInteger samRenders = new AtomicInteger();
+        List<String> josh = dao.doQueryResults(createCountingQuery("Josh", joshRenders));
+        List<String> sam = dao.doQueryResults(createCountingQuery("Sam", samRenders));
+
+        assertEquals(Arrays.asList("JOSH"), josh);
+        assertEquals(Arrays.asList("SAM"), sam);
+        assertEquals(1, joshRenders.get());
+        assertEquals(0, samRenders.get());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    /**
+     * The keyset values are not fingerprint parameters,
+     * the hql of a keyset paged query can't be reused.
+     */
+    @Test
+    public void testKeysetQueryNotCached() {
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.selectValue(person.getName());
+        query.orderBy().asc(person.getName());
+        query.setKeysetAfter("Josh");
+
+        assertEquals(Arrays.asList("Sam"), dao.doQueryResults(query));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * A fingerprint with the same hash value but a different content
+     * doesn't find the plan of the other query.
+     */
+    @Test
+    public void testFingerprintHashCollisionIsAMiss() {
+        TypeSafeRootQuery query = createPersonNameQuery("Josh");
+        dao.doQueryResults(query);
+        final QueryFingerprint fingerprint = query.getFingerprint();
+        QueryFingerprint colliding = new QueryFingerprint() {
+            @Override
+            public long getValue() {
+                return fingerprint.getValue();
+            }
+        }.append("other");
+
+        assertNotNull(cache.get(fingerprint));
+        assertNull(cache.get(colliding));
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPlanIsEvicted() {
+        for(int i=0; i < 3; i++) {
+            TypeSafeRootQuery query = dao.createQuery();
+            Person person = query.from(Person.class);
+            query.selectValue(person.getName());
+            query.setMaxResults(i + 1);
+            query.where(person.getAge()).gt(i);
+            for(int j=0; j < i; j++) {
+                query.where(person.getAge()).gt(j);
+            }
+            dao.doQueryResults(query);
+        }
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testMaxSizeMustBePositive() {
+        new QueryPlanCache(0);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.QueryResultCache;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.domain.GeographicCoordinate;
+import be.shad.tsqb.domain.Product;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeUpdateQuery;
+
+public class QueryResultCacheTest extends TypeSafeQueryTest {
+    private static QueryResultCache cache;
+    private TypeSafeQueryDaoImpl dao;
+
+    /**
+     * The listeners can't be removed from the shared session
+     * factory, so the same cache is registered only once.
+     */
+    @Before
+    public void initializeDao() {
+        if (cache == null) {
+            cache = new QueryResultCache();
+            cache.register(getSessionFactory());
+        }
+        cache.clear();
+        dao = createDao();
+        dao.setQueryResultCache(cache);
+
+        createTestPeople("Anna");
+    }
+
+    private TypeSafeRootQuery createTownNamesQuery(String name) {
+        TypeSafeRootQuery townQuery = dao.createQuery();
+        Town town = townQuery.from(Town.class);
+        townQuery.selectValue(town.getName());
+        townQuery.where(town.getName()).startsWith(name);
+        townQuery.setCacheable(true);
+        return townQuery;
+    }
+
+    private TypeSafeRootQuery createProductNamesQuery() {
+        TypeSafeRootQuery productQuery = dao.createQuery();
+        Product product = productQuery.from(Product.class);
+        productQuery.selectValue(product.getName());
+        productQuery.setCacheable(true);
+        return productQuery;
+    }
+
+    @Test
+    public void testResultsCachedByParameterValues() {
+        long hitCount = cache.getHitCount();
+        List<String> results = dao.doQueryResults(createTownNamesQuery("Test"));
+        assertEquals(1, results.size());
+        assertSame(results, dao.doQueryResults(createTownNamesQuery("Test")));
+        assertEquals(0, dao.doQueryResults(createTownNamesQuery("Other")).size());
+
+        assertEquals(hitCount + 1, cache.getHitCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCachedResultsUnmodifiable() {
+        dao.doQueryResults(createTownNamesQuery("Test")).clear();
+    }
+
+    @Test
+    public void testQueryNotCacheable() {
+        TypeSafeRootQuery townQuery = createTownNamesQuery("Test");
+        townQuery.setCacheable(false);
+        dao.doQueryResults(townQuery);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testExpiredResultsNotReturned() {
+        QueryResultCache expiringCache = new QueryResultCache(10, 1, TimeUnit.NANOSECONDS);
+        dao.setQueryResultCache(expiringCache);
+        List<String> results = dao.doQueryResults(createTownNamesQuery("Test"));
+        assertNotSame(results, dao.doQueryResults(createTownNamesQuery("Test")));
+        assertEquals(0, expiringCache.getHitCount());
+    }
+
+    /**
+     * A committed change of an entity invalidates the results using its table only.
+     */
+    @Test
+    public void testCommittedChangeInvalidatesResults() {
+        dao.doQueryResults(createTownNamesQuery("Test"));
+        List<String> productNames = dao.doQueryResults(createProductNamesQuery());
+        assertEquals(2, cache.size());
+
+        Town committedTown = new Town();
+        committedTown.setId(987654321L);
+        committedTown.setName("CommittedTown");
+        committedTown.setGeographicCoordinate(new GeographicCoordinate());
+        Session session = getSessionFactory().openSession();
+        try {
+            session.beginTransaction();
+            session.save(committedTown);
+            session.getTransaction().commit();
+            assertEquals(1, cache.size());
+
+            session.beginTransaction();
+            session.delete(committedTown);
+            session.getTransaction().commit();
+        } finally {
+            session.close();
+        }
+        assertEquals(1, cache.size());
+        assertSame(productNames, dao.doQueryResults(createProductNamesQuery()));
+    }
+
+    @Test
+    public void testBulkUpdateInvalidatesResults() {
+        dao.doQueryResults(createTownNamesQuery("Test"));
+        TypeSafeRootQuery personQuery = dao.createQuery();
+        Person person = personQuery.from(Person.class);
+        personQuery.selectValue(person.getName());
+        personQuery.setCacheable(true);
+        dao.doQueryResults(personQuery);
+        assertEquals(2, cache.size());
+
+        TypeSafeUpdateQuery update = dao.createUpdateQuery();
+        Person updated = update.from(Person.class);
+        update.set(updated.getAge(), 40);
+        dao.executeUpdate(update);
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Results cached after the changes of the transaction were flushed
+     * are invalidated when the transaction is rolled back.
+     */
+    @Test
+    public void testRollbackInvalidatesResults() {
+        dao.doQueryResults(createTownNamesQuery("Test"));
+        assertEquals(1, cache.size());
+
+        getSessionFactory().getCurrentSession().getTransaction().rollback();
+        getSessionFactory().getCurrentSession().beginTransaction();
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * A changed collection invalidates the results using the tables of the collection.
+     */
+    @Test
+    public void testCollectionChangeInvalidatesResults() {
+        // flush the collections of the test data first, flushing them invalidates as well:
+        getSessionFactory().getCurrentSession().flush();
+        TypeSafeRootQuery personQuery = dao.createQuery();
+        Person person = personQuery.from(Person.class);
+        personQuery.selectValue(person.getName());
+        personQuery.setCacheable(true);
+        dao.doQueryResults(personQuery);
+        assertEquals(1, cache.size());
+
+        Town town = new Town();
+        town.setId(987654322L);
+        town.setName("CollectionTown");
+        town.setGeographicCoordinate(new GeographicCoordinate());
+        town.setInhabitants(new HashSet<Person>());
+        Session session = getSessionFactory().openSession();
+        try {
+            session.beginTransaction();
+            session.save(town);
+            session.flush();
+            assertEquals(0, cache.size());
+            session.getTransaction().rollback();
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Modifying a collection param after the query was executed doesn't affect the cached key.
+     */
+    @Test
+    public void testModifiedCollectionParamDoesNotAffectKey() {
+        List<String> names = new ArrayList<>(Arrays.asList("TestTown"));
+        TypeSafeRootQuery townQuery = dao.createQuery();
+        Town town = townQuery.from(Town.class);
+        townQuery.selectValue(town.getName());
+        townQuery.where(town.getName()).in(names);
+        townQuery.setCacheable(true);
+        List<String> results = dao.doQueryResults(townQuery);
+        names.add("OtherTown");
+
+        TypeSafeRootQuery sameQuery = dao.createQuery();
+        Town sameTown = sameQuery.from(Town.class);
+        sameQuery.selectValue(sameTown.getName());
+        sameQuery.where(sameTown.getName()).in(Arrays.asList("TestTown"));
+        sameQuery.setCacheable(true);
+        assertSame(results, dao.doQueryResults(sameQuery));
+    }
+}
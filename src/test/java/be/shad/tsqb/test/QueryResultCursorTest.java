@@ -0,0 +1,113 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import be.shad.tsqb.dao.result.QueryResultCursor;
+import be.shad.tsqb.domain.DomainObject;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.selection.collection.IdentityFieldProvider;
+
+public class QueryResultCursorTest extends TypeSafeQueryTest {
+    private final IdentityFieldProvider<DomainObject> identifierProvider =
+            new IdentityFieldProvider<DomainObject>() {
+        @Override
+        protected Object getIdentifier(DomainObject resultProxy) {
+            return resultProxy.getId();
+        }
+    };
+
+    /**
+     * Each town is only returned once the rows of the next town are read,
+     * so all inhabitants are collected in the town.
+     */
+    @Test
+    public void testScrollCollectionSubselect() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town1 = creator.createTestTownWithPeople(new HashSet<>(Arrays.asList("Josh", "Sam")));
+        Town town2 = creator.createTestTownWithPeople(new HashSet<>(Arrays.asList("Albert")));
+
+        Town townProxy = query.from(Town.class);
+        Person inhabitant = query.join(townProxy.getInhabitants());
+
+        Town selectTown = query.select(Town.class, identifierProvider);
+        Person selectPerson = query.select(selectTown.getInhabitants(), Person.class, null);
+        selectTown.setId(townProxy.getId());
+        selectPerson.setName(inhabitant.getName());
+        query.orderBy().asc(townProxy.getId());
+
+        List<Town> towns = new ArrayList<>();
+        try (QueryResultCursor<Town> cursor = createDao().doQueryScroll(query)) {
+            while (cursor.hasNext()) {
+                towns.add(cursor.next());
+            }
+        }
+        assertEquals(2, towns.size());
+        assertEquals(town1.getId(), towns.get(0).getId());
+        assertEquals(2, towns.get(0).getInhabitants().size());
+        assertEquals(town2.getId(), towns.get(1).getId());
+        assertEquals(1, towns.get(1).getInhabitants().size());
+    }
+
+    @Test
+    public void testScrollValues() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        creator.createTestTownWithPeople(new HashSet<>(Arrays.asList("Josh", "Sam")));
+
+        Person person = query.from(Person.class);
+        query.selectValue(person.getName());
+        query.orderBy().asc(person.getName());
+
+        QueryResultCursor<String> cursor = createDao().doQueryScroll(query);
+        assertTrue(cursor.hasNext());
+        assertEquals("Josh", cursor.next());
+        assertEquals("Sam", cursor.next());
+        assertFalse(cursor.hasNext());
+        cursor.close();
+    }
+
+    @Test
+    public void testClosedCursorHasNoNext() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        creator.createTestTownWithPeople(new HashSet<>(Arrays.asList("Josh", "Sam")));
+
+        Person person = query.from(Person.class);
+        query.selectValue(person.getName());
+
+        QueryResultCursor<String> cursor = createDao().doQueryScroll(query);
+        assertTrue(cursor.hasNext());
+        cursor.close();
+        assertFalse(cursor.hasNext());
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testBatchedParamNotAllowed() {
+        Person person = query.from(Person.class);
+        query.where(person.getId()).in(Arrays.asList(1L, 2L, 3L), 2);
+        createDao().doQueryScroll(query);
+    }
+}
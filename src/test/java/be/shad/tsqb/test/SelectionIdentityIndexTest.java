@@ -0,0 +1,101 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import be.shad.tsqb.selection.SelectionIdentityIndex;
+
+public class SelectionIdentityIndexTest {
+
+    private void index(SelectionIdentityIndex index, Object parent, Object value, Object... identityValues) {
+        int slot = index.indexOf(parent, identityValues);
+        assertTrue(slot < 0);
+        index.insert(slot, parent, identityValues, value);
+    }
+
+    private Object find(SelectionIdentityIndex index, Object parent, Object... identityValues) {
+        int slot = index.indexOf(parent, identityValues);
+        return slot < 0 ? null: index.valueAt(slot);
+    }
+
+    /**
+     * Values are found after the index was resized a few times.
+     */
+    @Test
+    public void testLongIdentityValuesAfterResize() {
+        SelectionIdentityIndex index = new SelectionIdentityIndex();
+        for(long i=0; i < 1000; i++) {
+            index(index, null, "value" + i, i);
+        }
+        assertEquals(1000, index.size());
+        for(long i=0; i < 1000; i++) {
+            assertEquals("value" + i, find(index, null, i));
+        }
+        assertEquals(null, find(index, null, 1000L));
+    }
+
+    /**
+     * Long and integer identity values with the same number are different identities.
+     */
+    @Test
+    public void testIdentityValueTypeIsRespected() {
+        SelectionIdentityIndex index = new SelectionIdentityIndex();
+        index(index, null, "long", 1L);
+        index(index, null, "integer", 1);
+        index(index, null, "string", "1");
+        assertEquals("long", find(index, null, 1L));
+        assertEquals("integer", find(index, null, 1));
+        assertEquals("string", find(index, null, "1"));
+    }
+
+    /**
+     * The same identity is a different value for a different parent.
+     */
+    @Test
+    public void testParentIsPartOfIdentity() {
+        SelectionIdentityIndex index = new SelectionIdentityIndex();
+        Object parent1 = new Object();
+        Object parent2 = new Object();
+        index(index, parent1, "first", 5L);
+        index(index, parent2, "second", 5L);
+        assertEquals("first", find(index, parent1, 5L));
+        assertEquals("second", find(index, parent2, 5L));
+    }
+
+    /**
+     * Composite identity values are copied, so the buffer can be reused.
+     */
+    @Test
+    public void testCompositeIdentityValues() {
+        SelectionIdentityIndex index = new SelectionIdentityIndex();
+        Object[] buffer = index.getIdentityValuesBuffer(2);
+        buffer[0] = "a";
+        buffer[1] = null;
+        index.insert(index.indexOf(null, buffer), null, buffer, "a-null");
+        buffer[1] = 2L;
+        index.insert(index.indexOf(null, buffer), null, buffer, "a-2");
+
+        assertSame(buffer, index.getIdentityValuesBuffer(2));
+        assertEquals("a-null", find(index, null, "a", null));
+        assertEquals("a-2", find(index, null, "a", 2L));
+        assertEquals(null, find(index, null, "b", 2L));
+    }
+}
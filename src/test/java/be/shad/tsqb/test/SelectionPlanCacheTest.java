@@ -0,0 +1,182 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.dto.TownDetailsDto;
+import be.shad.tsqb.helper.TypeSafeQueryHelperImpl;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.selection.SelectionPlanCache;
+import be.shad.tsqb.selection.SelectionValueTransformer;
+import be.shad.tsqb.selection.parallel.SelectValue;
+import be.shad.tsqb.selection.parallel.SelectionMerger1;
+
+public class SelectionPlanCacheTest extends TypeSafeQueryTest {
+    private SelectionPlanCache original;
+    private SelectionPlanCache cache;
+
+    @Before
+    public void replaceCache() {
+        original = getHelper().getSelectionPlanCache();
+        cache = new SelectionPlanCache(2);
+        getHelper().setSelectionPlanCache(cache);
+
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        creator.createTestPerson(town, "Josh");
+    }
+
+    @After
+    public void restoreCache() {
+        getHelper().setSelectionPlanCache(original);
+    }
+
+    private TypeSafeRootQuery createPersonDtoQuery(String name) {
+        TypeSafeRootQuery query = createQuery();
+        Person person = query.from(Person.class);
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setThePersonsName(person.getName());
+        query.where(person.getName()).eq(name);
+        return query;
+    }
+
+    /**
+     * The transformer is compiled once for the selection shape,
+     * also when the restrictions of the queries differ.
+     */
+    @Test
+    public void testTransformerSharedForSameShape() {
+        TypeSafeRootQuery query = createPersonDtoQuery("Josh");
+        query.where(query.from(Town.class).getName()).isNotNull();
+
+        assertSame(createPersonDtoQuery("Josh").toHqlQuery().getResultTransformer(),
+                query.toHqlQuery().getResultTransformer());
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testTransformerNotSharedForDifferentDto() {
+        TypeSafeRootQuery query = createQuery();
+        Person person = query.from(Person.class);
+        TownDetailsDto dto = query.select(TownDetailsDto.class);
+        dto.setName(person.getName());
+
+        assertNotSame(createPersonDtoQuery("Josh").toHqlQuery().getResultTransformer(),
+                query.toHqlQuery().getResultTransformer());
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Queries without dto or value transformers don't need a transformer.
+     */
+    @Test
+    public void testValuesNotCached() {
+        Person person = query.from(Person.class);
+        query.selectValue(person.getName());
+
+        assertNull(query.toHqlQuery().getResultTransformer());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSharedTransformerResults() {
+        PersonDto first = (PersonDto) doQuerySingleResult(createPersonDtoQuery("Josh"));
+        PersonDto second = (PersonDto) doQuerySingleResult(createPersonDtoQuery("Josh"));
+        assertNotNull(first);
+        assertNotSame(first, second);
+        assertEquals("Josh", second.getThePersonsName());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    /**
+     * Value transformers are typically created for each query,
+     * the transformers using them are not cached.
+     */
+    @Test
+    public void testValueTransformerNotCached() {
+        Person person = query.from(Person.class);
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setThePersonsName(query.select(String.class, person.getName(),
+                new SelectionValueTransformer<String, String>() {
+            @Override
+            public String convert(String name) {
+                return name.toUpperCase();
+            }
+        }));
+
+        assertNotNull(query.toHqlQuery().getResultTransformer());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    /**
+     * Selection mergers are typically created for each query,
+     * the transformers using them are not cached.
+     */
+    @Test
+    public void testSelectionMergerNotCached() {
+        Person person = query.from(Person.class);
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setThePersonsName(person.getName());
+        SelectValue<Long> mergeValue = query.selectMergeValues(dto, new SelectionMerger1<PersonDto, Long>() {
+            @Override
+            public void mergeValueIntoResult(PersonDto partialResult, Long value) {
+                partialResult.setId(value);
+            }
+        });
+        mergeValue.setValue(person.getId());
+
+        assertNotNull(query.toHqlQuery().getResultTransformer());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testCacheDisabledByDefault() {
+        assertNull(new TypeSafeQueryHelperImpl(getSessionFactory()).getSelectionPlanCache());
+    }
+
+    @Test
+    public void testCacheDisabled() {
+        getHelper().setSelectionPlanCache(null);
+        assertNotSame(createPersonDtoQuery("Josh").toHqlQuery().getResultTransformer(),
+                createPersonDtoQuery("Josh").toHqlQuery().getResultTransformer());
+    }
+
+    private Object doQuerySingleResult(TypeSafeRootQuery query) {
+        doQuery(query);
+        assertEquals(1, doQueryResult.size());
+        return doQueryResult.get(0);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testMaxSizeMustBePositive() {
+        new SelectionPlanCache(0);
+    }
+}
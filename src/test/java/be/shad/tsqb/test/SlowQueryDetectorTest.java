@@ -0,0 +1,119 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.dao.metrics.QueryExecutionMetrics;
+import be.shad.tsqb.dao.metrics.SlowQueryDetector;
+import be.shad.tsqb.dao.metrics.SlowQueryDetector.Detection;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+
+public class SlowQueryDetectorTest extends TypeSafeQueryTest {
+    private TypeSafeQueryDaoImpl dao;
+    private SlowQueryDetector detector;
+    private List<Detection> detections;
+    private List<StackTraceElement> callSites;
+
+    @Before
+    public void initializeDao() {
+        detections = new ArrayList<>();
+        callSites = new ArrayList<>();
+        detector = new SlowQueryDetector() {
+            @Override
+            protected void queryDetected(Detection detection, QueryExecutionMetrics metrics,
+                    StackTraceElement callSite) {
+                detections.add(detection);
+                callSites.add(callSite);
+            }
+        };
+        dao = createDao();
+        dao.setMetricsListener(detector);
+
+        createTestPeople("Anna", "Bob", "Carl");
+    }
+
+    private void selectPerson(String name) {
+        TypeSafeRootQuery personQuery = dao.createQuery();
+        Person person = personQuery.from(Person.class);
+        personQuery.where(person.getName()).eq(name);
+        dao.doQueryResults(personQuery);
+    }
+
+    /**
+     * Selecting persons one at a time in a loop is reported
+     * once, when the threshold is reached, with the loop as call site.
+     */
+    @Test
+    public void testRepeatedExecutionDetected() {
+        detector.setRepeatedExecutionThreshold(3);
+        for(String name: new String[] { "Anna", "Bob", "Carl", "Dave", "Emma" }) {
+            selectPerson(name);
+        }
+        assertEquals(1, detections.size());
+        assertEquals(Detection.RepeatedExecution, detections.get(0));
+        assertEquals(SlowQueryDetectorTest.class.getName(), callSites.get(0).getClassName());
+        assertEquals("selectPerson", callSites.get(0).getMethodName());
+    }
+
+    @Test
+    public void testRepeatedExecutionBelowThreshold() {
+        detector.setRepeatedExecutionThreshold(3);
+        selectPerson("Anna");
+        selectPerson("Bob");
+        assertEquals(0, detections.size());
+    }
+
+    @Test
+    public void testManyRowsDetected() {
+        detector.setRowThreshold(2);
+        TypeSafeRootQuery personQuery = dao.createQuery();
+        personQuery.from(Person.class);
+        dao.doQueryResults(personQuery);
+        dao.doQueryResults(personQuery);
+        assertEquals(1, detections.size());
+        assertEquals(Detection.ManyRows, detections.get(0));
+    }
+
+    @Test
+    public void testSlowQueryDetected() {
+        detector.setLatencyThreshold(0, TimeUnit.NANOSECONDS);
+        selectPerson("Anna");
+        assertEquals(1, detections.size());
+        assertEquals(Detection.Slow, detections.get(0));
+    }
+
+    /**
+     * The default reporting logs the detection.
+     */
+    @Test
+    public void testDetectionLogged() {
+        SlowQueryDetector loggingDetector = new SlowQueryDetector();
+        loggingDetector.setLatencyThreshold(0, TimeUnit.NANOSECONDS);
+        dao.setMetricsListener(loggingDetector);
+        selectPerson("Anna");
+    }
+
+}
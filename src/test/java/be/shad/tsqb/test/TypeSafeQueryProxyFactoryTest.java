@@ -0,0 +1,246 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.ConstantAttribute;
+import javassist.bytecode.FieldInfo;
+import javassist.util.proxy.MethodHandler;
+import javassist.util.proxy.Proxy;
+
+import org.junit.Test;
+
+import be.shad.tsqb.domain.Product;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.dto.HasId;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.dto.TownDto;
+import be.shad.tsqb.helper.ConcreteDtoClassResolverImpl;
+import be.shad.tsqb.helper.TypeSafeQueryHelperImpl;
+import be.shad.tsqb.proxy.TypeSafeQueryProxyFactory;
+import be.shad.tsqb.proxy.TypeSafeQueryProxyGenerator;
+import be.shad.tsqb.proxy.TypeSafeQuerySelectionProxy;
+import be.shad.tsqb.proxy.TypeSafeQueryProxyType;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeRootQueryImpl;
+
+public class TypeSafeQueryProxyFactoryTest extends TypeSafeQueryTest {
+
+    @Test
+    public void testProxyClassIsReused() {
+        TypeSafeQueryProxyFactory factory = new TypeSafeQueryProxyFactory(new ConcreteDtoClassResolverImpl());
+        Person first = factory.getProxy(Person.class, TypeSafeQueryProxyType.EntityType);
+        Person second = factory.getProxy(Person.class, TypeSafeQueryProxyType.EntityType);
+        assertSame(first.getClass(), second.getClass());
+    }
+
+    /**
+     * Queries are built concurrently, each thread should get a correctly built query.
+     */
+    @Test
+    public void testConcurrentQueryBuilding() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for(int i=0; i < 64; i++) {
+                futures.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        TypeSafeRootQuery query = createQuery();
+                        Person person = query.from(Person.class);
+                        query.where(person.getName()).eq("Josh");
+                        return query.toHqlQuery().getHql().trim();
+                    }
+                }));
+            }
+            for(Future<String> future: futures) {
+                assertEquals("from Person hobj1 where hobj1.name = :np1", future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Warming up proxies for all mapped entities and components should
+     * yield the same result sequentially and in parallel, and queries
+     * built afterwards should use the pre-generated proxies.
+     */
+    @Test
+    public void testWarmUp() {
+        TypeSafeQueryHelperImpl helper = new TypeSafeQueryHelperImpl(getSessionFactory());
+        int count = helper.warmUp();
+        assertTrue(count > getSessionFactory().getMetamodel().getEntities().size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertEquals(count, new TypeSafeQueryHelperImpl(getSessionFactory()).warmUp(executor));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        helper.registerWarmUpDtoClasses(PersonDto.class);
+        assertEquals(count + 1, helper.warmUp());
+
+        TypeSafeRootQuery query = new TypeSafeRootQueryImpl(helper);
+        Product product = query.from(Product.class);
+        query.where(product.getProductProperties().getPlanning().getAlgorithm()).eq("Fast");
+        assertEquals(" from be.shad.tsqb.domain.Product hobj1 where hobj1.productProperties.planning.algorithm = :np1",
+                query.toHqlQuery().getHql());
+    }
+
+    /**
+     * Proxy classes generated at build time are written to the output directory
+     * and used by the factory instead of creating a proxy class at runtime.
+     * The proxied classes are loaded from the output directory in a separate
+     * class loader, so the generated proxies aren't used by the other tests.
+     */
+    @Test
+    public void testGeneratedProxyClassIsUsed() throws Exception {
+        File outputDirectory = Files.createTempDirectory("tsqb-proxies").toFile();
+        TypeSafeQueryProxyGenerator generator = new TypeSafeQueryProxyGenerator(outputDirectory);
+        assertTrue(generator.generate(Town.class, TypeSafeQueryProxyType.EntityType).isFile());
+        assertTrue(generator.generate(TownDto.class, TypeSafeQueryProxyType.SelectionDtoType).isFile());
+        assertFalse(isLoadable(Town.class.getClassLoader(), Town.class.getName() + "$TypeSafeQueryProxy"));
+        assertFalse(isLoadable(TownDto.class.getClassLoader(), TownDto.class.getName() + "$TypeSafeQuerySelectionProxy"));
+
+        try (URLClassLoader classLoader = new GeneratedProxyClassLoader(outputDirectory, Town.class, TownDto.class)) {
+            Class<?> town = classLoader.loadClass(Town.class.getName());
+            Class<?> townDto = classLoader.loadClass(TownDto.class.getName());
+            TypeSafeQueryProxyFactory factory = new TypeSafeQueryProxyFactory(new ConcreteDtoClassResolverImpl());
+            Object townProxy = factory.getProxy(town, TypeSafeQueryProxyType.EntityType);
+            Object townDtoProxy = factory.getProxy(townDto, TypeSafeQueryProxyType.SelectionDtoType);
+            assertEquals(Town.class.getName() + "$TypeSafeQueryProxy", townProxy.getClass().getName());
+            assertSame(classLoader, townProxy.getClass().getClassLoader());
+            assertSame(townProxy.getClass(), factory.getProxy(town, TypeSafeQueryProxyType.EntityCollectionType).getClass());
+            assertEquals(TownDto.class.getName() + "$TypeSafeQuerySelectionProxy", townDtoProxy.getClass().getName());
+            assertTrue(townDtoProxy instanceof TypeSafeQuerySelectionProxy);
+
+            // the renamed proxy class still intercepts the proxied methods:
+            ((Proxy) townProxy).setHandler(new MethodHandler() {
+                @Override
+                public Object invoke(Object self, Method thisMethod, Method proceed, Object[] args) {
+                    return "intercepted " + thisMethod.getName();
+                }
+            });
+            assertEquals("intercepted getName", town.getMethod("getName").invoke(townProxy));
+        }
+    }
+
+    /**
+     * A generated proxy class with a proxied methods hash which doesn't match
+     * the proxied class is stale, a proxy class is created at runtime instead.
+     */
+    @Test
+    public void testStaleGeneratedProxyClassIsIgnored() throws Exception {
+        File outputDirectory = Files.createTempDirectory("tsqb-proxies").toFile();
+        File proxyFile = new TypeSafeQueryProxyGenerator(outputDirectory).generate(
+                Town.class, TypeSafeQueryProxyType.EntityType);
+        ClassFile classFile;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(proxyFile))) {
+            classFile = new ClassFile(in);
+        }
+        ConstPool constPool = classFile.getConstPool();
+        for (Object field: classFile.getFields()) {
+            if ("TYPE_SAFE_QUERY_PROXIED_METHODS_HASH".equals(((FieldInfo) field).getName())) {
+                ((FieldInfo) field).addAttribute(new ConstantAttribute(constPool, constPool.addStringInfo("stale")));
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(proxyFile))) {
+            classFile.write(out);
+        }
+
+        try (URLClassLoader classLoader = new GeneratedProxyClassLoader(outputDirectory, Town.class)) {
+            Class<?> town = classLoader.loadClass(Town.class.getName());
+            TypeSafeQueryProxyFactory factory = new TypeSafeQueryProxyFactory(new ConcreteDtoClassResolverImpl());
+            Object townProxy = factory.getProxy(town, TypeSafeQueryProxyType.EntityType);
+            assertSame(town, townProxy.getClass().getSuperclass());
+            assertFalse(townProxy.getClass().getName().endsWith("$TypeSafeQueryProxy"));
+        }
+    }
+
+    private static boolean isLoadable(ClassLoader classLoader, String className) {
+        try {
+            Class.forName(className, false, classLoader);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Loads the given classes and their generated proxies itself, from the output directory
+     * and the test classes, other classes are loaded by the test class loader.
+     */
+    private static class GeneratedProxyClassLoader extends URLClassLoader {
+        private final Class<?>[] proxiedClasses;
+
+        public GeneratedProxyClassLoader(File outputDirectory, Class<?>... proxiedClasses) throws IOException {
+            super(new URL[] { outputDirectory.toURI().toURL(),
+                    proxiedClasses[0].getProtectionDomain().getCodeSource().getLocation() },
+                    proxiedClasses[0].getClassLoader());
+            this.proxiedClasses = proxiedClasses;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            for (Class<?> proxiedClass: proxiedClasses) {
+                if (name.equals(proxiedClass.getName()) || name.startsWith(proxiedClass.getName() + "$")) {
+                    synchronized (getClassLoadingLock(name)) {
+                        Class<?> loadedClass = findLoadedClass(name);
+                        if (loadedClass == null) {
+                            loadedClass = findClass(name);
+                        }
+                        if (resolve) {
+                            resolveClass(loadedClass);
+                        }
+                        return loadedClass;
+                    }
+                }
+            }
+            return super.loadClass(name, resolve);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGenerateUnproxyableClass() {
+        new TypeSafeQueryProxyGenerator(new File("target")).generate(HasId.class, TypeSafeQueryProxyType.SelectionDtoType);
+    }
+}
@@ -19,6 +19,7 @@ import static be.shad.tsqb.values.HqlQueryValueImpl.hql;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -39,6 +40,8 @@ import be.shad.tsqb.NamedParameter;
 import be.shad.tsqb.dao.HibernateQueryConfigurer;
 import be.shad.tsqb.dao.TypeSafeQueryDao;
 import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
 import be.shad.tsqb.helper.TypeSafeQueryHelperImpl;
 import be.shad.tsqb.hql.HqlQuery;
 import be.shad.tsqb.query.TypeSafeRootQuery;
@@ -109,6 +112,26 @@ public class TypeSafeQueryTest {
         return typeSafeQueryDao.createQuery();
     }
 
+    /**
+     * Creates a dao which isn't shared with other tests, so it can be configured for the test.
+     */
+    protected TypeSafeQueryDaoImpl createDao() {
+        return new TypeSafeQueryDaoImpl(sessionFactory, helper);
+    }
+
+    /**
+     * Creates a test town with a person for each name, in the order of the names.
+     */
+    protected List<Person> createTestPeople(String... names) {
+        TestDataCreator creator = new TestDataCreator(sessionFactory);
+        Town town = creator.createTestTown();
+        List<Person> people = new ArrayList<>(names.length);
+        for(String name: names) {
+            people.add(creator.createTestPerson(town, name));
+        }
+        return people;
+    }
+
     /**
      * Creates a query using a session calls list, hibernate should
      * not complain if the query is syntactically correct.